@@ -0,0 +1,50 @@
+package org.howard.edu.lsp.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Shared benchmark state: a generated input file in a scratch directory.
+ * The input is generated once per trial from the row count and bad row ratio parameters.
+ */
+@State(Scope.Benchmark)
+public class BenchmarkData {
+    @Param({"100000", "1000000"})
+    public long rows;
+
+    @Param({"0.0", "0.1"})
+    public double badRowRatio;
+
+    public Path directory;
+    public Path inputFile;
+    public Path outputFile;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        directory = Files.createTempDirectory("etl-bench");
+        inputFile = directory.resolve("products.csv");
+        outputFile = directory.resolve("transformed_products.csv");
+
+        ProductCsvGenerator generator = new ProductCsvGenerator(42L);
+        generator.setRowCount(rows);
+        generator.setBadRowRatio(badRowRatio);
+        generator.generate(inputFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
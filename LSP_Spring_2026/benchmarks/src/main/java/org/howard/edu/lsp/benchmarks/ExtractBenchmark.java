@@ -0,0 +1,41 @@
+package org.howard.edu.lsp.benchmarks;
+
+import java.util.List;
+
+import org.howard.edu.lsp.assignment3.ETLConfig;
+import org.howard.edu.lsp.assignment3.ParallelProductExtractor;
+import org.howard.edu.lsp.assignment3.Product;
+import org.howard.edu.lsp.assignment3.ProductExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing the input file into products with each extractor.
+ * One operation extracts the whole generated file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ExtractBenchmark {
+    @Param({"buffered", "mmap", "parallel"})
+    public String reader;
+
+    @Benchmark
+    public List<Product> extract(BenchmarkData data) {
+        ETLConfig config = new ETLConfig(data.inputFile.toString(), data.outputFile.toString(), ",");
+        config.setMemoryMapped(reader.equals("mmap"));
+        ProductExtractor extractor = reader.equals("parallel")
+                ? new ParallelProductExtractor(config)
+                : new ProductExtractor(config);
+        return extractor.extractData();
+    }
+}
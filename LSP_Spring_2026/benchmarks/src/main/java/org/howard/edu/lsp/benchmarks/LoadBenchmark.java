@@ -0,0 +1,66 @@
+package org.howard.edu.lsp.benchmarks;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+import org.howard.edu.lsp.assignment3.ETLConfig;
+import org.howard.edu.lsp.assignment3.Product;
+import org.howard.edu.lsp.assignment3.ProductBatch;
+import org.howard.edu.lsp.assignment3.ProductExtractor;
+import org.howard.edu.lsp.assignment3.ProductLoader;
+import org.howard.edu.lsp.assignment3.ProductTransformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures writing transformed products to the output file.
+ * The PrintWriter variant reproduces the original loader for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LoadBenchmark {
+    private ETLConfig config;
+    private List<Product> products;
+    private ProductBatch batch;
+
+    @Setup(Level.Trial)
+    public void prepare(BenchmarkData data) {
+        config = new ETLConfig(data.inputFile.toString(), data.outputFile.toString(), ",");
+        products = new ProductTransformer().transform(new ProductExtractor(config).extractData());
+        batch = ProductBatch.fromProducts(products);
+    }
+
+    @Benchmark
+    public void loadList() {
+        new ProductLoader(config).loadTransformed(products);
+    }
+
+    @Benchmark
+    public void loadBatch() throws IOException {
+        new ProductLoader(config).loadTransformed(batch);
+    }
+
+    @Benchmark
+    public void loadPrintWriter() throws FileNotFoundException {
+        try (PrintWriter writer = new PrintWriter(new File(config.getOutputFile()))) {
+            writer.println("ProductID,Name,Price,Category,PriceRange");
+            for (Product product : products) {
+                writer.println(product.getProductId() + "," + product.getName() + "," + product.getPrice() + "," + product.getCategory() + "," + product.getPriceRange());
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.howard.edu.lsp.benchmarks;
+
+import java.io.File;
+
+import org.howard.edu.lsp.assignment2.ETLPipeline;
+import org.howard.edu.lsp.assignment3.ETLConfig;
+import org.howard.edu.lsp.assignment3.ETLPipelineOrchestrator;
+import org.howard.edu.lsp.assignment3.PipelineMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the whole extract, transform and load run, for every pipeline mode
+ * and for the original single-method pipeline from assignment 2.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PipelineBenchmark {
+
+    /**
+     * The pipeline mode run by the orchestrator benchmark.
+     */
+    @State(Scope.Benchmark)
+    public static class ModeParam {
+        @Param({"BATCH", "STREAMING", "PARALLEL", "COLUMNAR", "OFF_HEAP"})
+        public String mode;
+    }
+
+    @Setup(Level.Trial)
+    public void checkWorkingDirectory() {
+        // The assignment 2 pipeline always writes data/transformed_products.csv
+        // relative to the working directory; never overwrite the project's copy.
+        if (new File("data/products.csv").exists()) {
+            throw new IllegalStateException("Run the benchmarks from a scratch directory, not the project directory");
+        }
+    }
+
+    @Benchmark
+    public void orchestrator(BenchmarkData data, ModeParam param) {
+        ETLConfig config = new ETLConfig(data.inputFile.toString(), data.outputFile.toString(), ",");
+        config.setMode(PipelineMode.valueOf(param.mode));
+        ETLPipelineOrchestrator.run(config);
+    }
+
+    @Benchmark
+    public void legacyReadCSV(BenchmarkData data) {
+        ETLPipeline.readCSV(data.inputFile.toString(), ",");
+    }
+}
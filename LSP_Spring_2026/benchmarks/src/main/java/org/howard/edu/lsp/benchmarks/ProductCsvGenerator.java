@@ -0,0 +1,161 @@
+package org.howard.edu.lsp.benchmarks;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates synthetic products.csv files for benchmarking the ETL pipeline.
+ * The number of rows, the mix of categories and the share of invalid rows are
+ * configurable, and the same seed always produces the same file.
+ * <p>
+ * Invalid rows are spread evenly over the four reasons the extractor skips a row:
+ * blank lines, a wrong number of columns, an invalid product ID and an invalid price.
+ */
+public class ProductCsvGenerator {
+    private static final String[] NAMES = {
+        "USB Cable", " Office Chair ", "4K TV", "Gift Card", "Mouse", "Table", "Camera",
+        "Notebook", "Desk Lamp", "Headphones", "Monitor", "Bookshelf", "Stapler", "Keyboard"
+    };
+
+    private final Random random;
+    private long rowCount = 100_000;
+    private double badRowRatio = 0.0;
+    private Map<String, Double> categoryWeights = new LinkedHashMap<>();
+
+    /**
+     * Constructs a generator with the default category mix:
+     * 40% Electronics, 20% each of Furniture, Stationery and Other.
+     *
+     * @param seed the random seed
+     */
+    public ProductCsvGenerator(long seed) {
+        this.random = new Random(seed);
+        categoryWeights.put("Electronics", 0.4);
+        categoryWeights.put("Furniture", 0.2);
+        categoryWeights.put("Stationery", 0.2);
+        categoryWeights.put("Other", 0.2);
+    }
+
+    /**
+     * Sets the number of data rows to generate, excluding the header.
+     *
+     * @param rowCount the number of data rows
+     */
+    public void setRowCount(long rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Sets the share of rows that the extractor will skip.
+     *
+     * @param badRowRatio a value between 0 and 1
+     */
+    public void setBadRowRatio(double badRowRatio) {
+        if (badRowRatio < 0 || badRowRatio > 1) {
+            throw new IllegalArgumentException("badRowRatio must be between 0 and 1");
+        }
+        this.badRowRatio = badRowRatio;
+    }
+
+    /**
+     * Sets the relative weight of each category among valid rows.
+     *
+     * @param categoryWeights category names mapped to non negative weights
+     */
+    public void setCategoryWeights(Map<String, Double> categoryWeights) {
+        this.categoryWeights = new LinkedHashMap<>(categoryWeights);
+    }
+
+    /**
+     * Writes a products.csv file with a header row followed by the generated rows.
+     *
+     * @param file the file to create or overwrite
+     * @throws IOException if the file cannot be written
+     */
+    public void generate(Path file) throws IOException {
+        String[] categories = categoryWeights.keySet().toArray(new String[0]);
+        double[] cumulative = new double[categories.length];
+        double total = 0;
+        for (int i = 0; i < categories.length; i++) {
+            total += categoryWeights.get(categories[i]);
+            cumulative[i] = total;
+        }
+
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("ProductID,Name,Price,Category");
+            for (long row = 1; row <= rowCount; row++) {
+                writer.write('\n');
+                if (random.nextDouble() < badRowRatio) {
+                    writer.write(badRow(row));
+                    continue;
+                }
+                double pick = random.nextDouble() * total;
+                int category = 0;
+                while (category < categories.length - 1 && pick >= cumulative[category]) {
+                    category++;
+                }
+                writer.write(Long.toString(row));
+                writer.write(',');
+                writer.write(NAMES[random.nextInt(NAMES.length)]);
+                writer.write(',');
+                writer.write(randomPrice());
+                writer.write(',');
+                writer.write(categories[category]);
+            }
+        }
+    }
+
+    private String randomPrice() {
+        // Mostly two decimals, sometimes three to exercise rounding
+        int scale = random.nextInt(10) == 0 ? 1000 : 100;
+        long units = (long) (Math.pow(10, random.nextDouble() * 3.3) * scale);
+        return scale == 1000
+                ? String.format(Locale.ROOT, "%d.%03d", units / 1000, units % 1000)
+                : String.format(Locale.ROOT, "%d.%02d", units / 100, units % 100);
+    }
+
+    private String badRow(long row) {
+        switch (random.nextInt(4)) {
+            case 0:
+                return "";
+            case 1:
+                return row + ",Too Few Fields,9.99";
+            case 2:
+                return "id" + row + ",Bad Id,9.99,Other";
+            default:
+                return row + ",Bad Price,abc,Other";
+        }
+    }
+
+    /**
+     * Generates a file from the command line.
+     * Usage: ProductCsvGenerator &lt;output&gt; [rows] [badRowRatio] [seed]
+     *
+     * @param args the output path, optional row count, bad row ratio and seed
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: ProductCsvGenerator <output> [rows] [badRowRatio] [seed]");
+            return;
+        }
+        ProductCsvGenerator generator = new ProductCsvGenerator(args.length > 3 ? Long.parseLong(args[3]) : 42L);
+        if (args.length > 1) {
+            generator.setRowCount(Long.parseLong(args[1]));
+        }
+        if (args.length > 2) {
+            generator.setBadRowRatio(Double.parseDouble(args[2]));
+        }
+        Path output = Paths.get(args[0]);
+        generator.generate(output);
+        System.out.println("Generated " + generator.rowCount + " rows at " + output);
+    }
+}
@@ -0,0 +1,83 @@
+package org.howard.edu.lsp.benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.howard.edu.lsp.assignment3.ByteTokenizer;
+import org.howard.edu.lsp.assignment3.ETLConfig;
+import org.howard.edu.lsp.assignment3.Product;
+import org.howard.edu.lsp.assignment3.ProductExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the scalar and Vector API tokenizers.
+ * {@code scan} finds every delimiter and line terminator of the generated file, 64 KB
+ * at a time, from a heap buffer or a memory-mapped one; {@code extract} runs the
+ * memory-mapped extractor with each tokenizer. The forked JVM is started with
+ * jdk.incubator.vector, so the vector tokenizer is available.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+public class TokenizerBenchmark {
+    private static final int BLOCK_BYTES = 64 * 1024;
+
+    @Param({"scalar", "vector"})
+    public String tokenizer;
+
+    @Param({"heap", "mapped"})
+    public String buffer;
+
+    private ByteTokenizer backend;
+    private ByteBuffer bytes;
+    private final int[] positions = new int[BLOCK_BYTES];
+
+    @Setup(Level.Trial)
+    public void load(BenchmarkData data) throws IOException {
+        backend = tokenizer.equals("vector") ? ByteTokenizer.vector() : ByteTokenizer.scalar();
+        if (backend == null) {
+            throw new IllegalStateException("jdk.incubator.vector is not available in this JVM");
+        }
+        if (buffer.equals("heap")) {
+            bytes = ByteBuffer.wrap(Files.readAllBytes(data.inputFile));
+        } else {
+            try (FileChannel channel = FileChannel.open(data.inputFile, StandardOpenOption.READ)) {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+    }
+
+    @Benchmark
+    public long scan() {
+        long count = 0;
+        int size = bytes.limit();
+        for (int from = 0; from < size; from += BLOCK_BYTES) {
+            count += backend.scan(bytes, from, Math.min(size, from + BLOCK_BYTES), (byte) ',', positions, 0);
+        }
+        return count;
+    }
+
+    @Benchmark
+    public List<Product> extract(BenchmarkData data) {
+        ETLConfig config = new ETLConfig(data.inputFile.toString(), data.outputFile.toString(), ",");
+        config.setMemoryMapped(true);
+        config.setVectorTokenizer(tokenizer.equals("vector"));
+        return new ProductExtractor(config).extractData();
+    }
+}
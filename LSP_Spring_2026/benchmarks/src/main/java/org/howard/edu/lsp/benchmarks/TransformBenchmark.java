@@ -0,0 +1,61 @@
+package org.howard.edu.lsp.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.howard.edu.lsp.assignment3.ETLConfig;
+import org.howard.edu.lsp.assignment3.Product;
+import org.howard.edu.lsp.assignment3.ProductBatch;
+import org.howard.edu.lsp.assignment3.ProductExtractor;
+import org.howard.edu.lsp.assignment3.ProductTransformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures applying the business rules to already extracted products.
+ * The transformer works in place, so a fresh copy of the raw rows is made
+ * before every invocation, outside the measured time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TransformBenchmark {
+    private List<Product> raw;
+    private List<Product> products;
+    private ProductBatch batch;
+
+    @Setup(Level.Trial)
+    public void extract(BenchmarkData data) {
+        ETLConfig config = new ETLConfig(data.inputFile.toString(), data.outputFile.toString(), ",");
+        raw = new ProductExtractor(config).extractData();
+    }
+
+    @Setup(Level.Invocation)
+    public void copy() {
+        products = new ArrayList<>(raw.size());
+        for (Product product : raw) {
+            products.add(new Product(product.getProductId(), product.getName(), product.getPrice(), product.getCategory()));
+        }
+        batch = ProductBatch.fromProducts(raw);
+    }
+
+    @Benchmark
+    public List<Product> transformList() {
+        return new ProductTransformer().transform(products);
+    }
+
+    @Benchmark
+    public ProductBatch transformBatch() {
+        return new ProductTransformer().transform(batch);
+    }
+}
@@ -0,0 +1,509 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Reads files written in the binary output format through memory-mapped row groups.
+ * Each {@link RowGroup} reads its columns straight from the mapped file, so a job that
+ * only needs prices and categories never touches the ids or names, and nothing is parsed
+ * from text. The reader is also a {@link ProductReader}, handing out every row as a
+ * Product in file order.
+ * <p>
+ * Opening a file reads only its header and footer; {@link #verifyChecksum()} checks the
+ * CRC32 of the whole file. A reader is not safe for use by several threads at once,
+ * but row groups it has returned are.
+ *
+ * @see BinaryProductWriter
+ */
+public class BinaryProductReader implements ProductReader {
+    private final String file;
+    private final FileChannel channel;
+    private final long footerOffset;
+    private final int checksum;
+    private final int rowGroupSize;
+    private final List<String> categories;
+    private final List<String> priceRanges;
+    private final long[] groupOffsets;
+    private final int[] groupRows;
+    private final long rowCount;
+
+    private int nextGroup;
+    private RowGroup current;
+    private int nextRow;
+
+    /**
+     * Opens a binary product file and reads its header and footer.
+     *
+     * @param file the path to the file
+     * @throws IOException if the file cannot be read or is not a valid binary product file
+     */
+    public BinaryProductReader(String file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < BinaryProductWriter.HEADER_BYTES + BinaryProductWriter.TRAILER_BYTES) {
+                throw notBinary();
+            }
+            ByteBuffer header = map(0, BinaryProductWriter.HEADER_BYTES);
+            if (header.getInt() != BinaryProductWriter.MAGIC) {
+                throw notBinary();
+            }
+            int version = header.getInt();
+            if (version != BinaryProductWriter.VERSION) {
+                throw new IOException("Unsupported binary product file version " + version + ": " + file);
+            }
+            rowGroupSize = header.getInt();
+
+            ByteBuffer trailer = map(size - BinaryProductWriter.TRAILER_BYTES, BinaryProductWriter.TRAILER_BYTES);
+            footerOffset = trailer.getLong();
+            checksum = trailer.getInt();
+            if (trailer.getInt() != BinaryProductWriter.MAGIC) {
+                throw notBinary();
+            }
+            long footerLength = size - BinaryProductWriter.TRAILER_BYTES - footerOffset;
+            if (footerOffset < BinaryProductWriter.HEADER_BYTES || footerLength > Integer.MAX_VALUE) {
+                throw corrupt();
+            }
+
+            ByteBuffer footer = map(footerOffset, (int) footerLength);
+            categories = readStrings(footer);
+            priceRanges = readStrings(footer);
+            int groupCount = footer.getInt();
+            if (groupCount < 0 || groupCount > footer.remaining() / 12) {
+                throw corrupt();
+            }
+            groupOffsets = new long[groupCount + 1];
+            groupRows = new int[groupCount];
+            long rows = 0;
+            for (int i = 0; i < groupCount; i++) {
+                groupOffsets[i] = footer.getLong();
+                groupRows[i] = footer.getInt();
+                if (groupOffsets[i] < (i == 0 ? BinaryProductWriter.HEADER_BYTES : groupOffsets[i - 1])
+                        || groupRows[i] < 0) {
+                    throw corrupt();
+                }
+                rows += groupRows[i];
+            }
+            groupOffsets[groupCount] = footerOffset;
+            rowCount = footer.getLong();
+            if (rowCount != rows || (groupCount > 0 && groupOffsets[groupCount - 1] > footerOffset)) {
+                throw corrupt();
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException ex) {
+            channel.close();
+            throw corrupt();
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the total number of rows in the file.
+     *
+     * @return the row count recorded in the footer
+     */
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of row groups in the file.
+     *
+     * @return the row group count
+     */
+    public int getRowGroupCount() {
+        return groupRows.length;
+    }
+
+    /**
+     * Returns the maximum number of rows the writer put in each row group.
+     *
+     * @return the row group size recorded in the header
+     */
+    public int getRowGroupSize() {
+        return rowGroupSize;
+    }
+
+    /**
+     * Returns the category dictionary shared by every row group.
+     *
+     * @return the category names, indexed by category code
+     */
+    public List<String> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Returns the price range dictionary shared by every row group.
+     *
+     * @return the price range names, indexed by price range code
+     */
+    public List<String> getPriceRanges() {
+        return priceRanges;
+    }
+
+    /**
+     * Maps a row group. Only the header of the group is read until its columns are accessed.
+     *
+     * @param index the row group index, from 0 to {@link #getRowGroupCount()} minus one
+     * @return the row group
+     * @throws IOException if the row group cannot be mapped or is corrupt
+     */
+    public RowGroup getRowGroup(int index) throws IOException {
+        long length = groupOffsets[index + 1] - groupOffsets[index];
+        if (length > Integer.MAX_VALUE) {
+            throw corrupt();
+        }
+        try {
+            return new RowGroup(map(groupOffsets[index], (int) length), groupRows[index]);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException ex) {
+            throw corrupt();
+        }
+    }
+
+    /**
+     * Computes the CRC32 of the file and compares it with the checksum in the trailer.
+     *
+     * @throws IOException if the file cannot be read or the checksum does not match
+     */
+    public void verifyChecksum() throws IOException {
+        CRC32 crc = new CRC32();
+        long end = channel.size() - BinaryProductWriter.TRAILER_BYTES;
+        for (long position = 0; position < end; ) {
+            int length = (int) Math.min(end - position, 1 << 30);
+            crc.update(map(position, length));
+            position += length;
+        }
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Checksum mismatch in binary product file: " + file);
+        }
+    }
+
+    /**
+     * Reads the next row as a Product, moving through the row groups in order.
+     *
+     * @return the next product, or null after the last row
+     * @throws IOException if a row group cannot be read
+     */
+    @Override
+    public Product read() throws IOException {
+        while (current == null || nextRow == current.size()) {
+            if (nextGroup == groupRows.length) {
+                return null;
+            }
+            current = getRowGroup(nextGroup++);
+            nextRow = 0;
+        }
+        return current.getProduct(nextRow++);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer map(long position, int length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private IOException notBinary() {
+        return new IOException("Not a binary product file: " + file);
+    }
+
+    private IOException corrupt() {
+        return new IOException("Corrupt binary product file: " + file);
+    }
+
+    private static List<String> readStrings(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining() / 4) {
+            throw new IllegalArgumentException("Invalid dictionary size " + count);
+        }
+        List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(readString(buffer));
+        }
+        return Collections.unmodifiableList(strings);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * One row group of a binary product file, with random access to each column.
+     * Numeric columns are read from the mapped file on every call; the bulk getters
+     * copy a whole column at once.
+     */
+    public final class RowGroup {
+        private final ByteBuffer buffer;
+        private final int size;
+        private final int idsAt;
+        private final int pricesAt;
+        private final int categoriesAt;
+        private final int priceRangesAt;
+        private final int nameOffsetsAt;
+        private final int namesAt;
+        private final int[] idTextRows;
+        private final String[] idTexts;
+        private final int[] widePriceRows;
+        private final BigDecimal[] widePrices;
+
+        private RowGroup(ByteBuffer buffer, int expectedRows) {
+            this.buffer = buffer;
+            this.size = buffer.getInt();
+            int nameLength = buffer.getInt();
+            int exceptionCount = buffer.getInt();
+            if (size != expectedRows || nameLength < 0 || exceptionCount < 0) {
+                throw new IllegalArgumentException("Invalid row group header");
+            }
+            idsAt = BinaryProductWriter.GROUP_HEADER_BYTES;
+            pricesAt = idsAt + size * 4;
+            categoriesAt = pricesAt + size * 8;
+            priceRangesAt = categoriesAt + size * 4;
+            nameOffsetsAt = priceRangesAt + size;
+            namesAt = nameOffsetsAt + (size + 1) * 4;
+
+            // Exceptions are rare, so they are decoded up front and looked up by row
+            buffer.position(namesAt + nameLength);
+            int[] rows = new int[exceptionCount];
+            byte[] kinds = new byte[exceptionCount];
+            String[] texts = new String[exceptionCount];
+            int idTextCount = 0;
+            for (int i = 0; i < exceptionCount; i++) {
+                rows[i] = buffer.getInt();
+                kinds[i] = buffer.get();
+                texts[i] = readString(buffer);
+                if (kinds[i] == BinaryProductWriter.EXCEPTION_ID_TEXT) {
+                    idTextCount++;
+                }
+            }
+            idTextRows = new int[idTextCount];
+            idTexts = new String[idTextCount];
+            widePriceRows = new int[exceptionCount - idTextCount];
+            widePrices = new BigDecimal[exceptionCount - idTextCount];
+            for (int i = 0, t = 0, p = 0; i < exceptionCount; i++) {
+                if (kinds[i] == BinaryProductWriter.EXCEPTION_ID_TEXT) {
+                    idTextRows[t] = rows[i];
+                    idTexts[t++] = texts[i];
+                } else {
+                    widePriceRows[p] = rows[i];
+                    widePrices[p++] = texts[i] == null ? null : new BigDecimal(texts[i]);
+                }
+            }
+        }
+
+        /**
+         * Returns the number of rows in the group.
+         *
+         * @return the row count
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the numeric product ID of a row.
+         *
+         * @param row the row index within the group
+         * @return the product ID
+         */
+        public int getId(int row) {
+            return buffer.getInt(idsAt + checkRow(row) * 4);
+        }
+
+        /**
+         * Returns the product ID of a row exactly as it appeared in the input.
+         *
+         * @param row the row index within the group
+         * @return the product ID text
+         */
+        public String getIdText(int row) {
+            int index = Arrays.binarySearch(idTextRows, row);
+            return index >= 0 ? idTexts[index] : Integer.toString(getId(row));
+        }
+
+        /**
+         * Returns the name of a row, decoding it from UTF-8.
+         *
+         * @param row the row index within the group
+         * @return the product name
+         */
+        public String getName(int row) {
+            int at = nameOffsetsAt + checkRow(row) * 4;
+            int start = buffer.getInt(at);
+            int end = buffer.getInt(at + 4);
+            byte[] bytes = new byte[end - start];
+            buffer.get(namesAt + start, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Returns whether the price of a row is held as cents.
+         *
+         * @param row the row index within the group
+         * @return true if {@link #getPriceCents(int)} holds the price
+         */
+        public boolean hasPriceCents(int row) {
+            return getPriceCents(row) != PriceCents.UNSUPPORTED;
+        }
+
+        /**
+         * Returns the price of a row in cents.
+         *
+         * @param row the row index within the group
+         * @return the price in cents, or {@link PriceCents#UNSUPPORTED} if it does not fit in cents
+         */
+        public long getPriceCents(int row) {
+            return buffer.getLong(pricesAt + checkRow(row) * 8);
+        }
+
+        /**
+         * Returns the price of a row as a BigDecimal.
+         *
+         * @param row the row index within the group
+         * @return the product price
+         */
+        public BigDecimal getPrice(int row) {
+            long cents = getPriceCents(row);
+            if (cents != PriceCents.UNSUPPORTED) {
+                return PriceCents.toBigDecimal(cents);
+            }
+            int index = Arrays.binarySearch(widePriceRows, row);
+            return index >= 0 ? widePrices[index] : null;
+        }
+
+        /**
+         * Returns the category dictionary code of a row.
+         *
+         * @param row the row index within the group
+         * @return an index into {@link BinaryProductReader#getCategories()}, or -1 for no category
+         */
+        public int getCategoryCode(int row) {
+            return buffer.getInt(categoriesAt + checkRow(row) * 4);
+        }
+
+        /**
+         * Returns the category of a row.
+         *
+         * @param row the row index within the group
+         * @return the category name
+         */
+        public String getCategory(int row) {
+            int code = getCategoryCode(row);
+            return code < 0 ? null : categories.get(code);
+        }
+
+        /**
+         * Returns the price range dictionary code of a row.
+         *
+         * @param row the row index within the group
+         * @return an index into {@link BinaryProductReader#getPriceRanges()}, or -1 for no price range
+         */
+        public byte getPriceRangeCode(int row) {
+            return buffer.get(priceRangesAt + checkRow(row));
+        }
+
+        /**
+         * Returns the price range of a row.
+         *
+         * @param row the row index within the group
+         * @return the price range
+         */
+        public String getPriceRange(int row) {
+            byte code = getPriceRangeCode(row);
+            return code < 0 ? null : priceRanges.get(code);
+        }
+
+        /**
+         * Returns a new Product holding the values of a row.
+         *
+         * @param row the row index within the group
+         * @return the row as a Product
+         */
+        public Product getProduct(int row) {
+            long cents = getPriceCents(row);
+            Product product = cents != PriceCents.UNSUPPORTED
+                    ? new Product(getIdText(row), getName(row), cents, getCategory(row))
+                    : new Product(getIdText(row), getName(row), getPrice(row), getCategory(row));
+            product.setPriceRange(getPriceRange(row));
+            return product;
+        }
+
+        /**
+         * Copies the product ID column.
+         *
+         * @return the numeric product IDs, in row order
+         */
+        public int[] getIds() {
+            int[] ids = new int[size];
+            column(idsAt, size * 4).asIntBuffer().get(ids);
+            return ids;
+        }
+
+        /**
+         * Copies the price column.
+         *
+         * @return the prices in cents, in row order; see {@link #getPriceCents(int)}
+         */
+        public long[] getPricesCents() {
+            long[] prices = new long[size];
+            column(pricesAt, size * 8).asLongBuffer().get(prices);
+            return prices;
+        }
+
+        /**
+         * Copies the category code column.
+         *
+         * @return the category codes, in row order
+         */
+        public int[] getCategoryCodes() {
+            int[] codes = new int[size];
+            column(categoriesAt, size * 4).asIntBuffer().get(codes);
+            return codes;
+        }
+
+        /**
+         * Copies the price range code column.
+         *
+         * @return the price range codes, in row order
+         */
+        public byte[] getPriceRangeCodes() {
+            byte[] codes = new byte[size];
+            buffer.get(priceRangesAt, codes);
+            return codes;
+        }
+
+        private ByteBuffer column(int at, int length) {
+            return buffer.slice(at, length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        private int checkRow(int row) {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException("Row " + row + " out of range for row group of " + size);
+            }
+            return row;
+        }
+    }
+}
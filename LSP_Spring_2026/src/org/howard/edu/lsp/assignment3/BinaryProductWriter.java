@@ -0,0 +1,401 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Writes transformed products in a compact columnar binary format.
+ * Rows are collected into row groups; each group stores its ids as ints, its prices
+ * as cents in longs, its categories and price ranges as dictionary codes and its names
+ * as UTF-8 bytes with an offset per row, one column after another. Downstream jobs read
+ * the file with {@link BinaryProductReader} and never parse decimal text.
+ * <p>
+ * All numbers are little-endian. The file is laid out as:
+ * <pre>
+ * header   magic "PRDB", int version, int row group size
+ * groups   int rows, int name bytes, int exception count,
+ *          int[rows] ids, long[rows] price cents, int[rows] category codes,
+ *          byte[rows] price range codes, int[rows + 1] name offsets, name bytes,
+ *          exceptions (int row, byte kind, string)
+ * footer   category dictionary, price range dictionary,
+ *          int group count, (long offset, int rows) per group, long row count
+ * trailer  long footer offset, int CRC32 of every byte before the trailer, magic "PRDB"
+ * </pre>
+ * Strings are an int byte length, or -1 for null, followed by UTF-8 bytes. Values the
+ * fixed-width columns cannot hold exactly are written as exceptions: an id written in
+ * a non canonical form (such as "007") keeps its text, and a price that does not fit in
+ * cents is stored as {@link PriceCents#UNSUPPORTED} with its decimal text. A null name
+ * is written as the text "null", as in CSV output.
+ */
+class BinaryProductWriter implements ProductWriter {
+    /** The bytes "PRDB" read as a little-endian int. */
+    static final int MAGIC = 0x42445250;
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 12;
+    static final int GROUP_HEADER_BYTES = 12;
+    static final int TRAILER_BYTES = 16;
+    static final byte EXCEPTION_ID_TEXT = 0;
+    static final byte EXCEPTION_PRICE = 1;
+    static final int DEFAULT_ROW_GROUP_SIZE = 64 * 1024;
+
+    private final OutputStream out;
+    private final int rowGroupSize;
+    private final CRC32 crc = new CRC32();
+    private long bytesWritten;
+    private boolean closed;
+
+    private final List<String> categoryDictionary = new ArrayList<>();
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+    private final List<String> priceRangeDictionary = new ArrayList<>();
+    private final List<long[]> groups = new ArrayList<>();
+    private long rowCount;
+    private ProductIndex.Builder index;
+
+    private int rows;
+    private final int[] ids;
+    private final long[] prices;
+    private final int[] categories;
+    private final byte[] priceRanges;
+    private final int[] nameEnds;
+    private byte[] names = new byte[64 * 1024];
+    private int nameLength;
+    private ByteBuffer exceptions = newBuffer(256);
+    private int exceptionCount;
+    private ByteBuffer scratch = newBuffer(0);
+
+    /**
+     * Wraps an output stream with the default row group size and writes the header.
+     * The stream is closed when this writer is closed.
+     *
+     * @param out the stream receiving the file
+     * @throws IOException if the header cannot be written
+     */
+    BinaryProductWriter(OutputStream out) throws IOException {
+        this(out, DEFAULT_ROW_GROUP_SIZE);
+    }
+
+    /**
+     * Wraps an output stream and writes the header.
+     * The stream is closed when this writer is closed.
+     *
+     * @param out the stream receiving the file
+     * @param rowGroupSize the maximum number of rows in each row group
+     * @throws IOException if the header cannot be written
+     */
+    BinaryProductWriter(OutputStream out, int rowGroupSize) throws IOException {
+        this.out = out;
+        this.rowGroupSize = Math.max(rowGroupSize, 1);
+        ids = new int[this.rowGroupSize];
+        prices = new long[this.rowGroupSize];
+        categories = new int[this.rowGroupSize];
+        priceRanges = new byte[this.rowGroupSize];
+        nameEnds = new int[this.rowGroupSize];
+
+        ByteBuffer header = newBuffer(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(this.rowGroupSize);
+        writeBuffer(header);
+    }
+
+    /**
+     * Records the row number of every row written from now on in an index,
+     * which is written when this writer is closed.
+     *
+     * @param index the index builder, or null to stop indexing
+     */
+    void setIndex(ProductIndex.Builder index) {
+        this.index = index;
+    }
+
+    @Override
+    public void write(Product product) throws IOException {
+        int row = rows;
+        String idText = product.getProductId();
+        ids[row] = Integer.parseInt(idText);
+        if (!ProductBatch.isCanonicalInt(idText)) {
+            addException(row, EXCEPTION_ID_TEXT, idText);
+        }
+        addName(product.getName());
+        if (product.hasPriceCents()) {
+            prices[row] = product.getPriceCents();
+        } else {
+            setPrice(row, product.getPrice());
+        }
+        categories[row] = categoryCode(product.getCategory());
+        priceRanges[row] = priceRangeCode(product.getPriceRange());
+        endRow();
+    }
+
+    @Override
+    public void write(ProductBatch batch) throws IOException {
+        // Batch dictionary codes are translated to file dictionary codes once per distinct value
+        int[] categoryMap = new int[batch.getCategoryCount()];
+        Arrays.fill(categoryMap, Integer.MIN_VALUE);
+        byte[] priceRangeMap = new byte[Byte.MAX_VALUE + 1];
+        Arrays.fill(priceRangeMap, Byte.MIN_VALUE);
+
+        for (int source = 0; source < batch.size(); source++) {
+            int row = rows;
+            ids[row] = batch.getId(source);
+            if (!batch.hasCanonicalId(source)) {
+                addException(row, EXCEPTION_ID_TEXT, batch.getIdText(source));
+            }
+            addName(batch.getName(source));
+            if (batch.hasPriceCents(source)) {
+                prices[row] = batch.getPriceCents(source);
+            } else {
+                setPrice(row, batch.getPrice(source));
+            }
+
+            int category = batch.getCategoryCode(source);
+            if (categoryMap[category] == Integer.MIN_VALUE) {
+                categoryMap[category] = categoryCode(batch.getCategoryName(category));
+            }
+            categories[row] = categoryMap[category];
+
+            byte priceRange = batch.getPriceRangeCode(source);
+            if (priceRange == ProductBatch.NO_PRICE_RANGE) {
+                priceRanges[row] = -1;
+            } else {
+                if (priceRangeMap[priceRange] == Byte.MIN_VALUE) {
+                    priceRangeMap[priceRange] = priceRangeCode(batch.getPriceRange(source));
+                }
+                priceRanges[row] = priceRangeMap[priceRange];
+            }
+            endRow();
+        }
+    }
+
+    /**
+     * Returns the number of bytes written to the output so far.
+     * Rows of the current row group are counted once the group is written.
+     *
+     * @return the number of bytes written
+     */
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Writes the last row group, the footer and the trailer, then closes the output
+     * and writes the index, if there is one.
+     *
+     * @throws IOException if the output cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (rows > 0) {
+                writeRowGroup();
+            }
+            writeFooter();
+        } finally {
+            out.close();
+        }
+        if (index != null) {
+            index.finish();
+        }
+    }
+
+    private void setPrice(int row, BigDecimal price) {
+        long cents = PriceCents.fromBigDecimal(price);
+        prices[row] = cents;
+        if (cents == PriceCents.UNSUPPORTED) {
+            addException(row, EXCEPTION_PRICE, price == null ? null : price.toString());
+        }
+    }
+
+    private void endRow() throws IOException {
+        if (index != null) {
+            index.add(ids[rows], rowCount + rows);
+        }
+        nameEnds[rows++] = nameLength;
+        if (rows == rowGroupSize) {
+            writeRowGroup();
+        }
+    }
+
+    /**
+     * Appends the UTF-8 bytes of a name, copying ASCII characters directly.
+     */
+    private void addName(String name) {
+        if (name == null) {
+            name = "null";
+        }
+        int length = name.length();
+        ensureNameCapacity(nameLength + length);
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            if (c >= 0x80) {
+                byte[] encoded = name.substring(i).getBytes(StandardCharsets.UTF_8);
+                ensureNameCapacity(nameLength + encoded.length);
+                System.arraycopy(encoded, 0, names, nameLength, encoded.length);
+                nameLength += encoded.length;
+                return;
+            }
+            names[nameLength++] = (byte) c;
+        }
+    }
+
+    private void ensureNameCapacity(int required) {
+        if (required > names.length) {
+            names = Arrays.copyOf(names, Math.max(required, names.length * 2));
+        }
+    }
+
+    private void addException(int row, byte kind, String text) {
+        byte[] bytes = text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+        int required = 4 + 1 + 4 + (bytes == null ? 0 : bytes.length);
+        if (exceptions.remaining() < required) {
+            ByteBuffer grown = newBuffer(Math.max(exceptions.capacity() * 2, exceptions.position() + required));
+            exceptions.flip();
+            grown.put(exceptions);
+            exceptions = grown;
+        }
+        exceptions.putInt(row).put(kind);
+        putString(exceptions, bytes);
+        exceptionCount++;
+    }
+
+    private int categoryCode(String category) {
+        if (category == null) {
+            return -1;
+        }
+        Integer code = categoryCodes.get(category);
+        if (code == null) {
+            code = categoryDictionary.size();
+            categoryDictionary.add(category);
+            categoryCodes.put(category, code);
+        }
+        return code;
+    }
+
+    private byte priceRangeCode(String priceRange) {
+        if (priceRange == null) {
+            return -1;
+        }
+        int code = priceRangeDictionary.indexOf(priceRange);
+        if (code < 0) {
+            if (priceRangeDictionary.size() == Byte.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct price ranges");
+            }
+            code = priceRangeDictionary.size();
+            priceRangeDictionary.add(priceRange);
+        }
+        return (byte) code;
+    }
+
+    /**
+     * Writes the buffered rows as one row group, column by column, and starts a new group.
+     */
+    private void writeRowGroup() throws IOException {
+        int n = rows;
+        int size = GROUP_HEADER_BYTES + n * (4 + 8 + 4 + 1) + (n + 1) * 4 + nameLength + exceptions.position();
+        if (scratch.capacity() < size) {
+            scratch = newBuffer(size);
+        }
+        ByteBuffer group = scratch;
+        group.clear();
+        group.putInt(n).putInt(nameLength).putInt(exceptionCount);
+
+        group.asIntBuffer().put(ids, 0, n);
+        group.position(group.position() + n * 4);
+        group.asLongBuffer().put(prices, 0, n);
+        group.position(group.position() + n * 8);
+        group.asIntBuffer().put(categories, 0, n);
+        group.position(group.position() + n * 4);
+        group.put(priceRanges, 0, n);
+        group.putInt(0);
+        group.asIntBuffer().put(nameEnds, 0, n);
+        group.position(group.position() + n * 4);
+        group.put(names, 0, nameLength);
+        exceptions.flip();
+        group.put(exceptions);
+
+        groups.add(new long[] {bytesWritten, n});
+        rowCount += n;
+        writeBuffer(group);
+
+        rows = 0;
+        nameLength = 0;
+        exceptions.clear();
+        exceptionCount = 0;
+    }
+
+    private void writeFooter() throws IOException {
+        List<byte[]> categoryBytes = encodeAll(categoryDictionary);
+        List<byte[]> priceRangeBytes = encodeAll(priceRangeDictionary);
+        int size = 4 + stringsSize(categoryBytes) + 4 + stringsSize(priceRangeBytes) + 4 + groups.size() * 12 + 8;
+
+        ByteBuffer footer = newBuffer(size);
+        footer.putInt(categoryBytes.size());
+        for (byte[] bytes : categoryBytes) {
+            putString(footer, bytes);
+        }
+        footer.putInt(priceRangeBytes.size());
+        for (byte[] bytes : priceRangeBytes) {
+            putString(footer, bytes);
+        }
+        footer.putInt(groups.size());
+        for (long[] group : groups) {
+            footer.putLong(group[0]).putInt((int) group[1]);
+        }
+        footer.putLong(rowCount);
+
+        long footerOffset = bytesWritten;
+        writeBuffer(footer);
+
+        ByteBuffer trailer = newBuffer(TRAILER_BYTES);
+        trailer.putLong(footerOffset).putInt((int) crc.getValue()).putInt(MAGIC);
+        writeBuffer(trailer);
+    }
+
+    private void writeBuffer(ByteBuffer buffer) throws IOException {
+        int length = buffer.position();
+        out.write(buffer.array(), 0, length);
+        crc.update(buffer.array(), 0, length);
+        bytesWritten += length;
+    }
+
+    private static List<byte[]> encodeAll(List<String> strings) {
+        List<byte[]> encoded = new ArrayList<>(strings.size());
+        for (String string : strings) {
+            encoded.add(string.getBytes(StandardCharsets.UTF_8));
+        }
+        return encoded;
+    }
+
+    private static int stringsSize(List<byte[]> strings) {
+        int size = 0;
+        for (byte[] bytes : strings) {
+            size += 4 + bytes.length;
+        }
+        return size;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static ByteBuffer newBuffer(int capacity) {
+        return ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
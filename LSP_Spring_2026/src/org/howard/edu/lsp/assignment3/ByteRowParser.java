@@ -0,0 +1,289 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Validates data rows directly from their encoded bytes.
+ * Delimiters and field boundaries are located in the raw bytes and a String is
+ * only built for the fields of a row that passes validation, which avoids decoding
+ * every line and the regular expression behind String.split. Categories are looked up
+ * in the extractor's category cache by their bytes and only decoded when first seen.
+ * <p>
+ * The results match {@link ProductExtractor#parseLine(String)} exactly, including
+ * the way String.split drops trailing empty fields. When the configured delimiter
+ * is not a single literal character, or the platform charset is not ASCII compatible,
+ * each line is decoded and handed to parseLine instead.
+ */
+final class ByteRowParser {
+    private static final int COLUMN_COUNT = 4;
+    private static final String REGEX_META_CHARS = ".$|()[{^?*+\\";
+
+    private final ProductExtractor extractor;
+    private final StringCache categories;
+    private final Charset charset;
+    private final int delimiter;
+    private final int[] fieldStarts = new int[COLUMN_COUNT];
+    private final int[] fieldEnds = new int[COLUMN_COUNT];
+    private final ByteSequence priceText = new ByteSequence();
+    private byte[] scratch = new byte[256];
+
+    /**
+     * Constructs a parser that reports statistics to the given extractor.
+     *
+     * @param extractor the extractor whose statistics are updated and which
+     *                  validates rows when the byte level path is not available
+     * @param delimiter the configured delimiter
+     */
+    ByteRowParser(ProductExtractor extractor, String delimiter) {
+        this.extractor = extractor;
+        this.categories = extractor.getCategoryCache();
+        this.charset = Charset.defaultCharset();
+        this.delimiter = isAsciiCompatible(charset) ? literalDelimiter(delimiter) : -1;
+    }
+
+    /**
+     * Validates the row stored in bytes [start, end) of the buffer, excluding its terminator.
+     *
+     * @param buffer the buffer holding the row
+     * @param start the absolute index of the first byte of the row
+     * @param end the absolute index just past the last byte of the row
+     * @return the extracted Product, or null if the row was skipped
+     */
+    Product parse(ByteBuffer buffer, int start, int end) {
+        if (delimiter < 0) {
+            return extractor.parseLine(decode(buffer, start, end));
+        }
+
+        // Skip blank lines
+        if (trimStart(buffer, start, end) == end) {
+            reject(SkipReason.BLANK, buffer, start, end);
+            return null;
+        }
+
+        // Locate fields; like String.split, trailing empty fields are not counted
+        int nonEmptyCount = 0;
+        int count = 0;
+        int fieldStart = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || buffer.get(i) == delimiter) {
+                count = addField(count, fieldStart, i);
+                if (i > fieldStart) {
+                    nonEmptyCount = count;
+                }
+                fieldStart = i + 1;
+            }
+        }
+        return validate(buffer, start, end, nonEmptyCount);
+    }
+
+    /**
+     * Validates the row stored in bytes [start, end) of the buffer, whose delimiters
+     * were already located by a {@link RowTokenizer}.
+     *
+     * @param buffer the buffer holding the row
+     * @param start the absolute index of the first byte of the row
+     * @param end the absolute index just past the last byte of the row
+     * @param tokens the tokenizer that found the end of this row
+     * @return the extracted Product, or null if the row was skipped
+     */
+    Product parse(ByteBuffer buffer, int start, int end, RowTokenizer tokens) {
+        if (delimiter < 0) {
+            return extractor.parseLine(decode(buffer, start, end));
+        }
+        if (trimStart(buffer, start, end) == end) {
+            reject(SkipReason.BLANK, buffer, start, end);
+            return null;
+        }
+
+        int[] positions = tokens.getPositions();
+        int last = tokens.getLineLast();
+        int nonEmptyCount = 0;
+        int count = 0;
+        int fieldStart = start;
+        for (int t = tokens.getLineFirst(); t <= last; t++) {
+            int i = t < last ? positions[t] : end;
+            count = addField(count, fieldStart, i);
+            if (i > fieldStart) {
+                nonEmptyCount = count;
+            }
+            fieldStart = i + 1;
+        }
+        return validate(buffer, start, end, nonEmptyCount);
+    }
+
+    /**
+     * Creates a tokenizer that finds the line ends and delimiters this parser needs,
+     * using the extractor's tokenizer backend.
+     *
+     * @return a new row tokenizer
+     */
+    RowTokenizer newRowTokenizer() {
+        // Without a byte delimiter only the line terminators are needed
+        byte delimiterByte = delimiter < 0 ? (byte) '\n' : (byte) delimiter;
+        return new RowTokenizer(extractor.getTokenizer(), delimiterByte);
+    }
+
+    /**
+     * Records the bounds of the field ending at the given index, if it is one of the columns.
+     *
+     * @return the number of fields seen so far
+     */
+    private int addField(int count, int fieldStart, int fieldEnd) {
+        if (count < COLUMN_COUNT) {
+            fieldStarts[count] = fieldStart;
+            fieldEnds[count] = fieldEnd;
+        }
+        return count + 1;
+    }
+
+    /**
+     * Validates the located fields and builds the product.
+     */
+    private Product validate(ByteBuffer buffer, int start, int end, int nonEmptyCount) {
+        if (nonEmptyCount != COLUMN_COUNT) {
+            reject(SkipReason.COLUMN_COUNT, buffer, start, end);
+            return null;
+        }
+
+        for (int f = 0; f < COLUMN_COUNT; f++) {
+            fieldStarts[f] = trimStart(buffer, fieldStarts[f], fieldEnds[f]);
+            fieldEnds[f] = trimEnd(buffer, fieldStarts[f], fieldEnds[f]);
+        }
+
+        // Validate productId and price
+        long priceCents = PriceCents.INVALID;
+        BigDecimal widePrice = null;
+        boolean validId = isValidId(buffer, fieldStarts[0], fieldEnds[0]);
+        if (validId) {
+            priceCents = PriceCents.parse(priceText.wrap(buffer, fieldStarts[2], fieldEnds[2]));
+            if (priceCents == PriceCents.UNSUPPORTED) {
+                widePrice = PriceCents.parseBigDecimal(decode(buffer, fieldStarts[2], fieldEnds[2]));
+                if (widePrice == null) {
+                    priceCents = PriceCents.INVALID;
+                }
+            }
+        }
+        if (priceCents == PriceCents.INVALID) {
+            reject(validId ? SkipReason.INVALID_PRICE : SkipReason.INVALID_ID, buffer, start, end);
+            return null;
+        }
+
+        extractor.recordRow();
+        String productId = decode(buffer, fieldStarts[0], fieldEnds[0]);
+        String name = decode(buffer, fieldStarts[1], fieldEnds[1]);
+        String category = categories.intern(buffer, fieldStarts[3], fieldEnds[3], charset);
+        if (widePrice != null) {
+            return new Product(productId, name, widePrice, category);
+        }
+        return new Product(productId, name, priceCents, category);
+    }
+
+    /**
+     * Records a skipped row, decoding its text only if the reject log keeps it.
+     */
+    private void reject(SkipReason reason, ByteBuffer buffer, int start, int end) {
+        extractor.reject(reason, extractor.getRejectLog().isRecordingRows() ? decode(buffer, start, end) : null);
+    }
+
+    /**
+     * Checks whether the field would be accepted by Integer.parseInt without
+     * building a String. Fields with non ASCII bytes are decoded and checked
+     * like Integer.parseInt, which also accepts non ASCII digits.
+     */
+    private boolean isValidId(ByteBuffer buffer, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        int i = start;
+        byte first = buffer.get(i);
+        boolean negative = first == '-';
+        if (negative || first == '+') {
+            i++;
+            if (i == end) {
+                return false;
+            }
+        }
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                return b < 0 && isValidIdSlow(buffer, start, end);
+            }
+            value = value * 10 + (b - '0');
+            if (value > limit) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isValidIdSlow(ByteBuffer buffer, int start, int end) {
+        return ProductExtractor.isValidId(decode(buffer, start, end));
+    }
+
+    /**
+     * Returns the index of the first byte in [start, end) that String.trim would keep.
+     */
+    static int trimStart(ByteBuffer buffer, int start, int end) {
+        while (start < end && (buffer.get(start) & 0xFF) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Returns the index just past the last byte in [start, end) that String.trim would keep.
+     */
+    static int trimEnd(ByteBuffer buffer, int start, int end) {
+        while (end > start && (buffer.get(end - 1) & 0xFF) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Decodes bytes [start, end) of the buffer using the platform charset,
+     * matching how FileReader decodes the input.
+     */
+    String decode(ByteBuffer buffer, int start, int end) {
+        int length = end - start;
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, charset);
+        }
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        buffer.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, charset);
+    }
+
+    /**
+     * Returns the byte value of a delimiter that String.split treats as a single
+     * literal character, or -1 if the delimiter needs the regular expression path.
+     */
+    private static int literalDelimiter(String delimiter) {
+        char c;
+        if (delimiter.length() == 1 && REGEX_META_CHARS.indexOf(delimiter.charAt(0)) < 0) {
+            c = delimiter.charAt(0);
+        } else if (delimiter.length() == 2 && delimiter.charAt(0) == '\\'
+                && !Character.isLetterOrDigit(delimiter.charAt(1))) {
+            c = delimiter.charAt(1);
+        } else {
+            return -1;
+        }
+        return c < 0x80 && c != '\n' && c != '\r' ? c : -1;
+    }
+
+    /**
+     * Checks whether every ASCII character is encoded as the single byte of the same value.
+     */
+    static boolean isAsciiCompatible(Charset charset) {
+        return charset.equals(StandardCharsets.UTF_8)
+                || charset.equals(StandardCharsets.ISO_8859_1)
+                || charset.equals(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,51 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reusable CharSequence view over a range of bytes in a buffer.
+ * Each byte is exposed as one char, so ASCII text reads exactly as decoded
+ * text would while non ASCII bytes show up as chars of 0x80 and above.
+ * The view is repositioned for every field instead of allocating a String.
+ */
+final class ByteSequence implements CharSequence {
+    private ByteBuffer buffer;
+    private int start;
+    private int end;
+
+    /**
+     * Points this view at bytes [start, end) of the buffer.
+     *
+     * @return this view
+     */
+    ByteSequence wrap(ByteBuffer buffer, int start, int end) {
+        this.buffer = buffer;
+        this.start = start;
+        this.end = end;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (buffer.get(start + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int from, int to) {
+        return new ByteSequence().wrap(buffer, start + from, start + to);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(length());
+        for (int i = start; i < end; i++) {
+            builder.append((char) (buffer.get(i) & 0xFF));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,121 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Finds the structural bytes of CSV input: the field delimiter and the line
+ * terminators '\n' and '\r'. A block of bytes is scanned at once and the positions
+ * found are written to an int array, delimiters as their index and terminators as
+ * the bitwise complement of their index, so a negative entry ends a line.
+ * <p>
+ * Two backends exist. The scalar one tests one byte at a time. The vector one uses
+ * the incubating {@code jdk.incubator.vector} module to compare up to 32 bytes per
+ * instruction, and is only used when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}; otherwise {@link #create(boolean)}
+ * falls back to the scalar backend. Both produce identical positions.
+ */
+public abstract class ByteTokenizer {
+    private static final String VECTOR_CLASS = "org.howard.edu.lsp.assignment3.VectorByteTokenizer";
+
+    private static final ByteTokenizer SCALAR = new Scalar();
+    private static final ByteTokenizer VECTOR = loadVector();
+
+    /**
+     * Scans bytes [from, to) of the buffer for the delimiter and line terminators.
+     *
+     * @param buffer the bytes to scan, read with absolute indexes
+     * @param from the index of the first byte to scan
+     * @param to the index just past the last byte to scan
+     * @param delimiter the field delimiter; a terminator byte is always reported as a terminator
+     * @param positions receives the positions found, with room for to - from entries after offset
+     * @param offset the index in positions of the first entry to write
+     * @return the number of positions written
+     */
+    public abstract int scan(ByteBuffer buffer, int from, int to, byte delimiter, int[] positions, int offset);
+
+    /**
+     * Returns the name of the backend, for reports and benchmarks.
+     *
+     * @return "scalar" or the vector shape, such as "vector-256"
+     */
+    public abstract String getName();
+
+    /**
+     * Returns the tokenizer that tests one byte at a time.
+     *
+     * @return the scalar tokenizer
+     */
+    public static ByteTokenizer scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * Returns the tokenizer built on the Vector API.
+     *
+     * @return the vector tokenizer, or null if the jdk.incubator.vector module is not available
+     */
+    public static ByteTokenizer vector() {
+        return VECTOR;
+    }
+
+    /**
+     * Returns the vector tokenizer if it is wanted and available, and the scalar one otherwise.
+     *
+     * @param preferVector whether to use the vector tokenizer when it is available
+     * @return the tokenizer to use
+     */
+    public static ByteTokenizer create(boolean preferVector) {
+        return preferVector && VECTOR != null ? VECTOR : SCALAR;
+    }
+
+    /**
+     * Loads the vector backend by name, so this class still loads when the module is missing,
+     * and checks it against the scalar backend once.
+     */
+    private static ByteTokenizer loadVector() {
+        try {
+            ByteTokenizer vector = (ByteTokenizer) Class.forName(VECTOR_CLASS).getDeclaredConstructor().newInstance();
+            // Incubator APIs change between releases; a missing method only fails when first called
+            byte[] sample = "ProductID,Name,Price,Category\r\n7, Office Chair ,149.99,Furniture\n,,\r"
+                    .repeat(3).getBytes(StandardCharsets.US_ASCII);
+            ByteBuffer buffer = ByteBuffer.wrap(sample);
+            int[] expected = new int[sample.length];
+            int[] actual = new int[sample.length];
+            int count = SCALAR.scan(buffer, 1, sample.length, (byte) ',', expected, 0);
+            if (vector.scan(buffer.asReadOnlyBuffer(), 1, sample.length, (byte) ',', actual, 0) != count
+                    || !Arrays.equals(expected, actual)) {
+                return null;
+            }
+            return vector;
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            // The incubator module was not added to this JVM
+            return null;
+        }
+    }
+
+    /**
+     * Tests the bytes one at a time.
+     */
+    private static final class Scalar extends ByteTokenizer {
+        @Override
+        public int scan(ByteBuffer buffer, int from, int to, byte delimiter, int[] positions, int offset) {
+            int count = offset;
+            for (int i = from; i < to; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n' || b == '\r') {
+                    positions[count++] = ~i;
+                } else if (b == delimiter) {
+                    positions[count++] = i;
+                }
+            }
+            return count - offset;
+        }
+
+        @Override
+        public String getName() {
+            return "scalar";
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams the input into the output while recording checkpoints, so a run that is
+ * interrupted, for example because the JVM dies, can be resumed instead of restarted.
+ * <p>
+ * Rows are written to a partial file next to the output. Every
+ * {@link ETLConfig#getCheckpointInterval()} rows the partial file is forced to disk and
+ * a small checkpoint file records the input byte offset of the next row, the length of
+ * the partial file and the row counters. The checkpoint is written to a temporary file
+ * and moved into place, so it always describes output that is safely on disk. A rerun
+ * with the same input and settings truncates the partial file to the recorded length
+ * and continues reading from the recorded offset. When the input is exhausted the
+ * partial file is renamed to the output file in one atomic step, so the output file is
+ * either the previous complete output or the new complete output, never a partial one.
+ * <p>
+ * Offsets are taken from a memory-mapped reader, so the input must be uncompressed,
+ * and only uncompressed CSV output can be truncated and appended to.
+ */
+public class CheckpointedExecutor {
+    private static final int CHECKPOINT_MAGIC = 0x4C535043; // "LSPC"
+    private static final int CHECKPOINT_VERSION = 1;
+
+    private ETLConfig config;
+    private ProductExtractor extractor;
+    private ProductTransformer transformer;
+    private PipelineMetrics metrics;
+
+    private boolean resumed = false;
+    private int checkpointsWritten = 0;
+
+    /**
+     * Constructs a CheckpointedExecutor that reports into the given metrics.
+     *
+     * @param config the ETL configuration, including the checkpoint file and interval
+     * @param extractor the extractor used to validate rows and keep row statistics
+     * @param transformer the transformer applied to every row
+     * @param metrics the metrics the stages report into
+     */
+    public CheckpointedExecutor(ETLConfig config, ProductExtractor extractor, ProductTransformer transformer,
+                                PipelineMetrics metrics) {
+        this.config = config;
+        this.extractor = extractor;
+        this.transformer = transformer;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Runs the pipeline, resuming from the last checkpoint if there is a usable one.
+     *
+     * @return false if the input file could not be found, the input or output is not supported,
+     *         or the run failed before the output was moved into place
+     */
+    public boolean run() {
+        File inputFile = new File(config.getInputFile());
+        if (!inputFile.exists()) {
+            System.out.println("Input file products.csv not found");
+            return false;
+        }
+
+        try {
+            if (CompressionCodec.forInput(config.getInputFile(), config.getInputCompression()) != CompressionCodec.NONE
+                    || CompressionCodec.forOutput(config.getOutputFile(), config.getOutputCompression()) != CompressionCodec.NONE
+                    || config.getOutputFormat() != OutputFormat.CSV) {
+                // Offsets into compressed streams or binary row groups cannot be resumed from
+                System.out.println("Checkpointed mode supports uncompressed input and uncompressed CSV output only");
+                return false;
+            }
+
+            Path checkpointPath = Paths.get(config.getCheckpointFile());
+            Path partialPath = Paths.get(config.getOutputFile() + ".partial");
+            Checkpoint checkpoint = Checkpoint.read(checkpointPath, fingerprint(), inputFile, partialPath);
+            if (checkpoint != null) {
+                resumed = true;
+                extractor.restoreStatistics(checkpoint.rowsRead, checkpoint.rowsSkippedByReason);
+                transformer.restoreRowsTransformed(checkpoint.rowsTransformed);
+                System.out.println("Resuming from checkpoint after " + checkpoint.rowsRead + " rows");
+            } else {
+                checkpoint = new Checkpoint(inputFile.length(), inputFile.lastModified(), fingerprint());
+            }
+
+            process(checkpoint, checkpointPath, partialPath);
+
+            ProductIndex.Builder index = ProductIndex.prepare(config);
+            if (index != null) {
+                System.out.println("Checkpointed output is not indexed: " + config.getOutputFile());
+            }
+            Files.move(partialPath, Paths.get(config.getOutputFile()),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(checkpointPath);
+            metrics.stage(PipelineMetrics.EXTRACT).addBytes(inputFile.length());
+            metrics.stage(PipelineMetrics.LOAD).addBytes(new File(config.getOutputFile()).length());
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Streams the rows after the checkpoint into the partial file, writing a new
+     * checkpoint after every interval, and forces the completed partial file to disk.
+     */
+    private void process(Checkpoint checkpoint, Path checkpointPath, Path partialPath) throws IOException {
+        StageMetrics.Recorder extract = metrics.stage(PipelineMetrics.EXTRACT).recorder();
+        StageMetrics.Recorder transform = metrics.stage(PipelineMetrics.TRANSFORM).recorder();
+        StageMetrics.Recorder load = metrics.stage(PipelineMetrics.LOAD).recorder();
+
+        long outputStart = checkpoint.outputOffset;
+        if (resumed) {
+            // Drop anything written after the checkpoint; it will be written again
+            try (FileChannel partial = FileChannel.open(partialPath, StandardOpenOption.WRITE)) {
+                partial.truncate(outputStart);
+            }
+        }
+        FileOutputStream out = new FileOutputStream(partialPath.toFile(), resumed);
+        try (MappedProductReader reader = new MappedProductReader(config.getInputFile(), extractor,
+                config.getDelimiter(), checkpoint.inputOffset);
+             CsvProductWriter writer = new CsvProductWriter(out, config.getWriteBufferSize(),
+                     resumed ? null : CsvProductWriter.HEADER)) {
+            int interval = config.getCheckpointInterval();
+            int nextCheckpoint = extractor.getRowsRead() + interval;
+            Product product;
+            long start = System.nanoTime();
+            while ((product = reader.read()) != null) {
+                long extracted = System.nanoTime();
+                extract.record(1, extracted - start);
+
+                transformer.transformProduct(product);
+                long transformed = System.nanoTime();
+                transform.record(1, transformed - extracted);
+                writer.write(product);
+                start = System.nanoTime();
+                load.record(1, start - transformed);
+
+                if (extractor.getRowsRead() >= nextCheckpoint) {
+                    writer.flush();
+                    out.getChannel().force(false);
+                    checkpoint.update(reader.getPosition(), outputStart + writer.getBytesWritten(), extractor, transformer);
+                    checkpoint.write(checkpointPath);
+                    checkpointsWritten++;
+                    nextCheckpoint = extractor.getRowsRead() + interval;
+                    start = System.nanoTime();
+                }
+            }
+            writer.flush();
+            out.getChannel().force(true);
+        } finally {
+            extract.flush();
+            transform.flush();
+            load.flush();
+        }
+    }
+
+    /**
+     * Describes the settings that shape the output, so a checkpoint is only
+     * resumed by a run that would have produced the same rows.
+     */
+    private String fingerprint() {
+        return "delimiter=" + config.getDelimiter() + ";rules=" + transformer.getRules()
+                + ";charset=" + Charset.defaultCharset().name();
+    }
+
+    /**
+     * Returns whether this run continued from a checkpoint.
+     *
+     * @return true if an earlier run's checkpoint was resumed
+     */
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    /**
+     * Returns the number of checkpoints written by this run.
+     *
+     * @return the checkpoint count
+     */
+    public int getCheckpointsWritten() {
+        return checkpointsWritten;
+    }
+
+    /**
+     * Progress of a run: where to continue reading and writing, and the counters so far,
+     * together with the input file and settings it applies to.
+     */
+    private static class Checkpoint {
+        private final long inputSize;
+        private final long inputModified;
+        private final String fingerprint;
+        private long inputOffset;
+        private long outputOffset;
+        private int rowsRead;
+        private final int[] rowsSkippedByReason = new int[SkipReason.values().length];
+        private long rowsTransformed;
+
+        Checkpoint(long inputSize, long inputModified, String fingerprint) {
+            this.inputSize = inputSize;
+            this.inputModified = inputModified;
+            this.fingerprint = fingerprint;
+        }
+
+        void update(long inputOffset, long outputOffset, ProductExtractor extractor, ProductTransformer transformer) {
+            this.inputOffset = inputOffset;
+            this.outputOffset = outputOffset;
+            this.rowsRead = extractor.getRowsRead();
+            for (SkipReason reason : SkipReason.values()) {
+                rowsSkippedByReason[reason.ordinal()] = extractor.getRowsSkipped(reason);
+            }
+            this.rowsTransformed = transformer.getRowsTransformed();
+        }
+
+        /**
+         * Reads a checkpoint that can be resumed: it must match the input file and settings,
+         * and the partial output must hold at least the bytes it records.
+         *
+         * @return the checkpoint, or null if there is none or it cannot be used
+         */
+        static Checkpoint read(Path path, String fingerprint, File inputFile, Path partialPath) {
+            if (!Files.exists(path)) {
+                return null;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION) {
+                    return null;
+                }
+                Checkpoint checkpoint = new Checkpoint(in.readLong(), in.readLong(), in.readUTF());
+                checkpoint.inputOffset = in.readLong();
+                checkpoint.outputOffset = in.readLong();
+                checkpoint.rowsRead = in.readInt();
+                int reasons = in.readInt();
+                if (reasons != checkpoint.rowsSkippedByReason.length) {
+                    return null;
+                }
+                for (int i = 0; i < reasons; i++) {
+                    checkpoint.rowsSkippedByReason[i] = in.readInt();
+                }
+                checkpoint.rowsTransformed = in.readLong();
+
+                boolean sameInput = checkpoint.inputSize == inputFile.length()
+                        && checkpoint.inputModified == inputFile.lastModified();
+                if (!sameInput || !checkpoint.fingerprint.equals(fingerprint)) {
+                    System.out.println("Ignoring checkpoint for a different input or settings: " + path);
+                    return null;
+                }
+                if (!Files.exists(partialPath) || Files.size(partialPath) < checkpoint.outputOffset) {
+                    System.out.println("Ignoring checkpoint without its partial output: " + path);
+                    return null;
+                }
+                return checkpoint;
+            } catch (EOFException ex) {
+                return null;
+            } catch (IOException ex) {
+                System.err.println("Ignoring unreadable checkpoint file: " + ex.getMessage());
+                return null;
+            }
+        }
+
+        /**
+         * Writes the checkpoint to a temporary file, forces it to disk and moves it into place,
+         * so a crash never leaves a half written checkpoint behind.
+         */
+        void write(Path path) throws IOException {
+            Path absolute = path.toAbsolutePath();
+            Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+            FileOutputStream file = new FileOutputStream(temp.toFile());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+                out.writeInt(CHECKPOINT_MAGIC);
+                out.writeInt(CHECKPOINT_VERSION);
+                out.writeLong(inputSize);
+                out.writeLong(inputModified);
+                out.writeUTF(fingerprint);
+                out.writeLong(inputOffset);
+                out.writeLong(outputOffset);
+                out.writeInt(rowsRead);
+                out.writeInt(rowsSkippedByReason.length);
+                for (int count : rowsSkippedByReason) {
+                    out.writeInt(count);
+                }
+                out.writeLong(rowsTransformed);
+                out.flush();
+                file.getChannel().force(true);
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compression formats the pipeline can read and write, using the JDK codecs.
+ * Files are matched to a codec by extension and, when reading, by their first bytes.
+ */
+public enum CompressionCodec {
+    /** Plain, uncompressed text. */
+    NONE,
+
+    /** Gzip, as written by the gzip tool; files ending in .gz. */
+    GZIP,
+
+    /** Deflate in a zlib wrapper; files ending in .deflate, .zz or .zlib. */
+    DEFLATE;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    /**
+     * Wraps a stream of compressed bytes so that reading it returns the decompressed bytes.
+     *
+     * @param in the compressed stream
+     * @return the decompressing stream
+     * @throws IOException if the stream does not start with a valid header
+     */
+    public InputStream decompress(InputStream in) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPInputStream(in, BUFFER_BYTES);
+            case DEFLATE:
+                return new InflaterInputStream(new BufferedInputStream(in, BUFFER_BYTES));
+            default:
+                return in;
+        }
+    }
+
+    /**
+     * Wraps a stream so that bytes written to it are compressed.
+     * Closing the returned stream finishes the compressed data and closes the wrapped stream.
+     *
+     * @param out the stream receiving compressed bytes
+     * @return the compressing stream
+     * @throws IOException if the header cannot be written
+     */
+    public OutputStream compress(OutputStream out) throws IOException {
+        switch (this) {
+            case GZIP:
+                return new GZIPOutputStream(new BufferedOutputStream(out, BUFFER_BYTES), BUFFER_BYTES);
+            case DEFLATE:
+                return new DeflaterOutputStream(new BufferedOutputStream(out, BUFFER_BYTES));
+            default:
+                return out;
+        }
+    }
+
+    /**
+     * Returns the codec implied by a file name.
+     *
+     * @param file the file name or path
+     * @return the codec for the extension, or NONE if the extension is not recognized
+     */
+    public static CompressionCodec fromFileName(String file) {
+        String name = file.toLowerCase();
+        if (name.endsWith(".gz") || name.endsWith(".gzip")) {
+            return GZIP;
+        }
+        if (name.endsWith(".deflate") || name.endsWith(".zz") || name.endsWith(".zlib")) {
+            return DEFLATE;
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the codec of an existing file, from its extension or else its first two bytes:
+     * the gzip magic number, or a zlib header using one of the standard compression levels.
+     * A zlib header that is also printable text is not treated as compressed.
+     *
+     * @param file the path of the file
+     * @return the detected codec, or NONE
+     * @throws IOException if the file cannot be read
+     */
+    public static CompressionCodec detect(String file) throws IOException {
+        CompressionCodec codec = fromFileName(file);
+        if (codec != NONE) {
+            return codec;
+        }
+        try (InputStream in = Files.newInputStream(Paths.get(file))) {
+            int first = in.read();
+            int second = in.read();
+            if (first == 0x1f && second == 0x8b) {
+                return GZIP;
+            }
+            if (first == 0x78 && (second == 0x01 || second == 0x9c || second == 0xda)) {
+                return DEFLATE;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Returns the codec to read an input file with.
+     *
+     * @param file the path of the input file
+     * @param configured the configured codec, or null to detect it
+     * @return the codec
+     * @throws IOException if the file cannot be read
+     */
+    static CompressionCodec forInput(String file, CompressionCodec configured) throws IOException {
+        return configured != null ? configured : detect(file);
+    }
+
+    /**
+     * Opens an output file for writing, compressed with the configured codec or,
+     * if none is configured, the codec implied by the file name.
+     *
+     * @param file the path of the output file
+     * @param configured the configured codec, or null to choose by file name
+     * @return a stream that writes, and compresses if needed, to the file
+     * @throws IOException if the file cannot be created
+     */
+    static OutputStream openOutput(String file, CompressionCodec configured) throws IOException {
+        return forOutput(file, configured).compress(Files.newOutputStream(Paths.get(file)));
+    }
+
+    /**
+     * Returns the codec an output file is written with.
+     *
+     * @param file the path of the output file
+     * @param configured the configured codec, or null to choose by file name
+     * @return the codec
+     */
+    static CompressionCodec forOutput(String file, CompressionCodec configured) {
+        return configured != null ? configured : fromFileName(file);
+    }
+}
@@ -0,0 +1,43 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Reads products line by line from a delimited text file.
+ * Each line is validated by the owning ProductExtractor, which also keeps
+ * the rows read and rows skipped statistics.
+ */
+class CsvProductReader implements ProductReader {
+    private final BufferedReader reader;
+    private final ProductExtractor extractor;
+
+    /**
+     * Constructs a reader over an already opened input whose header row
+     * has been consumed.
+     *
+     * @param reader the buffered reader positioned at the first data row
+     * @param extractor the extractor used to validate rows and record statistics
+     */
+    CsvProductReader(BufferedReader reader, ProductExtractor extractor) {
+        this.reader = reader;
+        this.extractor = extractor;
+    }
+
+    @Override
+    public Product read() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            Product product = extractor.parseLine(line);
+            if (product != null) {
+                return product;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
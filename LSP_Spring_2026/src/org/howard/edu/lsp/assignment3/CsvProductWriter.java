@@ -0,0 +1,423 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Writes transformed products as comma separated rows.
+ * Rows are encoded straight into a reusable byte buffer that is flushed to the
+ * output in large batches, so writing a row builds no intermediate Strings.
+ * Prices held as cents are formatted digit by digit without a BigDecimal.
+ * <p>
+ * The bytes produced are identical to printing each row with a PrintWriter:
+ * text is encoded with the platform charset and rows end with the platform
+ * line separator. The header row is written when the writer is opened.
+ */
+class CsvProductWriter implements ProductWriter {
+    static final String HEADER = "ProductID,Name,Price,Category,PriceRange";
+
+    private static final int MIN_BUFFER_BYTES = 64;
+
+    private final OutputStream out;
+    private final Charset charset;
+    private final CharsetEncoder encoder;
+    private final byte[] lineSeparator;
+    private final boolean asciiCompatible;
+    private final byte[] buffer;
+    private int count;
+    private long bytesWritten;
+    private ProductIndex.Builder index;
+
+    /**
+     * Opens the output file, truncating any previous content, and writes the header row.
+     *
+     * @param outputFile the path to the output CSV file
+     * @param bufferSize the number of bytes collected before each write to the file
+     * @throws IOException if the file cannot be created
+     */
+    CsvProductWriter(String outputFile, int bufferSize) throws IOException {
+        this(Files.newOutputStream(Paths.get(outputFile)), bufferSize);
+    }
+
+    /**
+     * Wraps an output stream and writes the header row.
+     * The stream is closed when this writer is closed.
+     *
+     * @param out the stream receiving the encoded rows
+     * @param bufferSize the number of bytes collected before each write to the stream
+     * @throws IOException if the header cannot be written
+     */
+    CsvProductWriter(OutputStream out, int bufferSize) throws IOException {
+        this(out, bufferSize, HEADER);
+    }
+
+    /**
+     * Wraps an output stream and writes the given header row.
+     * The stream is closed when this writer is closed.
+     *
+     * @param out the stream receiving the encoded rows
+     * @param bufferSize the number of bytes collected before each write to the stream
+     * @param header the header row to write first, or null to write no header
+     * @throws IOException if the header cannot be written
+     */
+    CsvProductWriter(OutputStream out, int bufferSize, String header) throws IOException {
+        this.out = out;
+        this.charset = Charset.defaultCharset();
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.lineSeparator = System.lineSeparator().getBytes(charset);
+        this.asciiCompatible = ByteRowParser.isAsciiCompatible(charset);
+        this.buffer = new byte[Math.max(bufferSize, MIN_BUFFER_BYTES)];
+        if (header != null) {
+            writeText(header);
+            writeLineSeparator();
+        }
+    }
+
+    /**
+     * Records the byte offset of every row written from now on in an index,
+     * which is written when this writer is closed.
+     *
+     * @param index the index builder, or null to stop indexing
+     */
+    void setIndex(ProductIndex.Builder index) {
+        this.index = index;
+    }
+
+    @Override
+    public void write(Product product) throws IOException {
+        if (index != null) {
+            index.add(Integer.parseInt(product.getProductId()), getBytesWritten());
+        }
+        writeText(product.getProductId());
+        writeByte(',');
+        writeText(product.getName());
+        writeByte(',');
+        if (product.hasPriceCents()) {
+            writeCents(product.getPriceCents());
+        } else {
+            writePrice(product.getPrice());
+        }
+        writeByte(',');
+        writeText(product.getCategory());
+        writeByte(',');
+        writeText(product.getPriceRange());
+        writeLineSeparator();
+    }
+
+    @Override
+    public void write(ProductBatch batch) throws IOException {
+        for (int row = 0; row < batch.size(); row++) {
+            if (index != null) {
+                index.add(batch.getId(row), getBytesWritten());
+            }
+            writeText(batch.getIdText(row));
+            writeByte(',');
+            writeText(batch.getName(row));
+            writeByte(',');
+            if (batch.hasPriceCents(row)) {
+                writeCents(batch.getPriceCents(row));
+            } else {
+                writePrice(batch.getPrice(row));
+            }
+            writeByte(',');
+            writeText(batch.getCategory(row));
+            writeByte(',');
+            writeText(batch.getPriceRange(row));
+            writeLineSeparator();
+        }
+    }
+
+    /**
+     * Writes every row of an off-heap store, reading each row in place.
+     * Canonical ids and prices in cents are formatted digit by digit and ASCII names
+     * are copied straight from the store's string area, so such rows allocate nothing.
+     *
+     * @param store the store to write
+     * @throws IOException if the output cannot be written
+     */
+    @Override
+    public void write(OffHeapProductStore store) throws IOException {
+        OffHeapProductStore.Row cursor = store.row();
+        for (int row = 0; row < store.size(); row++) {
+            cursor.moveTo(row);
+            if (index != null) {
+                index.add(cursor.getId(), getBytesWritten());
+            }
+            if (asciiCompatible && cursor.hasCanonicalId()) {
+                writeInt(cursor.getId());
+            } else {
+                writeText(cursor.getIdText());
+            }
+            writeByte(',');
+            if (asciiCompatible && cursor.isAsciiName()) {
+                writeAsciiName(cursor);
+            } else {
+                writeText(cursor.getName());
+            }
+            writeByte(',');
+            if (cursor.hasPriceCents()) {
+                writeCents(cursor.getPriceCents());
+            } else {
+                writePrice(cursor.getPrice());
+            }
+            writeByte(',');
+            writeText(cursor.getCategory());
+            writeByte(',');
+            writeText(cursor.getPriceRange());
+            writeLineSeparator();
+        }
+    }
+
+    /**
+     * Writes an already formatted row followed by the line separator.
+     *
+     * @param row a row produced by {@link #formatRow(Product)}
+     * @throws IOException if the output cannot be written
+     */
+    void writeRow(String row) throws IOException {
+        if (index != null) {
+            index.add(Integer.parseInt(row.substring(0, row.indexOf(','))), getBytesWritten());
+        }
+        writeText(row);
+        writeLineSeparator();
+    }
+
+    /**
+     * Formats a product as the text of one output row, without the line separator.
+     *
+     * @param product the transformed product
+     * @return the comma separated row
+     */
+    static String formatRow(Product product) {
+        StringBuilder row = new StringBuilder(64);
+        row.append(product.getProductId()).append(',')
+                .append(product.getName()).append(',');
+        if (product.hasPriceCents()) {
+            row.append(PriceCents.toBigDecimal(product.getPriceCents()));
+        } else {
+            row.append(product.getPrice());
+        }
+        return row.append(',')
+                .append(product.getCategory()).append(',')
+                .append(product.getPriceRange())
+                .toString();
+    }
+
+    /**
+     * Returns the number of bytes written so far, including buffered bytes
+     * that have not reached the output yet.
+     *
+     * @return the number of bytes written
+     */
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten + count;
+    }
+
+    /**
+     * Appends the raw content of a file after the rows written so far.
+     * The file must hold rows already encoded by another writer.
+     *
+     * @param file the file to append
+     * @throws IOException if the file cannot be read or the output cannot be written
+     */
+    void append(Path file) throws IOException {
+        flushBuffer();
+        bytesWritten += Files.copy(file, out);
+    }
+
+    /**
+     * Writes any buffered rows to the output.
+     *
+     * @throws IOException if the output cannot be written
+     */
+    void flush() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!asciiCompatible) {
+                ByteBuffer bytes = ByteBuffer.wrap(buffer, count, buffer.length - count);
+                encoder.encode(CharBuffer.allocate(0), bytes, true);
+                encoder.flush(bytes);
+                count = bytes.position();
+            }
+            flushBuffer();
+        } finally {
+            out.close();
+        }
+        if (index != null) {
+            index.finish();
+        }
+    }
+
+    private void writeText(String text) throws IOException {
+        if (text == null) {
+            text = "null";
+        }
+        int length = text.length();
+        if (asciiCompatible) {
+            int i = 0;
+            while (i < length) {
+                if (count == buffer.length) {
+                    flushBuffer();
+                }
+                int end = Math.min(length, i + buffer.length - count);
+                for (; i < end; i++) {
+                    char c = text.charAt(i);
+                    if (c >= 0x80) {
+                        writeEncoded(text.substring(i));
+                        return;
+                    }
+                    buffer[count++] = (byte) c;
+                }
+            }
+            return;
+        }
+        writeEncoded(text);
+    }
+
+    /**
+     * Encodes text through a single charset encoder kept for the life of the writer,
+     * which is how PrintWriter encodes and keeps stateful charsets byte-identical.
+     */
+    private void writeEncoded(String text) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        while (true) {
+            ByteBuffer bytes = ByteBuffer.wrap(buffer, count, buffer.length - count);
+            CoderResult result = encoder.encode(chars, bytes, false);
+            count = bytes.position();
+            if (result.isOverflow()) {
+                flushBuffer();
+            } else if (chars.hasRemaining()) {
+                // An unpaired surrogate at the end of the text is replaced like any malformed input
+                chars = CharBuffer.wrap("?");
+            } else {
+                return;
+            }
+        }
+    }
+
+    private void writeByte(char c) throws IOException {
+        if (!asciiCompatible) {
+            writeEncoded(String.valueOf(c));
+            return;
+        }
+        if (count == buffer.length) {
+            flushBuffer();
+        }
+        buffer[count++] = (byte) c;
+    }
+
+    private void writeLineSeparator() throws IOException {
+        if (!asciiCompatible) {
+            writeEncoded(System.lineSeparator());
+            return;
+        }
+        if (lineSeparator.length > buffer.length - count) {
+            flushBuffer();
+        }
+        System.arraycopy(lineSeparator, 0, buffer, count, lineSeparator.length);
+        count += lineSeparator.length;
+    }
+
+    /**
+     * Formats a price in cents the way BigDecimal.toString formats a value with
+     * two decimal places, e.g. 899 as "8.99" and -5 as "-0.05".
+     */
+    private void writeCents(long cents) throws IOException {
+        if (!asciiCompatible) {
+            writeEncoded(PriceCents.toBigDecimal(cents).toString());
+            return;
+        }
+        if (buffer.length - count < 24) {
+            flushBuffer();
+        }
+        if (cents < 0) {
+            buffer[count++] = '-';
+            cents = -cents;
+        }
+        long units = cents / 100;
+        int fraction = (int) (cents % 100);
+
+        int digits = 1;
+        for (long rest = units / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        for (int i = count + digits - 1; i >= count; i--) {
+            buffer[i] = (byte) ('0' + units % 10);
+            units /= 10;
+        }
+        count += digits;
+        buffer[count++] = '.';
+        buffer[count++] = (byte) ('0' + fraction / 10);
+        buffer[count++] = (byte) ('0' + fraction % 10);
+    }
+
+    /**
+     * Formats an int the way Integer.toString does. Only used for ASCII compatible charsets.
+     */
+    private void writeInt(int value) throws IOException {
+        if (buffer.length - count < 11) {
+            flushBuffer();
+        }
+        long rest = value;
+        if (rest < 0) {
+            buffer[count++] = '-';
+            rest = -rest;
+        }
+        int digits = 1;
+        for (long r = rest / 10; r > 0; r /= 10) {
+            digits++;
+        }
+        for (int i = count + digits - 1; i >= count; i--) {
+            buffer[i] = (byte) ('0' + rest % 10);
+            rest /= 10;
+        }
+        count += digits;
+    }
+
+    /**
+     * Copies an ASCII name from the store into the buffer, in as many pieces as the buffer needs.
+     */
+    private void writeAsciiName(OffHeapProductStore.Row row) throws IOException {
+        int length = row.getNameLength();
+        int from = 0;
+        while (from < length) {
+            if (count == buffer.length) {
+                flushBuffer();
+            }
+            int piece = Math.min(length - from, buffer.length - count);
+            row.copyName(from, buffer, count, piece);
+            count += piece;
+            from += piece;
+        }
+    }
+
+    private void writePrice(BigDecimal price) throws IOException {
+        writeText(String.valueOf(price));
+    }
+
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            out.write(buffer, 0, count);
+            bytesWritten += count;
+            count = 0;
+        }
+    }
+}
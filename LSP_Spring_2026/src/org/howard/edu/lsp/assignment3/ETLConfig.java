@@ -1,5 +1,7 @@
 package org.howard.edu.lsp.assignment3;
 
+import java.io.File;
+
 /**
  * Stores configuration settings for the ETL pipeline,
  * including file paths and the CSV delimiter.
@@ -11,6 +13,36 @@ public class ETLConfig {
     private String inputFile;
     private String outputFile;
     private String delimiter;
+    private PipelineMode mode = PipelineMode.BATCH;
+    private int workerCount = Runtime.getRuntime().availableProcessors();
+    private boolean memoryMapped = false;
+    private int writeBufferSize = 1024 * 1024;
+    private int batchSize = 1024;
+    private int queueCapacity = 16;
+    private String stateFile;
+    private String deltaFile;
+    private String rulesFile;
+    private String metricsFile;
+    private String inputPattern;
+    private String outputDirectory;
+    private boolean mergeOutput = false;
+    private CompressionCodec inputCompression;
+    private CompressionCodec outputCompression;
+    private OutputFormat outputFormat = OutputFormat.CSV;
+    private boolean indexOutput = false;
+    private int nameCacheSize = ProductTransformer.DEFAULT_NAME_CACHE_SIZE;
+    private int transformThreads = 1;
+    private String rejectFile;
+    private int skipLogInterval = -1;
+    private boolean dedupe = false;
+    private SortKey sortKey;
+    private String summaryFile;
+    private String checkpointFile;
+    private int checkpointInterval = 100_000;
+    private int pollIntervalMillis = 50;
+    private long idleTimeoutMillis = 0;
+    private boolean vectorTokenizer = true;
+    private PartitionKey partitionKey;
 
     /**
      * Constructs an ETLConfig with the specified file paths and delimiter.
@@ -25,6 +57,48 @@ public class ETLConfig {
         this.delimiter = delimiter;
     }
 
+    /**
+     * Constructs a copy of another configuration that reads and writes different files.
+     * Every other setting is copied; the state file is copied only if it was set explicitly.
+     *
+     * @param other the configuration to copy
+     * @param inputFile the path to the input CSV file
+     * @param outputFile the path to the output CSV file
+     */
+    public ETLConfig(ETLConfig other, String inputFile, String outputFile){
+        this(inputFile, outputFile, other.delimiter);
+        this.mode = other.mode;
+        this.workerCount = other.workerCount;
+        this.memoryMapped = other.memoryMapped;
+        this.writeBufferSize = other.writeBufferSize;
+        this.batchSize = other.batchSize;
+        this.queueCapacity = other.queueCapacity;
+        this.stateFile = other.stateFile;
+        this.deltaFile = other.deltaFile;
+        this.rulesFile = other.rulesFile;
+        this.metricsFile = other.metricsFile;
+        this.inputPattern = other.inputPattern;
+        this.outputDirectory = other.outputDirectory;
+        this.mergeOutput = other.mergeOutput;
+        this.inputCompression = other.inputCompression;
+        this.outputCompression = other.outputCompression;
+        this.outputFormat = other.outputFormat;
+        this.indexOutput = other.indexOutput;
+        this.nameCacheSize = other.nameCacheSize;
+        this.transformThreads = other.transformThreads;
+        this.rejectFile = other.rejectFile;
+        this.skipLogInterval = other.skipLogInterval;
+        this.dedupe = other.dedupe;
+        this.sortKey = other.sortKey;
+        this.summaryFile = other.summaryFile;
+        this.checkpointFile = other.checkpointFile;
+        this.checkpointInterval = other.checkpointInterval;
+        this.pollIntervalMillis = other.pollIntervalMillis;
+        this.idleTimeoutMillis = other.idleTimeoutMillis;
+        this.vectorTokenizer = other.vectorTokenizer;
+        this.partitionKey = other.partitionKey;
+    }
+
     /**
      * Returns the configured input file path.
      *
@@ -42,6 +116,15 @@ public class ETLConfig {
     public String getOutputFile(){
         return outputFile;
     }
+
+    /**
+     * Sets the output file path.
+     *
+     * @param outputFile the path to the output file
+     */
+    public void setOutputFile(String outputFile){
+        this.outputFile = outputFile;
+    }
     
     /**
      * Returns the delimiter used for parsing the CSV file.
@@ -51,4 +134,606 @@ public class ETLConfig {
     public String getDelimiter(){
         return delimiter;
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the execution mode used by the orchestrator.
+     *
+     * @return the pipeline mode; BATCH unless changed
+     */
+    public PipelineMode getMode(){
+        return mode;
+    }
+
+    /**
+     * Sets the execution mode used by the orchestrator.
+     *
+     * @param mode the pipeline mode to run
+     */
+    public void setMode(PipelineMode mode){
+        this.mode = mode;
+    }
+
+    /**
+     * Returns the number of worker threads used by parallel stages.
+     *
+     * @return the worker count; defaults to the number of available processors
+     */
+    public int getWorkerCount(){
+        return workerCount;
+    }
+
+    /**
+     * Sets the number of worker threads used by parallel stages.
+     *
+     * @param workerCount the number of worker threads, at least 1
+     */
+    public void setWorkerCount(int workerCount){
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("workerCount must be at least 1");
+        }
+        this.workerCount = workerCount;
+    }
+
+    /**
+     * Returns whether the input file is read through a memory-mapped reader.
+     *
+     * @return true if memory-mapped reading is enabled
+     */
+    public boolean isMemoryMapped(){
+        return memoryMapped;
+    }
+
+    /**
+     * Enables or disables memory-mapped reading of the input file.
+     * Mapped reading scans delimiters in the raw bytes and avoids decoding
+     * rows that fail validation.
+     *
+     * @param memoryMapped true to read the input through a memory-mapped file
+     */
+    public void setMemoryMapped(boolean memoryMapped){
+        this.memoryMapped = memoryMapped;
+    }
+
+    /**
+     * Returns the size of the buffer the loader fills before each write to the output file.
+     *
+     * @return the write buffer size in bytes; defaults to 1 MB
+     */
+    public int getWriteBufferSize(){
+        return writeBufferSize;
+    }
+
+    /**
+     * Sets the size of the buffer the loader fills before each write to the output file.
+     * Larger buffers mean fewer, bigger writes.
+     *
+     * @param writeBufferSize the write buffer size in bytes
+     */
+    public void setWriteBufferSize(int writeBufferSize){
+        if (writeBufferSize < 1) {
+            throw new IllegalArgumentException("writeBufferSize must be at least 1");
+        }
+        this.writeBufferSize = writeBufferSize;
+    }
+
+    /**
+     * Returns the number of rows grouped into each batch passed between stages,
+     * and into each task of a parallel transform.
+     *
+     * @return the batch size; defaults to 1024
+     */
+    public int getBatchSize(){
+        return batchSize;
+    }
+
+    /**
+     * Sets the number of rows grouped into each batch passed between stages,
+     * and into each task of a parallel transform.
+     *
+     * @param batchSize the batch size, at least 1
+     */
+    public void setBatchSize(int batchSize){
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns how many batches may wait between two pipelined stages before
+     * the earlier stage is blocked.
+     *
+     * @return the queue capacity; defaults to 16
+     */
+    public int getQueueCapacity(){
+        return queueCapacity;
+    }
+
+    /**
+     * Sets how many batches may wait between two pipelined stages before
+     * the earlier stage is blocked.
+     *
+     * @param queueCapacity the queue capacity, at least 1
+     */
+    public void setQueueCapacity(int queueCapacity){
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be at least 1");
+        }
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Returns the path of the state file used by incremental runs.
+     *
+     * @return the state file path; defaults to the output file path followed by ".state"
+     */
+    public String getStateFile(){
+        return stateFile != null ? stateFile : outputFile + ".state";
+    }
+
+    /**
+     * Sets the path of the state file used by incremental runs.
+     *
+     * @param stateFile the state file path
+     */
+    public void setStateFile(String stateFile){
+        this.stateFile = stateFile;
+    }
+
+    /**
+     * Returns the path of the delta file written by incremental runs.
+     *
+     * @return the delta file path, or null if incremental runs rewrite the full output
+     */
+    public String getDeltaFile(){
+        return deltaFile;
+    }
+
+    /**
+     * Sets the path of the delta file written by incremental runs.
+     * When set, incremental runs write only inserted, updated and deleted rows
+     * to this file instead of rewriting the output file.
+     *
+     * @param deltaFile the delta file path, or null to rewrite the full output
+     */
+    public void setDeltaFile(String deltaFile){
+        this.deltaFile = deltaFile;
+    }
+
+    /**
+     * Returns the path of the transformation rules file.
+     *
+     * @return the rules file path, or null to use the default rules
+     */
+    public String getRulesFile(){
+        return rulesFile;
+    }
+
+    /**
+     * Sets the path of the properties file the transformation rules are loaded from.
+     *
+     * @param rulesFile the rules file path, or null to use the default rules
+     */
+    public void setRulesFile(String rulesFile){
+        this.rulesFile = rulesFile;
+    }
+
+    /**
+     * Returns the path the run metrics are exported to.
+     *
+     * @return the metrics file path, or null if metrics are not exported
+     */
+    public String getMetricsFile(){
+        return metricsFile;
+    }
+
+    /**
+     * Sets the path the run metrics are exported to. Paths ending in ".json" are
+     * written as JSON; any other path is written in the Prometheus text format.
+     *
+     * @param metricsFile the metrics file path, or null to skip the export
+     */
+    public void setMetricsFile(String metricsFile){
+        this.metricsFile = metricsFile;
+    }
+
+    /**
+     * Returns the directory or glob naming the input files of a multi-file run.
+     *
+     * @return the input directory or glob, or null if not set
+     */
+    public String getInputPattern(){
+        return inputPattern;
+    }
+
+    /**
+     * Sets the input files of a multi-file run. A directory selects every .csv file
+     * in it; otherwise the last path element is a glob matched against the file
+     * names of its parent directory, e.g. "drops/vendor_*.csv".
+     *
+     * @param inputPattern a directory or glob
+     */
+    public void setInputPattern(String inputPattern){
+        this.inputPattern = inputPattern;
+    }
+
+    /**
+     * Returns the directory that receives one output file per input in a multi-file run.
+     *
+     * @return the output directory; defaults to the directory of the output file
+     */
+    public String getOutputDirectory(){
+        if (outputDirectory != null) {
+            return outputDirectory;
+        }
+        String parent = new File(outputFile).getParent();
+        return parent != null ? parent : ".";
+    }
+
+    /**
+     * Sets the directory that receives one output file per input in a multi-file run.
+     *
+     * @param outputDirectory the output directory, or null for the directory of the output file
+     */
+    public void setOutputDirectory(String outputDirectory){
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * Returns whether a multi-file run merges every input into the single output file.
+     *
+     * @return true to merge; defaults to false, writing one output per input
+     */
+    public boolean isMergeOutput(){
+        return mergeOutput;
+    }
+
+    /**
+     * Sets whether a multi-file run merges every input into the single output file.
+     * Rows of the merged file follow the order of the input files, under one header row.
+     *
+     * @param mergeOutput true to merge, false to write one output per input
+     */
+    public void setMergeOutput(boolean mergeOutput){
+        this.mergeOutput = mergeOutput;
+    }
+
+    /**
+     * Returns the compression of the input file.
+     *
+     * @return the input codec, or null to detect it from the file name and first bytes
+     */
+    public CompressionCodec getInputCompression(){
+        return inputCompression;
+    }
+
+    /**
+     * Sets the compression of the input file.
+     *
+     * @param inputCompression the input codec, or null to detect it
+     */
+    public void setInputCompression(CompressionCodec inputCompression){
+        this.inputCompression = inputCompression;
+    }
+
+    /**
+     * Returns the compression applied to the output file.
+     *
+     * @return the output codec, or null to choose it from the output file name
+     */
+    public CompressionCodec getOutputCompression(){
+        return outputCompression;
+    }
+
+    /**
+     * Sets the compression applied to the output file.
+     *
+     * @param outputCompression the output codec, or null to choose it from the file name
+     */
+    public void setOutputCompression(CompressionCodec outputCompression){
+        this.outputCompression = outputCompression;
+    }
+
+    /**
+     * Returns the format the output file is written in.
+     *
+     * @return the output format
+     */
+    public OutputFormat getOutputFormat(){
+        return outputFormat;
+    }
+
+    /**
+     * Sets the format the output file is written in.
+     *
+     * @param outputFormat the output format
+     */
+    public void setOutputFormat(OutputFormat outputFormat){
+        this.outputFormat = outputFormat;
+    }
+
+    /**
+     * Returns whether a ProductID index is written next to the output file.
+     *
+     * @return true if the output is indexed
+     */
+    public boolean isIndexOutput(){
+        return indexOutput;
+    }
+
+    /**
+     * Sets whether a ProductID index is written next to the output file.
+     *
+     * @param indexOutput true to index the output
+     */
+    public void setIndexOutput(boolean indexOutput){
+        this.indexOutput = indexOutput;
+    }
+
+    /**
+     * Returns the number of uppercase names the transformer remembers.
+     *
+     * @return the name cache size; 0 if names are not cached
+     */
+    public int getNameCacheSize(){
+        return nameCacheSize;
+    }
+
+    /**
+     * Sets the number of uppercase names the transformer remembers.
+     *
+     * @param nameCacheSize the name cache size; 0 disables the cache
+     */
+    public void setNameCacheSize(int nameCacheSize){
+        if (nameCacheSize < 0) {
+            throw new IllegalArgumentException("nameCacheSize must not be negative");
+        }
+        this.nameCacheSize = nameCacheSize;
+    }
+
+    /**
+     * Returns the number of threads that transform a list of products.
+     *
+     * @return the transform thread count; defaults to 1, which transforms sequentially
+     */
+    public int getTransformThreads(){
+        return transformThreads;
+    }
+
+    /**
+     * Sets the number of threads that transform a list of products.
+     * With more than one thread the list is transformed in batches of
+     * {@link #getBatchSize()} rows on a fork/join pool.
+     *
+     * @param transformThreads the transform thread count, at least 1
+     */
+    public void setTransformThreads(int transformThreads){
+        if (transformThreads < 1) {
+            throw new IllegalArgumentException("transformThreads must be at least 1");
+        }
+        this.transformThreads = transformThreads;
+    }
+
+    /**
+     * Returns the path of the file that receives every skipped row.
+     *
+     * @return the reject file path, or null if skipped rows are not written
+     */
+    public String getRejectFile(){
+        return rejectFile;
+    }
+
+    /**
+     * Sets the path of the file that receives every skipped row, with its
+     * line number and the reason it was skipped.
+     *
+     * @param rejectFile the reject file path, or null to write no reject file
+     */
+    public void setRejectFile(String rejectFile){
+        this.rejectFile = rejectFile;
+    }
+
+    /**
+     * Returns how often a row with an invalid ProductID or price is reported on the console.
+     * Unless set, every such row is reported, or none if a reject file is configured.
+     *
+     * @return n to report every n-th invalid row, or 0 to report none
+     */
+    public int getSkipLogInterval(){
+        if (skipLogInterval >= 0) {
+            return skipLogInterval;
+        }
+        return rejectFile == null ? 1 : 0;
+    }
+
+    /**
+     * Sets how often a row with an invalid ProductID or price is reported on the console.
+     *
+     * @param skipLogInterval n to report every n-th invalid row, or 0 to report none
+     */
+    public void setSkipLogInterval(int skipLogInterval){
+        if (skipLogInterval < 0) {
+            throw new IllegalArgumentException("skipLogInterval must not be negative");
+        }
+        this.skipLogInterval = skipLogInterval;
+    }
+
+    /**
+     * Returns whether rows with a repeated ProductID are removed before loading.
+     *
+     * @return true if only the latest row of each ProductID is loaded
+     */
+    public boolean isDedupe(){
+        return dedupe;
+    }
+
+    /**
+     * Enables or disables removing rows with a repeated ProductID before loading.
+     * The latest row of each ProductID is kept, at the position of its first row.
+     *
+     * @param dedupe true to load only the latest row of each ProductID
+     */
+    public void setDedupe(boolean dedupe){
+        this.dedupe = dedupe;
+    }
+
+    /**
+     * Returns the key the transformed products are sorted by before loading.
+     *
+     * @return the sort key, or null to load products in input order
+     */
+    public SortKey getSortKey(){
+        return sortKey;
+    }
+
+    /**
+     * Sets the key the transformed products are sorted by before loading.
+     *
+     * @param sortKey the sort key, or null to load products in input order
+     */
+    public void setSortKey(SortKey sortKey){
+        this.sortKey = sortKey;
+    }
+
+    /**
+     * Returns the path of the file that receives the price summary per category and price range.
+     *
+     * @return the summary file path, or null if no summary is written
+     */
+    public String getSummaryFile(){
+        return summaryFile;
+    }
+
+    /**
+     * Sets the path of the file that receives the price summary per category and price range.
+     *
+     * @param summaryFile the summary file path, or null to write no summary
+     */
+    public void setSummaryFile(String summaryFile){
+        this.summaryFile = summaryFile;
+    }
+
+    /**
+     * Returns the path of the checkpoint file used by checkpointed runs.
+     *
+     * @return the checkpoint file path; defaults to the output file path followed by ".checkpoint"
+     */
+    public String getCheckpointFile(){
+        return checkpointFile != null ? checkpointFile : outputFile + ".checkpoint";
+    }
+
+    /**
+     * Sets the path of the checkpoint file used by checkpointed runs.
+     *
+     * @param checkpointFile the checkpoint file path, or null for the default
+     */
+    public void setCheckpointFile(String checkpointFile){
+        this.checkpointFile = checkpointFile;
+    }
+
+    /**
+     * Returns the number of rows read between two checkpoints.
+     *
+     * @return the checkpoint interval; defaults to 100000
+     */
+    public int getCheckpointInterval(){
+        return checkpointInterval;
+    }
+
+    /**
+     * Sets the number of rows read between two checkpoints.
+     * Each checkpoint forces the output to disk, so smaller intervals lose less work
+     * after a crash but slow the run down.
+     *
+     * @param checkpointInterval the checkpoint interval, at least 1
+     */
+    public void setCheckpointInterval(int checkpointInterval){
+        if (checkpointInterval < 1) {
+            throw new IllegalArgumentException("checkpointInterval must be at least 1");
+        }
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Returns the longest time a follow run waits between two checks of the input file.
+     *
+     * @return the poll interval in milliseconds; defaults to 50
+     */
+    public int getPollIntervalMillis(){
+        return pollIntervalMillis;
+    }
+
+    /**
+     * Sets the longest time a follow run waits between two checks of the input file.
+     * Changes reported by the file system wake the run sooner, so the interval only
+     * bounds the latency on file systems that do not report changes.
+     *
+     * @param pollIntervalMillis the poll interval in milliseconds, at least 1
+     */
+    public void setPollIntervalMillis(int pollIntervalMillis){
+        if (pollIntervalMillis < 1) {
+            throw new IllegalArgumentException("pollIntervalMillis must be at least 1");
+        }
+        this.pollIntervalMillis = pollIntervalMillis;
+    }
+
+    /**
+     * Returns how long a follow run keeps waiting after the input stops growing.
+     *
+     * @return the idle timeout in milliseconds, or 0 to follow until stopped; defaults to 0
+     */
+    public long getIdleTimeoutMillis(){
+        return idleTimeoutMillis;
+    }
+
+    /**
+     * Sets how long a follow run keeps waiting after the input stops growing.
+     *
+     * @param idleTimeoutMillis the idle timeout in milliseconds, or 0 to follow until stopped
+     */
+    public void setIdleTimeoutMillis(long idleTimeoutMillis){
+        if (idleTimeoutMillis < 0) {
+            throw new IllegalArgumentException("idleTimeoutMillis must not be negative");
+        }
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Returns whether raw input bytes are tokenized with the Vector API when it is available.
+     *
+     * @return true to use the vector tokenizer if the JVM provides jdk.incubator.vector; defaults to true
+     */
+    public boolean isVectorTokenizer(){
+        return vectorTokenizer;
+    }
+
+    /**
+     * Sets whether raw input bytes are tokenized with the Vector API when it is available.
+     * The module is only present when the JVM is started with --add-modules jdk.incubator.vector;
+     * without it the scalar tokenizer is used either way.
+     *
+     * @param vectorTokenizer true to use the vector tokenizer if available, false to always use the scalar one
+     */
+    public void setVectorTokenizer(boolean vectorTokenizer){
+        this.vectorTokenizer = vectorTokenizer;
+    }
+
+    /**
+     * Returns the column the output is partitioned by.
+     *
+     * @return the partition column, or null to write a single output file; defaults to null
+     */
+    public PartitionKey getPartitionKey(){
+        return partitionKey;
+    }
+
+    /**
+     * Sets the column the output is partitioned by. Each value of the column is written
+     * to its own file in a directory named after the output file, together with a manifest.
+     *
+     * @param partitionKey the partition column, or null to write a single output file
+     */
+    public void setPartitionKey(PartitionKey partitionKey){
+        this.partitionKey = partitionKey;
+    }
+}
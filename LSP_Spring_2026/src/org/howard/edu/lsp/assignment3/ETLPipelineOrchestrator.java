@@ -1,5 +1,7 @@
 package org.howard.edu.lsp.assignment3;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -12,7 +14,8 @@ import java.util.List;
  * 2. Transforms the extracted product data
  * 3. Loads the transformed data into an output CSV file
  *
- * It also reports statistics such as number of rows read, transformed, and skipped.
+ * It also reports statistics such as number of rows read, transformed, and skipped,
+ * and can export per-stage metrics as JSON or Prometheus text.
  *
  * @author Ibukunoluwa Adeloye
  * @version 1.0
@@ -30,29 +33,472 @@ public class ETLPipelineOrchestrator {
      * - Writes the transformed data to the output CSV file
      * - Prints execution statistics to the console
      *
-     * @param args command-line arguments (not used in this implementation)
+     * @param args an optional pipeline mode name (e.g. "streaming") followed by options
+     *             such as --workers=N, --mmap, --rules=FILE, --input=GLOB and --output-format=binary;
+     *             defaults to batch mode
      */
     public static void main(String[] args) {
         ETLConfig config = new ETLConfig("data/products.csv", "data/transformed_products.csv", ",");
 
-        ProductExtractor extractor = new ProductExtractor(config);
-        ProductTransformer transformer = new ProductTransformer();
+        if (!applyArguments(args, config)) {
+            return;
+        }
+
+        run(config);
+    }
+
+    /**
+     * Applies command-line arguments to the configuration.
+     * The first argument may name a {@link PipelineMode}; the remaining arguments are options.
+     *
+     * @return false if an argument was not recognized
+     */
+    private static boolean applyArguments(String[] args, ETLConfig config) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            try {
+                if (arg.equals("--mmap")) {
+                    config.setMemoryMapped(true);
+                } else if (arg.startsWith("--batch-size=")) {
+                    config.setBatchSize(Integer.parseInt(arg.substring("--batch-size=".length())));
+                } else if (arg.startsWith("--queue-capacity=")) {
+                    config.setQueueCapacity(Integer.parseInt(arg.substring("--queue-capacity=".length())));
+                } else if (arg.startsWith("--state-file=")) {
+                    config.setStateFile(arg.substring("--state-file=".length()));
+                } else if (arg.startsWith("--delta-file=")) {
+                    config.setDeltaFile(arg.substring("--delta-file=".length()));
+                } else if (arg.startsWith("--input=")) {
+                    config.setInputPattern(arg.substring("--input=".length()));
+                } else if (arg.startsWith("--output=")) {
+                    config.setOutputFile(arg.substring("--output=".length()));
+                } else if (arg.startsWith("--output-format=")) {
+                    config.setOutputFormat(OutputFormat.valueOf(arg.substring("--output-format=".length()).toUpperCase()));
+                } else if (arg.startsWith("--output-dir=")) {
+                    config.setOutputDirectory(arg.substring("--output-dir=".length()));
+                } else if (arg.equals("--index")) {
+                    config.setIndexOutput(true);
+                } else if (arg.equals("--merge")) {
+                    config.setMergeOutput(true);
+                } else if (arg.startsWith("--input-compression=")) {
+                    config.setInputCompression(parseCodec(arg.substring("--input-compression=".length())));
+                } else if (arg.startsWith("--output-compression=")) {
+                    config.setOutputCompression(parseCodec(arg.substring("--output-compression=".length())));
+                } else if (arg.startsWith("--metrics=")) {
+                    config.setMetricsFile(arg.substring("--metrics=".length()));
+                } else if (arg.startsWith("--rules=")) {
+                    config.setRulesFile(arg.substring("--rules=".length()));
+                } else if (arg.startsWith("--name-cache=")) {
+                    config.setNameCacheSize(Integer.parseInt(arg.substring("--name-cache=".length())));
+                } else if (arg.startsWith("--transform-threads=")) {
+                    config.setTransformThreads(Integer.parseInt(arg.substring("--transform-threads=".length())));
+                } else if (arg.startsWith("--reject-file=")) {
+                    config.setRejectFile(arg.substring("--reject-file=".length()));
+                } else if (arg.startsWith("--skip-log-interval=")) {
+                    config.setSkipLogInterval(Integer.parseInt(arg.substring("--skip-log-interval=".length())));
+                } else if (arg.equals("--dedupe")) {
+                    config.setDedupe(true);
+                } else if (arg.startsWith("--sort=")) {
+                    config.setSortKey(SortKey.valueOf(arg.substring("--sort=".length()).toUpperCase()));
+                } else if (arg.startsWith("--summary=")) {
+                    config.setSummaryFile(arg.substring("--summary=".length()));
+                } else if (arg.startsWith("--checkpoint-file=")) {
+                    config.setCheckpointFile(arg.substring("--checkpoint-file=".length()));
+                } else if (arg.startsWith("--checkpoint-interval=")) {
+                    config.setCheckpointInterval(Integer.parseInt(arg.substring("--checkpoint-interval=".length())));
+                } else if (arg.startsWith("--poll-interval=")) {
+                    config.setPollIntervalMillis(Integer.parseInt(arg.substring("--poll-interval=".length())));
+                } else if (arg.startsWith("--idle-timeout=")) {
+                    config.setIdleTimeoutMillis(Long.parseLong(arg.substring("--idle-timeout=".length())));
+                } else if (arg.startsWith("--tokenizer=")) {
+                    config.setVectorTokenizer(parseTokenizer(arg.substring("--tokenizer=".length())));
+                } else if (arg.startsWith("--partition-by=")) {
+                    config.setPartitionKey(PartitionKey.parse(arg.substring("--partition-by=".length())));
+                } else if (arg.startsWith("--workers=")) {
+                    config.setWorkerCount(Integer.parseInt(arg.substring("--workers=".length())));
+                } else if (i == 0 && !arg.startsWith("--")) {
+                    config.setMode(PipelineMode.valueOf(arg.toUpperCase()));
+                } else {
+                    System.out.println("Unknown argument: " + arg);
+                    return false;
+                }
+            } catch (IllegalArgumentException e) {
+                System.out.println(i == 0 ? "Unknown pipeline mode: " + arg : "Invalid argument: " + arg);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses a codec name; "auto" selects detection from the file name and content.
+     *
+     * @throws IllegalArgumentException if the name is not a known codec
+     */
+    private static CompressionCodec parseCodec(String name) {
+        return name.equalsIgnoreCase("auto") ? null : CompressionCodec.valueOf(name.toUpperCase());
+    }
+
+    /**
+     * Parses a tokenizer name; "vector" uses the Vector API when the JVM provides it.
+     *
+     * @throws IllegalArgumentException if the name is neither "vector" nor "scalar"
+     */
+    private static boolean parseTokenizer(String name) {
+        if (name.equalsIgnoreCase("vector") || name.equalsIgnoreCase("scalar")) {
+            return name.equalsIgnoreCase("vector");
+        }
+        throw new IllegalArgumentException("Unknown tokenizer: " + name);
+    }
+
+    /**
+     * Runs the pipeline described by the given configuration using its configured mode.
+     *
+     * @param config the ETL configuration to run
+     */
+    public static void run(ETLConfig config) {
+        ProductExtractor extractor = config.getMode() == PipelineMode.PARALLEL
+                ? new ParallelProductExtractor(config)
+                : new ProductExtractor(config);
+        ProductTransformer transformer = createTransformer(config);
+        if (transformer == null) {
+            System.out.println("Stopping pipeline.");
+            return;
+        }
         ProductLoader loader = new ProductLoader(config);
+        ProductPostProcessor post = new ProductPostProcessor(config);
+        String unsupported = checkInput(config);
+        if (unsupported == null) {
+            unsupported = checkPostProcessing(config.getMode(), post);
+        }
+        if (unsupported == null) {
+            unsupported = checkPartitioning(config);
+        }
+        if (unsupported != null) {
+            System.out.println(unsupported);
+            System.out.println("Stopping pipeline.");
+            return;
+        }
 
         System.out.println("Starting ETL Pipeline...");
 
+        PipelineMetrics metrics = new PipelineMetrics();
+        MultiFileExecutor multiFile = null;
+        boolean completed;
+        try (RejectLog rejects = RejectLog.open(config)) {
+            extractor.setRejectLog(rejects);
+            switch (config.getMode()) {
+                case MULTI_FILE:
+                    multiFile = new MultiFileExecutor(config, transformer.getRules(), metrics, rejects, post);
+                    completed = multiFile.run();
+                    break;
+                case STREAMING:
+                    completed = runStreaming(config, extractor, transformer, post, loader, metrics);
+                    break;
+                case PIPELINED:
+                    completed = new PipelinedExecutor(config, extractor, transformer, loader, metrics, post).run();
+                    break;
+                case INCREMENTAL:
+                    completed = new IncrementalExecutor(config, extractor, transformer, metrics).run();
+                    break;
+                case CHECKPOINTED:
+                    completed = new CheckpointedExecutor(config, extractor, transformer, metrics).run();
+                    break;
+                case FOLLOW:
+                    completed = new FollowExecutor(config, extractor, transformer, metrics).run();
+                    break;
+                case COLUMNAR:
+                    completed = runColumnar(config, extractor, transformer, post, loader, metrics);
+                    break;
+                case OFF_HEAP:
+                    completed = runOffHeap(config, extractor, transformer, post, loader, metrics);
+                    break;
+                default:
+                    completed = runBatch(config, extractor, transformer, post, loader, metrics);
+                    break;
+            }
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            completed = false;
+        }
+
+        if (!completed) {
+            System.out.println("Stopping pipeline.");
+            return;
+        }
+
+        metrics.finish();
+        if (multiFile != null) {
+            System.out.println("Number of rows read: " + multiFile.getRowsRead());
+            System.out.println("Number of rows transformed: " + multiFile.getRowsTransformed());
+            System.out.println("Number of rows skipped: " + multiFile.getRowsSkipped());
+            System.out.println("Files created successfully at: " + multiFile.getOutputLocation());
+        } else {
+            metrics.recordExtraction(extractor);
+            metrics.recordTransformation(transformer);
+            System.out.println("Number of rows read: " + extractor.getRowsRead());
+            System.out.println("Number of rows transformed: " + transformer.getRowsTransformed());
+            System.out.println("Number of rows skipped: " + extractor.getRowsSkipped());
+            if (config.isDedupe()) {
+                System.out.println("Number of duplicate rows removed: " + post.getDuplicatesRemoved());
+            }
+            if (config.getPartitionKey() != null) {
+                System.out.println("Number of partitions: " + loader.getPartitionCount());
+                System.out.println("Files created successfully at: " + loader.getOutputLocation());
+            } else if (config.getMode() == PipelineMode.INCREMENTAL && config.getDeltaFile() != null) {
+                // Only the changes are written; the output file is left as the consumer last applied it
+                System.out.println("Delta file created successfully at: " + config.getDeltaFile());
+            } else {
+                System.out.println("File created successfully at: " + config.getOutputFile());
+            }
+        }
+
+        try {
+            post.finish();
+            if (config.getSummaryFile() != null) {
+                System.out.println("Summary created successfully at: " + config.getSummaryFile());
+            }
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+        }
+
+        if (config.getMetricsFile() != null) {
+            try {
+                metrics.export(config.getMetricsFile());
+            } catch (IOException ex) {
+                System.err.println(ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Creates the transformer, compiling the configured rules file if there is one.
+     * A parallel transformer is created when more than one transform thread is configured.
+     *
+     * @return the transformer, or null if the rules file could not be loaded
+     */
+    private static ProductTransformer createTransformer(ETLConfig config) {
+        TransformRules rules;
+        if (config.getRulesFile() == null) {
+            rules = TransformRules.defaults();
+        } else {
+            try {
+                rules = TransformRules.load(config.getRulesFile());
+            } catch (IOException | IllegalArgumentException ex) {
+                System.err.println("Could not load rules file " + config.getRulesFile() + ": " + ex.getMessage());
+                return null;
+            }
+        }
+        if (config.getTransformThreads() > 1) {
+            return new ParallelProductTransformer(rules, config.getNameCacheSize(),
+                    config.getBatchSize(), config.getTransformThreads());
+        }
+        return new ProductTransformer(rules, config.getNameCacheSize());
+    }
+
+    /**
+     * Checks that an input pattern is only given to the mode that reads it. Every other
+     * mode reads the configured input file, so an ignored --input would silently process
+     * and overwrite the wrong data.
+     *
+     * @return a message explaining why the configuration is not supported, or null if it is
+     */
+    private static String checkInput(ETLConfig config) {
+        if (config.getInputPattern() != null && config.getMode() != PipelineMode.MULTI_FILE) {
+            return "--input is only supported in MULTI_FILE mode; " + config.getMode()
+                    + " mode reads " + config.getInputFile();
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether a pipeline mode can run the enabled post-transform stages.
+     * Deduplication and sorting need the transformed products in a list. The summary
+     * needs every transformed row of a single run, so it is not available to the modes
+     * that resume, skip unchanged rows or never finish.
+     *
+     * @return a message describing the unsupported stage, or null if every stage is supported
+     */
+    private static String checkPostProcessing(PipelineMode mode, ProductPostProcessor post) {
+        boolean list = mode == PipelineMode.BATCH || mode == PipelineMode.PARALLEL;
+        if (post.needsAllRows() && !list) {
+            return "Dedupe and sort are only supported in BATCH and PARALLEL modes";
+        }
+        boolean partialRun = mode == PipelineMode.CHECKPOINTED || mode == PipelineMode.INCREMENTAL
+                || mode == PipelineMode.FOLLOW;
+        if (post.isEnabled() && partialRun) {
+            return "A summary is not supported in CHECKPOINTED, INCREMENTAL and FOLLOW modes";
+        }
+        return null;
+    }
+
+    /**
+     * Checks whether the configured pipeline can write partitioned output.
+     * Only the modes that load through a {@link ProductLoader} can, and partition
+     * files are not indexed.
+     *
+     * @return a message explaining why the configuration is not supported, or null if it is
+     */
+    private static String checkPartitioning(ETLConfig config) {
+        if (config.getPartitionKey() == null) {
+            return null;
+        }
+        switch (config.getMode()) {
+            case BATCH:
+            case PARALLEL:
+            case STREAMING:
+            case COLUMNAR:
+            case OFF_HEAP:
+            case PIPELINED:
+                break;
+            default:
+                return "Partitioned output is only supported in BATCH, PARALLEL, STREAMING, COLUMNAR, OFF_HEAP and PIPELINED modes";
+        }
+        if (config.isIndexOutput()) {
+            return "Partitioned output cannot be indexed";
+        }
+        return null;
+    }
+
+    /**
+     * Runs each stage over the whole input before starting the next one.
+     * The enabled post-transform stages are timed as part of the transform stage.
+     *
+     * @return false if the input file could not be found
+     */
+    private static boolean runBatch(ETLConfig config, ProductExtractor extractor, ProductTransformer transformer,
+                                    ProductPostProcessor post, ProductLoader loader, PipelineMetrics metrics) {
+        long start = System.nanoTime();
         List<Product> products = extractor.extractData();
         if (products == null) {
-            System.out.println("Stopping pipeline.");
-            return; 
+            return false;
         }
+        long extracted = System.nanoTime();
+        metrics.stage(PipelineMetrics.EXTRACT).record(products.size(), extracted - start);
+
+        List<Product> transformedProducts = post.process(transformer.transform(products));
+        long transformed = System.nanoTime();
+        metrics.stage(PipelineMetrics.TRANSFORM).record(transformedProducts.size(), transformed - extracted);
 
-        List<Product> transformedProducts = transformer.transform(products);
         loader.loadTransformed(transformedProducts);
+        metrics.stage(PipelineMetrics.LOAD).record(transformedProducts.size(), System.nanoTime() - transformed);
+        recordFileSizes(config, loader, metrics);
+        return true;
+    }
+
+    /**
+     * Runs each stage over a columnar batch instead of a list of products.
+     * The summary, if enabled, reads the transformed columns and is timed as part of the transform stage.
+     *
+     * @return false if the input file could not be found or the output could not be written
+     */
+    private static boolean runColumnar(ETLConfig config, ProductExtractor extractor, ProductTransformer transformer,
+                                       ProductPostProcessor post, ProductLoader loader, PipelineMetrics metrics) {
+        long start = System.nanoTime();
+        ProductBatch batch = extractor.extractBatch();
+        if (batch == null) {
+            return false;
+        }
+        long extracted = System.nanoTime();
+        metrics.stage(PipelineMetrics.EXTRACT).record(batch.size(), extracted - start);
+
+        transformer.transform(batch);
+        post.record(batch);
+        long transformed = System.nanoTime();
+        metrics.stage(PipelineMetrics.TRANSFORM).record(batch.size(), transformed - extracted);
+
+        try {
+            loader.loadTransformed(batch);
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            return false;
+        }
+        metrics.stage(PipelineMetrics.LOAD).record(batch.size(), System.nanoTime() - transformed);
+        recordFileSizes(config, loader, metrics);
+        return true;
+    }
+
+    /**
+     * Runs each stage over an off-heap row store, which is freed as soon as the rows are loaded.
+     * The summary, if enabled, reads the transformed rows and is timed as part of the transform stage.
+     *
+     * @return false if the input file could not be found or the output could not be written
+     */
+    private static boolean runOffHeap(ETLConfig config, ProductExtractor extractor, ProductTransformer transformer,
+                                      ProductPostProcessor post, ProductLoader loader, PipelineMetrics metrics) {
+        long start = System.nanoTime();
+        try (OffHeapProductStore store = extractor.extractOffHeap()) {
+            if (store == null) {
+                return false;
+            }
+            long extracted = System.nanoTime();
+            metrics.stage(PipelineMetrics.EXTRACT).record(store.size(), extracted - start);
+
+            transformer.transform(store);
+            post.record(store);
+            long transformed = System.nanoTime();
+            metrics.stage(PipelineMetrics.TRANSFORM).record(store.size(), transformed - extracted);
+
+            loader.loadTransformed(store);
+            metrics.stage(PipelineMetrics.LOAD).record(store.size(), System.nanoTime() - transformed);
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            return false;
+        }
+        recordFileSizes(config, loader, metrics);
+        return true;
+    }
+
+    /**
+     * Pulls one row at a time from the extractor, transforms it and writes it
+     * immediately, so only the current row is ever held in memory.
+     * Each stage is timed per row.
+     *
+     * @return false if the input file could not be found or could not be read or written
+     */
+    private static boolean runStreaming(ETLConfig config, ProductExtractor extractor, ProductTransformer transformer,
+                                        ProductPostProcessor post, ProductLoader loader, PipelineMetrics metrics) {
+        StageMetrics.Recorder extract = metrics.stage(PipelineMetrics.EXTRACT).recorder();
+        StageMetrics.Recorder transform = metrics.stage(PipelineMetrics.TRANSFORM).recorder();
+        StageMetrics.Recorder load = metrics.stage(PipelineMetrics.LOAD).recorder();
+
+        try (ProductReader reader = extractor.openReader()) {
+            if (reader == null) {
+                return false;
+            }
 
-        System.out.println("Number of rows read: " + extractor.getRowsRead());
-        System.out.println("Number of rows transformed: " + transformer.getRowsTransformed());
-        System.out.println("Number of rows skipped: " + extractor.getRowsSkipped());
-        System.out.println("File created successfully at: " + config.getOutputFile());
+            try (ProductWriter writer = loader.openWriter()) {
+                Product product;
+                long start = System.nanoTime();
+                while ((product = reader.read()) != null) {
+                    long extracted = System.nanoTime();
+                    extract.record(1, extracted - start);
+
+                    post.record(transformer.transformProduct(product));
+                    long transformed = System.nanoTime();
+                    transform.record(1, transformed - extracted);
+                    writer.write(product);
+                    start = System.nanoTime();
+                    load.record(1, start - transformed);
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            return false;
+        } finally {
+            extract.flush();
+            transform.flush();
+            load.flush();
+        }
+        recordFileSizes(config, loader, metrics);
+        return true;
+    }
+
+    /**
+     * Records the size of the input file as bytes extracted and the size of
+     * the output as bytes loaded.
+     */
+    private static void recordFileSizes(ETLConfig config, ProductLoader loader, PipelineMetrics metrics) {
+        metrics.stage(PipelineMetrics.EXTRACT).addBytes(new File(config.getInputFile()).length());
+        metrics.stage(PipelineMetrics.LOAD).addBytes(loader.getOutputSize());
     }
-}
\ No newline at end of file
+}
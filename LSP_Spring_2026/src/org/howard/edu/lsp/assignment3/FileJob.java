@@ -0,0 +1,130 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.Callable;
+
+/**
+ * Streams one input file through the pipeline as a self-contained job.
+ * Each job has its own extractor and transformer, so its statistics are never
+ * shared; only the immutable compiled rules, the thread-safe metrics, the
+ * thread-safe reject log and the thread-safe summary are.
+ * Any number of jobs can therefore run at the same time on different threads.
+ */
+final class FileJob implements Callable<JobResult> {
+    private static final int MIN_WRITE_BUFFER_BYTES = 8 * 1024;
+
+    private final ETLConfig config;
+    private final TransformRules rules;
+    private final PipelineMetrics metrics;
+    private final RejectLog rejects;
+    private final ProductPostProcessor post;
+    private final boolean part;
+
+    /**
+     * Constructs a job.
+     *
+     * @param config the configuration naming the input and output files of this job
+     * @param rules the compiled rules to apply
+     * @param metrics the metrics the job reports into
+     * @param rejects the log that receives skipped rows, which may be shared with other jobs;
+     *                null to only report them on the console
+     * @param post the post-processor whose summary receives every transformed row, which
+     *             may be shared with other jobs; null for none
+     * @param part true if the output is one part of a merged output, which is written
+     *             uncompressed, unindexed and, for CSV, without a header row
+     */
+    FileJob(ETLConfig config, TransformRules rules, PipelineMetrics metrics, RejectLog rejects, ProductPostProcessor post, boolean part) {
+        this.config = config;
+        this.rules = rules;
+        this.metrics = metrics;
+        this.rejects = rejects;
+        this.post = post;
+        this.part = part;
+    }
+
+    /**
+     * Runs the job, timing every row in each stage.
+     *
+     * @return the statistics of the job
+     * @throws FileNotFoundException if the input file does not exist
+     * @throws IOException if the input cannot be read or the output cannot be written
+     */
+    @Override
+    public JobResult call() throws IOException {
+        long start = System.nanoTime();
+        File inputFile = new File(config.getInputFile());
+        if (!inputFile.isFile()) {
+            throw new FileNotFoundException("Input file " + config.getInputFile() + " not found");
+        }
+        long inputBytes = inputFile.length();
+
+        ProductExtractor extractor = new ProductExtractor(config);
+        if (rejects != null) {
+            extractor.setRejectLog(rejects);
+        }
+        ProductTransformer transformer = new ProductTransformer(rules, config.getNameCacheSize());
+        StageMetrics.Recorder extract = metrics.stage(PipelineMetrics.EXTRACT).recorder();
+        StageMetrics.Recorder transform = metrics.stage(PipelineMetrics.TRANSFORM).recorder();
+        StageMetrics.Recorder load = metrics.stage(PipelineMetrics.LOAD).recorder();
+
+        // Small inputs do not need the full write buffer; the output is about the size of the input
+        int bufferSize = (int) Math.min(config.getWriteBufferSize(), Math.max(inputBytes + inputBytes / 4, MIN_WRITE_BUFFER_BYTES));
+
+        try (ProductReader reader = extractor.openReader()) {
+            if (reader == null) {
+                throw new FileNotFoundException("Input file " + config.getInputFile() + " not found");
+            }
+
+            ProductIndex.Builder index = part ? null : ProductIndex.prepare(config);
+            OutputStream out = part
+                    ? Files.newOutputStream(Paths.get(config.getOutputFile()))
+                    : CompressionCodec.openOutput(config.getOutputFile(), config.getOutputCompression());
+            ProductWriter writer;
+            if (config.getOutputFormat() == OutputFormat.BINARY) {
+                BinaryProductWriter binary = new BinaryProductWriter(out);
+                binary.setIndex(index);
+                writer = binary;
+            } else {
+                CsvProductWriter csv = new CsvProductWriter(out, bufferSize, part ? null : CsvProductWriter.HEADER);
+                csv.setIndex(index);
+                writer = csv;
+            }
+            try (writer) {
+                Product product;
+                long mark = System.nanoTime();
+                while ((product = reader.read()) != null) {
+                    long extracted = System.nanoTime();
+                    extract.record(1, extracted - mark);
+
+                    transformer.transformProduct(product);
+                    if (post != null) {
+                        post.record(product);
+                    }
+                    long transformed = System.nanoTime();
+                    transform.record(1, transformed - extracted);
+
+                    writer.write(product);
+                    mark = System.nanoTime();
+                    load.record(1, mark - transformed);
+                }
+                load.addBytes(writer.getBytesWritten());
+            }
+        } finally {
+            extract.flush();
+            transform.flush();
+            load.flush();
+        }
+
+        extract.addBytes(inputBytes);
+        metrics.recordExtraction(extractor);
+        metrics.recordTransformation(transformer);
+        return new JobResult(Paths.get(config.getInputFile()), Paths.get(config.getOutputFile()),
+                extractor.getRowsRead(), transformer.getRowsTransformed(), extractor.getRowsSkipped(),
+                inputBytes, System.nanoTime() - start);
+    }
+}
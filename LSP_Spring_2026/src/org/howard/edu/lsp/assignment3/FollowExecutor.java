@@ -0,0 +1,406 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows an input file that another process keeps appending to, in the manner of
+ * {@code tail -f}. The rows already in the file are processed first; after that every
+ * complete line appended to the file is parsed, transformed and appended to the
+ * output, which is flushed as soon as the new lines are written.
+ * <p>
+ * The executor remembers the byte offset of the first line it has not consumed. It
+ * is woken by a {@link WatchService} on the input's directory, and checks the file at
+ * least every {@link ETLConfig#getPollIntervalMillis()} milliseconds in case the file
+ * system does not report changes. A trailing line without a terminator is kept until
+ * its terminator arrives, unless the file has been idle for the idle timeout or has
+ * been replaced, in which case it is complete and is processed.
+ * <p>
+ * A file that becomes shorter than the consumed offset was truncated, and is read
+ * again from its header. A file that was replaced, as log rotation does, is detected
+ * by its file key: the rest of the old file is read before the new file is followed
+ * from its header. The run ends when {@link #stop()} is called, when the JVM shuts
+ * down, or when the input has not grown for {@link ETLConfig#getIdleTimeoutMillis()}.
+ */
+public class FollowExecutor {
+    private static final int BUFFER_BYTES = 1024 * 1024;
+
+    private ETLConfig config;
+    private ProductExtractor extractor;
+    private ProductTransformer transformer;
+    private PipelineMetrics metrics;
+    private StageMetrics.Recorder extract;
+    private StageMetrics.Recorder transform;
+    private StageMetrics.Recorder load;
+
+    private volatile boolean stopped = false;
+    private Path inputPath;
+    private ByteRowParser parser;
+    private CsvProductWriter writer;
+    private FileChannel channel;
+    private Object fileKey;
+    private long offset;
+    private long bytesConsumed;
+    private boolean headerPending;
+    private boolean skipLineFeed;
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private int truncations = 0;
+    private int rotations = 0;
+
+    /**
+     * Constructs a FollowExecutor that reports into the given metrics.
+     *
+     * @param config the ETL configuration, including the poll interval and idle timeout
+     * @param extractor the extractor used to validate rows and keep row statistics
+     * @param transformer the transformer applied to every row
+     * @param metrics the metrics the stages report into
+     */
+    public FollowExecutor(ETLConfig config, ProductExtractor extractor, ProductTransformer transformer,
+                          PipelineMetrics metrics) {
+        this.config = config;
+        this.extractor = extractor;
+        this.transformer = transformer;
+        this.metrics = metrics;
+        this.extract = metrics.stage(PipelineMetrics.EXTRACT).recorder();
+        this.transform = metrics.stage(PipelineMetrics.TRANSFORM).recorder();
+        this.load = metrics.stage(PipelineMetrics.LOAD).recorder();
+    }
+
+    /**
+     * Processes the input and keeps following it until the run is stopped or the idle timeout passes.
+     *
+     * @return false if the input file could not be found, the input or output is not supported,
+     *         or the input could not be read or the output written
+     */
+    public boolean run() {
+        inputPath = Paths.get(config.getInputFile()).toAbsolutePath();
+        if (!Files.exists(inputPath)) {
+            System.out.println("Input file products.csv not found");
+            return false;
+        }
+        try {
+            if (CompressionCodec.forInput(config.getInputFile(), config.getInputCompression()) != CompressionCodec.NONE
+                    || CompressionCodec.forOutput(config.getOutputFile(), config.getOutputCompression()) != CompressionCodec.NONE
+                    || config.getOutputFormat() != OutputFormat.CSV) {
+                System.out.println("Follow mode supports uncompressed input and uncompressed CSV output only");
+                return false;
+            }
+            if (config.isIndexOutput()) {
+                // The output grows for as long as the run lasts, so there is no point at which to write an index
+                System.out.println("Follow mode output cannot be indexed");
+                return false;
+            }
+            // Removes the index of the previous output, which no longer matches the rewritten file
+            ProductIndex.prepare(config);
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            return false;
+        }
+
+        Thread runner = Thread.currentThread();
+        Thread hook = new Thread(() -> {
+            // Let the current lines finish so the statistics are printed on Ctrl+C
+            stop();
+            try {
+                runner.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(hook);
+
+        parser = new ByteRowParser(extractor, config.getDelimiter());
+        try (CsvProductWriter output = new CsvProductWriter(config.getOutputFile(), config.getWriteBufferSize());
+             WatchService watcher = openWatcher()) {
+            writer = output;
+            if (!open()) {
+                return false;
+            }
+            follow(watcher);
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            return false;
+        } finally {
+            extract.flush();
+            transform.flush();
+            load.flush();
+            closeChannel();
+            try {
+                Runtime.getRuntime().removeShutdownHook(hook);
+            } catch (IllegalStateException ex) {
+                // The JVM is already shutting down and the hook is waiting for this run
+            }
+        }
+        metrics.stage(PipelineMetrics.EXTRACT).addBytes(bytesConsumed);
+        metrics.stage(PipelineMetrics.LOAD).addBytes(new File(config.getOutputFile()).length());
+        return true;
+    }
+
+    /**
+     * Asks a running follow to finish; lines already read are still written and the input is not read again.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Returns the number of times the input was truncated while it was followed.
+     *
+     * @return the truncation count
+     */
+    public int getTruncations() {
+        return truncations;
+    }
+
+    /**
+     * Returns the number of times the input was replaced by a new file while it was followed.
+     *
+     * @return the rotation count
+     */
+    public int getRotations() {
+        return rotations;
+    }
+
+    /**
+     * Reads new lines whenever the input changes, until stopped or idle for too long.
+     */
+    private void follow(WatchService watcher) throws IOException {
+        long idleTimeout = TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeoutMillis());
+        long lastActivity = System.nanoTime();
+        while (!stopped) {
+            if (poll()) {
+                lastActivity = System.nanoTime();
+            } else if (idleTimeout > 0 && System.nanoTime() - lastActivity >= idleTimeout) {
+                break;
+            } else {
+                await(watcher);
+            }
+        }
+        // The input is quiet or the run is ending, so an unterminated last line is complete
+        processLines(true);
+        writer.flush();
+    }
+
+    /**
+     * Checks the input once for truncation, rotation and new lines.
+     *
+     * @return true if any bytes were read
+     */
+    private boolean poll() throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(inputPath, BasicFileAttributes.class);
+        } catch (NoSuchFileException ex) {
+            // Between the rename and the creation of the new file; keep reading the old one
+            attributes = null;
+        }
+
+        if (attributes != null && attributes.fileKey() != null && !attributes.fileKey().equals(fileKey)) {
+            // Finish the old file, which stays readable through the open channel
+            readAvailable();
+            processLines(true);
+            writer.flush();
+            rotations++;
+            System.out.println("Input file was replaced, following the new file");
+            closeChannel();
+            if (!open()) {
+                stopped = true;
+            }
+            return true;
+        }
+        // The size was taken before this read, so it can only be smaller if the file was cut
+        if (attributes != null && attributes.size() < offset + buffer.position()) {
+            truncations++;
+            System.out.println("Input file was truncated, reading it from the beginning");
+            buffer.clear();
+            offset = 0;
+            headerPending = true;
+            skipLineFeed = false;
+        }
+        return readAvailable();
+    }
+
+    /**
+     * Opens the input file at its beginning and reads what it contains.
+     *
+     * @return false if the file could not be opened
+     */
+    private boolean open() throws IOException {
+        try {
+            channel = FileChannel.open(inputPath, StandardOpenOption.READ);
+        } catch (NoSuchFileException ex) {
+            System.out.println("Input file products.csv not found");
+            return false;
+        }
+        fileKey = Files.readAttributes(inputPath, BasicFileAttributes.class).fileKey();
+        buffer.clear();
+        offset = 0;
+        headerPending = true;
+        skipLineFeed = false;
+        readAvailable();
+        return true;
+    }
+
+    /**
+     * Reads every byte appended since the last read and processes the complete lines among them.
+     *
+     * @return true if any bytes were read
+     */
+    private boolean readAvailable() throws IOException {
+        boolean read = false;
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                // A line longer than the buffer; grow it so the line fits
+                ByteBuffer larger = ByteBuffer.allocate(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+            int n = channel.read(buffer, offset + buffer.position());
+            if (n <= 0) {
+                break;
+            }
+            read = true;
+            bytesConsumed += n;
+            processLines(false);
+        }
+        if (read) {
+            writer.flush();
+        }
+        return read;
+    }
+
+    /**
+     * Parses, transforms and writes the complete lines in the buffer and keeps the rest.
+     *
+     * @param endOfInput whether bytes after the last terminator form a complete line
+     */
+    private void processLines(boolean endOfInput) throws IOException {
+        int limit = buffer.position();
+        int lineStart = 0;
+        if (skipLineFeed && limit > 0) {
+            // The previous line ended with the '\r' of a "\r\n" split across two reads
+            skipLineFeed = false;
+            if (buffer.get(0) == '\n') {
+                lineStart = 1;
+            }
+        }
+        long start = System.nanoTime();
+        for (int i = lineStart; i <= limit; i++) {
+            int lineEnd;
+            if (i < limit) {
+                byte b = buffer.get(i);
+                if (b != '\n' && b != '\r') {
+                    continue;
+                }
+                lineEnd = i;
+                if (b == '\r') {
+                    if (i + 1 < limit) {
+                        if (buffer.get(i + 1) == '\n') {
+                            i++;
+                        }
+                    } else {
+                        skipLineFeed = true;
+                    }
+                }
+            } else if (endOfInput && lineStart < limit) {
+                lineEnd = limit;
+            } else {
+                break;
+            }
+
+            if (headerPending) {
+                headerPending = false;
+            } else {
+                Product product = parser.parse(buffer, lineStart, lineEnd);
+                if (product != null) {
+                    long extracted = System.nanoTime();
+                    extract.record(1, extracted - start);
+                    transformer.transformProduct(product);
+                    long transformed = System.nanoTime();
+                    transform.record(1, transformed - extracted);
+                    writer.write(product);
+                    start = System.nanoTime();
+                    load.record(1, start - transformed);
+                }
+            }
+            lineStart = Math.min(i + 1, limit);
+        }
+
+        // Keep the unterminated tail at the front of the buffer
+        offset += lineStart;
+        buffer.flip();
+        buffer.position(lineStart);
+        buffer.compact();
+    }
+
+    /**
+     * Waits until the input's directory reports a change or the poll interval passes.
+     */
+    private void await(WatchService watcher) throws IOException {
+        int interval = config.getPollIntervalMillis();
+        try {
+            if (watcher == null) {
+                Thread.sleep(interval);
+                return;
+            }
+            WatchKey key = watcher.poll(interval, TimeUnit.MILLISECONDS);
+            if (key != null) {
+                key.pollEvents();
+                key.reset();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        } catch (ClosedWatchServiceException ex) {
+            stopped = true;
+        }
+    }
+
+    /**
+     * Watches the input's directory, or returns null if its file system cannot be watched,
+     * in which case the input is polled.
+     */
+    private WatchService openWatcher() {
+        Path directory = inputPath.getParent();
+        try {
+            WatchService watcher = FileSystems.getDefault().newWatchService();
+            try {
+                directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            } catch (IOException | UnsupportedOperationException ex) {
+                watcher.close();
+                return null;
+            }
+            return watcher;
+        } catch (IOException | UnsupportedOperationException ex) {
+            return null;
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+        }
+        channel = null;
+    }
+}
@@ -0,0 +1,497 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reruns the pipeline while reusing the work of the previous run.
+ * A state file keeps, for every ProductID, a content hash of its input rows together
+ * with the 64-bit hash and the output of each of those rows. On the next run each
+ * input row is hashed and looked up: rows seen before reuse their stored output
+ * without being parsed or transformed, and only new or edited rows go through the
+ * extractor and transformer. A ProductID is then inserted, updated or deleted when
+ * it is new, when its rows differ in any way, including a row added or removed, or
+ * when it no longer appears. If the input file has the same size and modification
+ * time as in the previous run, it is only read to compare a hash of its content with
+ * the one stored in the state, and nothing is parsed or written when they match.
+ * <p>
+ * The run either rewrites the full output file or, when a delta file is configured,
+ * writes only the changed ProductIDs to it. The delta is applied per ProductID: the
+ * INSERT or UPDATE records of a ProductID carry all of its current rows, which replace
+ * every row it had before, and a DELETE record removes all of its rows. A ProductID
+ * repeated in the input therefore never leaves a stale row behind.
+ */
+public class IncrementalExecutor {
+    private static final int STATE_MAGIC = 0x4C535049; // "LSPI"
+    private static final int STATE_VERSION = 3;
+    private static final String DELTA_HEADER = "Change,ProductID,Name,Price,Category,PriceRange";
+    private static final long EMPTY_CONTENT = 0xcbf29ce484222325L;
+
+    private ETLConfig config;
+    private ProductExtractor extractor;
+    private ProductTransformer transformer;
+    private PipelineMetrics metrics;
+
+    private int productsInserted = 0;
+    private int productsUpdated = 0;
+    private int productsDeleted = 0;
+    private int productsUnchanged = 0;
+
+    /**
+     * Constructs an IncrementalExecutor over the given pipeline components.
+     *
+     * @param config the ETL configuration, including the state and delta file settings
+     * @param extractor the extractor used to validate changed rows and keep row statistics
+     * @param transformer the transformer applied to changed rows
+     */
+    public IncrementalExecutor(ETLConfig config, ProductExtractor extractor, ProductTransformer transformer) {
+        this(config, extractor, transformer, new PipelineMetrics());
+    }
+
+    /**
+     * Constructs an IncrementalExecutor that reports into the given metrics.
+     * Reading, hashing and validating a row counts as extraction; reused rows
+     * skip the transform stage entirely.
+     *
+     * @param config the ETL configuration, including the state and delta file settings
+     * @param extractor the extractor used to validate changed rows and keep row statistics
+     * @param transformer the transformer applied to changed rows
+     * @param metrics the metrics the stages report into
+     */
+    public IncrementalExecutor(ETLConfig config, ProductExtractor extractor, ProductTransformer transformer,
+                               PipelineMetrics metrics) {
+        this.config = config;
+        this.extractor = extractor;
+        this.transformer = transformer;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Runs the pipeline incrementally and updates the state file.
+     *
+     * @return false if the input file could not be found, the output format is not CSV,
+     *         or the input, output or state file could not be read or written
+     */
+    public boolean run() {
+        if (config.getOutputFormat() != OutputFormat.CSV) {
+            // Unchanged rows are reused as stored CSV text, which only a CSV output can take
+            System.out.println("Incremental mode supports CSV output only");
+            return false;
+        }
+        File inputFile = new File(config.getInputFile());
+        if (!inputFile.exists()) {
+            System.out.println("Input file products.csv not found");
+            return false;
+        }
+
+        Path statePath = Paths.get(config.getStateFile());
+        try {
+            State previous = State.read(statePath, fingerprint());
+            boolean deltaOnly = config.getDeltaFile() != null;
+            boolean outputReady = deltaOnly || (previous.outputWritten && new File(config.getOutputFile()).exists());
+            if (outputReady && previous.matches(inputFile) && previous.contentHash == contentHash()) {
+                productsUnchanged = previous.products.size();
+                if (deltaOnly) {
+                    // Leave no changes behind from the previous run, so they are not applied twice
+                    new CsvProductWriter(CompressionCodec.openOutput(config.getDeltaFile(), null),
+                            config.getWriteBufferSize(), DELTA_HEADER).close();
+                }
+                System.out.println("No changes detected in " + config.getInputFile());
+                return true;
+            }
+
+            State current = new State(inputFile.length(), inputFile.lastModified(), fingerprint());
+            if (deltaOnly) {
+                writeDelta(previous, current);
+            } else {
+                writeFullOutput(previous, current);
+                current.outputWritten = true;
+            }
+            current.write(statePath);
+
+            System.out.println("ProductIDs inserted: " + productsInserted + ", updated: " + productsUpdated
+                    + ", deleted: " + productsDeleted + ", unchanged: " + productsUnchanged);
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Rewrites the whole output file, reusing the stored output of unchanged rows,
+     * and rebuilds or deletes its index.
+     */
+    private void writeFullOutput(State previous, State current) throws IOException {
+        ProductIndex.Builder index = ProductIndex.prepare(config);
+        try (CsvProductWriter writer = new CsvProductWriter(
+                CompressionCodec.openOutput(config.getOutputFile(), config.getOutputCompression()), config.getWriteBufferSize())) {
+            writer.setIndex(index);
+            processInput(previous, current, writer);
+        }
+        metrics.stage(PipelineMetrics.LOAD).addBytes(new File(config.getOutputFile()).length());
+        compare(previous, current, null);
+    }
+
+    /**
+     * Writes only the ProductIDs that changed since the previous run. Whether a ProductID
+     * changed is only known once all of its rows have been read, so the delta is written
+     * after the input, from the output rows kept in the new state.
+     */
+    private void writeDelta(State previous, State current) throws IOException {
+        processInput(previous, current, null);
+        long start = System.nanoTime();
+        int written;
+        try (CsvProductWriter delta = new CsvProductWriter(CompressionCodec.openOutput(config.getDeltaFile(), null),
+                config.getWriteBufferSize(), DELTA_HEADER)) {
+            written = compare(previous, current, delta);
+        }
+        StageMetrics load = metrics.stage(PipelineMetrics.LOAD);
+        load.record(written, System.nanoTime() - start);
+        load.addBytes(new File(config.getDeltaFile()).length());
+    }
+
+    /**
+     * Reads every input row, transforming only rows that did not appear in the
+     * previous run, and records the result of each valid row in the new state.
+     */
+    private void processInput(State previous, State current, CsvProductWriter output) throws IOException {
+        Map<Long, Entry> previousRows = previous.rowsByHash();
+        StageMetrics.Recorder extract = metrics.stage(PipelineMetrics.EXTRACT).recorder();
+        StageMetrics.Recorder transform = metrics.stage(PipelineMetrics.TRANSFORM).recorder();
+        StageMetrics.Recorder load = metrics.stage(PipelineMetrics.LOAD).recorder();
+        CompressionCodec codec = CompressionCodec.forInput(config.getInputFile(), config.getInputCompression());
+        try (BufferedReader reader = ProductExtractor.openTextReader(config.getInputFile(), codec)) {
+            String line = reader.readLine(); // read header once
+            long content = line == null ? EMPTY_CONTENT : addToContentHash(EMPTY_CONTENT, hash(line));
+            long start = System.nanoTime();
+            while ((line = reader.readLine()) != null) {
+                long hash = hash(line);
+                content = addToContentHash(content, hash);
+                Entry stored = previousRows.get(hash);
+
+                if (stored != null && stored.check == line.hashCode()) {
+                    extractor.recordRow();
+                    current.add(stored);
+                    long extracted = System.nanoTime();
+                    extract.record(1, extracted - start);
+                    if (output != null) {
+                        output.writeRow(stored.outputRow);
+                    }
+                    start = System.nanoTime();
+                    load.record(output != null ? 1 : 0, start - extracted);
+                    continue;
+                }
+
+                Product product = extractor.parseLine(line);
+                long extracted = System.nanoTime();
+                extract.record(product == null ? 0 : 1, extracted - start);
+                if (product == null) {
+                    start = extracted;
+                    continue;
+                }
+                String outputRow = CsvProductWriter.formatRow(transformer.transformProduct(product));
+                current.add(new Entry(product.getProductId(), hash, line.hashCode(), outputRow));
+                long transformed = System.nanoTime();
+                transform.record(1, transformed - extracted);
+
+                if (output != null) {
+                    output.writeRow(outputRow);
+                }
+                start = System.nanoTime();
+                load.record(output != null ? 1 : 0, start - transformed);
+            }
+            current.contentHash = content;
+        } finally {
+            extract.flush();
+            transform.flush();
+            load.flush();
+        }
+        extract.addBytes(new File(config.getInputFile()).length());
+    }
+
+    /**
+     * Counts the inserted, updated, deleted and unchanged ProductIDs and, if a delta is
+     * given, writes a record for every row of each changed ProductID.
+     *
+     * @return the number of delta records written
+     */
+    private int compare(State previous, State current, CsvProductWriter delta) throws IOException {
+        int written = 0;
+        for (Map.Entry<String, ProductRows> product : current.products.entrySet()) {
+            ProductRows before = previous.products.get(product.getKey());
+            String change;
+            if (before == null) {
+                productsInserted++;
+                change = "INSERT,";
+            } else if (!before.sameRows(product.getValue())) {
+                productsUpdated++;
+                change = "UPDATE,";
+            } else {
+                productsUnchanged++;
+                continue;
+            }
+            if (delta != null) {
+                for (Entry row : product.getValue().rows) {
+                    delta.writeRow(change + row.outputRow);
+                    written++;
+                }
+            }
+        }
+        for (String productId : previous.products.keySet()) {
+            if (!current.products.containsKey(productId)) {
+                productsDeleted++;
+                if (delta != null) {
+                    delta.writeRow("DELETE," + productId);
+                    written++;
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Identifies the settings that affect the output, so a state written with
+     * different settings is never reused.
+     */
+    private String fingerprint() {
+        return "delimiter=" + config.getDelimiter() + ";rules=" + transformer.getRules()
+                + ";outputCompression=" + config.getOutputCompression();
+    }
+
+    /**
+     * Hashes the content of the input file the way {@link #processInput} does while it reads.
+     */
+    private long contentHash() throws IOException {
+        CompressionCodec codec = CompressionCodec.forInput(config.getInputFile(), config.getInputCompression());
+        long content = EMPTY_CONTENT;
+        try (BufferedReader reader = ProductExtractor.openTextReader(config.getInputFile(), codec)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                content = addToContentHash(content, hash(line));
+            }
+        }
+        return content;
+    }
+
+    /**
+     * Folds the hash of the next line, header included, into the hash of the content read so far.
+     */
+    private static long addToContentHash(long content, long lineHash) {
+        return (content ^ lineHash) * 0x100000001b3L;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of a row.
+     */
+    static long hash(String line) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < line.length(); i++) {
+            hash ^= line.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the number of ProductIDs that were not in the previous run.
+     *
+     * @return the number of inserted ProductIDs
+     */
+    public int getProductsInserted() {
+        return productsInserted;
+    }
+
+    /**
+     * Returns the number of ProductIDs whose rows changed since the previous run.
+     *
+     * @return the number of updated ProductIDs
+     */
+    public int getProductsUpdated() {
+        return productsUpdated;
+    }
+
+    /**
+     * Returns the number of ProductIDs from the previous run that no longer appear.
+     *
+     * @return the number of deleted ProductIDs
+     */
+    public int getProductsDeleted() {
+        return productsDeleted;
+    }
+
+    /**
+     * Returns the number of ProductIDs whose rows are all the same as in the previous run.
+     *
+     * @return the number of unchanged ProductIDs
+     */
+    public int getProductsUnchanged() {
+        return productsUnchanged;
+    }
+
+    /**
+     * Hash and output row stored for one input row. The row's String hashCode
+     * is kept as an independent check against collisions of the 64-bit hash.
+     */
+    private static class Entry {
+        private final String productId;
+        private final long hash;
+        private final int check;
+        private final String outputRow;
+
+        Entry(String productId, long hash, int check, String outputRow) {
+            this.productId = productId;
+            this.hash = hash;
+            this.check = check;
+            this.outputRow = outputRow;
+        }
+    }
+
+    /**
+     * The rows of one ProductID in input order, and a content hash over all of them.
+     */
+    private static class ProductRows {
+        private final List<Entry> rows = new ArrayList<>(1);
+        private long contentHash = EMPTY_CONTENT;
+
+        void add(Entry row) {
+            rows.add(row);
+            contentHash = addToContentHash(contentHash, row.hash);
+        }
+
+        boolean sameRows(ProductRows other) {
+            if (contentHash != other.contentHash || rows.size() != other.rows.size()) {
+                return false;
+            }
+            for (int i = 0; i < rows.size(); i++) {
+                if (rows.get(i).check != other.rows.get(i).check) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Persisted result of a run: the input file it was built from and a hash of its
+     * content, whether the full output file was written from it, and the rows of every
+     * ProductID in order of first appearance.
+     */
+    private static class State {
+        private final long inputSize;
+        private final long inputModified;
+        private final String fingerprint;
+        private final Map<String, ProductRows> products = new LinkedHashMap<>();
+        private long contentHash;
+        private boolean outputWritten;
+
+        State(long inputSize, long inputModified, String fingerprint) {
+            this.inputSize = inputSize;
+            this.inputModified = inputModified;
+            this.fingerprint = fingerprint;
+        }
+
+        void add(Entry row) {
+            products.computeIfAbsent(row.productId, id -> new ProductRows()).add(row);
+        }
+
+        /**
+         * Indexes the stored rows by their hash, so unchanged input rows can be found without parsing them.
+         */
+        Map<Long, Entry> rowsByHash() {
+            Map<Long, Entry> rows = new HashMap<>();
+            for (ProductRows product : products.values()) {
+                for (Entry row : product.rows) {
+                    rows.put(row.hash, row);
+                }
+            }
+            return rows;
+        }
+
+        /**
+         * Checks the size and modification time of the input; only a hint, confirmed by the content hash.
+         */
+        boolean matches(File inputFile) {
+            return inputSize == inputFile.length() && inputModified == inputFile.lastModified();
+        }
+
+        /**
+         * Reads a state file; a missing, unreadable or incompatible file yields an empty state.
+         */
+        static State read(Path path, String fingerprint) {
+            State empty = new State(-1, -1, fingerprint);
+            if (!Files.exists(path)) {
+                return empty;
+            }
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                if (in.readInt() != STATE_MAGIC || in.readInt() != STATE_VERSION) {
+                    return empty;
+                }
+                State state = new State(in.readLong(), in.readLong(), in.readUTF());
+                if (!state.fingerprint.equals(fingerprint)) {
+                    return empty;
+                }
+                state.contentHash = in.readLong();
+                state.outputWritten = in.readBoolean();
+                int productCount = in.readInt();
+                for (int i = 0; i < productCount; i++) {
+                    String productId = in.readUTF();
+                    int rowCount = in.readInt();
+                    for (int j = 0; j < rowCount; j++) {
+                        state.add(new Entry(productId, in.readLong(), in.readInt(), in.readUTF()));
+                    }
+                }
+                return state;
+            } catch (EOFException ex) {
+                return empty;
+            } catch (IOException ex) {
+                System.err.println("Ignoring unreadable state file: " + ex.getMessage());
+                return empty;
+            }
+        }
+
+        /**
+         * Writes the state to a temporary file and moves it into place, so a crash
+         * never leaves a half written state behind.
+         */
+        void write(Path path) throws IOException {
+            Path absolute = path.toAbsolutePath();
+            Path temp = absolute.resolveSibling(absolute.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(STATE_MAGIC);
+                out.writeInt(STATE_VERSION);
+                out.writeLong(inputSize);
+                out.writeLong(inputModified);
+                out.writeUTF(fingerprint);
+                out.writeLong(contentHash);
+                out.writeBoolean(outputWritten);
+                out.writeInt(products.size());
+                for (Map.Entry<String, ProductRows> product : products.entrySet()) {
+                    out.writeUTF(product.getKey());
+                    out.writeInt(product.getValue().rows.size());
+                    for (Entry row : product.getValue().rows) {
+                        out.writeLong(row.hash);
+                        out.writeInt(row.check);
+                        out.writeUTF(row.outputRow);
+                    }
+                }
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
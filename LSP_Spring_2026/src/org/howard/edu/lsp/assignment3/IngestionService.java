@@ -0,0 +1,282 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Long-lived service that runs many ETL jobs concurrently in one JVM.
+ * Each submitted job is prepared on its own virtual thread (where the JVM supports
+ * them; otherwise on a cached pool of platform threads): the input is checked, the
+ * output directory is created and the rules file is compiled, or taken from a cache
+ * of compiled rules. The row-by-row extract, transform and load work then runs on a
+ * fixed pool of platform threads, so CPU use stays bounded however many jobs are
+ * waiting. No thread blocks while a job waits for the pool.
+ * <p>
+ * Jobs share nothing mutable except the thread-safe metrics, so they may run in any order
+ * and at any concurrency.
+ */
+public class IngestionService implements Closeable {
+    private final ExecutorService jobThreads;
+    private final ExecutorService workers;
+    private final boolean virtualThreads;
+    private final TransformRules defaultRules = TransformRules.defaults();
+    private final Map<String, TransformRules> compiledRules = new ConcurrentHashMap<>();
+    private final Map<String, RejectLog> rejectLogs = new HashMap<>();
+    private final PipelineMetrics metrics = new PipelineMetrics();
+    private final LongAdder jobsSubmitted = new LongAdder();
+    private final LongAdder jobsCompleted = new LongAdder();
+    private final LongAdder jobsFailed = new LongAdder();
+
+    /**
+     * Constructs a service with one worker thread per available processor.
+     */
+    public IngestionService() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a service with the given number of worker threads.
+     *
+     * @param workerCount the number of platform threads running extract, transform and load
+     */
+    public IngestionService(int workerCount) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("workerCount must be at least 1");
+        }
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.jobThreads = virtual != null ? virtual : Executors.newCachedThreadPool();
+        this.workers = Executors.newFixedThreadPool(workerCount);
+    }
+
+    /**
+     * Submits a job that reads one file and writes one file.
+     *
+     * @param inputFile the path to the input CSV file
+     * @param outputFile the path to the output CSV file
+     * @param settings the remaining settings of the job, such as the delimiter and rules file
+     * @return a future completed with the statistics of the job, or exceptionally if it failed
+     */
+    public CompletableFuture<JobResult> submit(String inputFile, String outputFile, ETLConfig settings) {
+        return submit(new ETLConfig(settings, inputFile, outputFile));
+    }
+
+    /**
+     * Submits a job described by a configuration.
+     *
+     * @param job the configuration naming the input and output files of the job
+     * @return a future completed with the statistics of the job, or completed exceptionally
+     *         with the IOException or IllegalArgumentException that made it fail
+     */
+    public CompletableFuture<JobResult> submit(ETLConfig job) {
+        jobsSubmitted.increment();
+        return CompletableFuture.supplyAsync(() -> prepare(job), jobThreads)
+                .thenApplyAsync(IngestionService::run, workers)
+                .whenComplete((result, failure) -> {
+                    if (failure == null) {
+                        jobsCompleted.increment();
+                    } else {
+                        jobsFailed.increment();
+                    }
+                });
+    }
+
+    /**
+     * Does the blocking, non CPU-bound part of a job on its job thread.
+     */
+    private FileJob prepare(ETLConfig job) {
+        try {
+            if (!new File(job.getInputFile()).isFile()) {
+                throw new FileNotFoundException("Input file " + job.getInputFile() + " not found");
+            }
+            File parent = new File(job.getOutputFile()).getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+                throw new IOException("Could not create output directory " + parent);
+            }
+            return new FileJob(job, rulesFor(job), metrics, rejectsFor(job), null, false);
+        } catch (IOException | IllegalArgumentException ex) {
+            throw new CompletionException(ex);
+        }
+    }
+
+    /**
+     * Does the row-by-row work of a job on a worker thread.
+     */
+    private static JobResult run(FileJob job) {
+        try {
+            return job.call();
+        } catch (IOException ex) {
+            throw new CompletionException(ex);
+        }
+    }
+
+    /**
+     * Returns the compiled rules of a job, compiling each rules file only once.
+     */
+    private TransformRules rulesFor(ETLConfig job) throws IOException {
+        String rulesFile = job.getRulesFile();
+        if (rulesFile == null) {
+            return defaultRules;
+        }
+        TransformRules rules = compiledRules.get(rulesFile);
+        if (rules == null) {
+            rules = TransformRules.load(rulesFile);
+            compiledRules.putIfAbsent(rulesFile, rules);
+        }
+        return rules;
+    }
+
+    /**
+     * Returns the reject log of a job. Jobs naming the same reject file share one log,
+     * which stays open until the service is closed.
+     */
+    private synchronized RejectLog rejectsFor(ETLConfig job) throws IOException {
+        String rejectFile = job.getRejectFile();
+        if (rejectFile == null) {
+            return null;
+        }
+        RejectLog rejects = rejectLogs.get(rejectFile);
+        if (rejects == null) {
+            rejects = RejectLog.open(job);
+            rejectLogs.put(rejectFile, rejects);
+        }
+        return rejects;
+    }
+
+    /**
+     * Returns whether jobs are prepared on virtual threads.
+     *
+     * @return true if the JVM supports virtual threads
+     */
+    public boolean isUsingVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * Returns the metrics shared by every job of this service.
+     *
+     * @return the metrics
+     */
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the number of jobs submitted.
+     *
+     * @return the job count
+     */
+    public long getJobsSubmitted() {
+        return jobsSubmitted.sum();
+    }
+
+    /**
+     * Returns the number of jobs that completed successfully.
+     *
+     * @return the job count
+     */
+    public long getJobsCompleted() {
+        return jobsCompleted.sum();
+    }
+
+    /**
+     * Returns the number of jobs that failed.
+     *
+     * @return the job count
+     */
+    public long getJobsFailed() {
+        return jobsFailed.sum();
+    }
+
+    /**
+     * Stops accepting jobs, waits for the submitted ones to finish and closes the reject files.
+     */
+    @Override
+    public void close() {
+        jobThreads.shutdown();
+        try {
+            // Jobs move from the job threads to the workers, so the job threads must drain first
+            jobThreads.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            workers.shutdown();
+            workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+        synchronized (this) {
+            for (RejectLog rejects : rejectLogs.values()) {
+                try {
+                    rejects.close();
+                } catch (IOException ex) {
+                    System.err.println(ex.getMessage());
+                }
+            }
+            rejectLogs.clear();
+        }
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task, if the JVM has one.
+     * Looked up reflectively so the service still runs on releases without virtual threads.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs the service over jobs read from standard input until it is closed.
+     * Each line holds an input path and an output path separated by whitespace,
+     * optionally followed by a rules file. A line is printed for every finished job.
+     *
+     * @param args an optional worker count
+     */
+    public static void main(String[] args) {
+        int workerCount = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+
+        try (IngestionService service = new IngestionService(workerCount);
+             BufferedReader in = new BufferedReader(new InputStreamReader(System.in))) {
+            System.out.println("Ingestion service started" + (service.isUsingVirtualThreads() ? " on virtual threads" : ""));
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.trim().split("\\s+");
+                if (parts.length < 2) {
+                    if (!line.trim().isEmpty()) {
+                        System.out.println("Expected: <input> <output> [rules]");
+                    }
+                    continue;
+                }
+                ETLConfig job = new ETLConfig(parts[0], parts[1], ",");
+                if (parts.length > 2) {
+                    job.setRulesFile(parts[2]);
+                }
+                service.submit(job).whenComplete((result, failure) -> {
+                    if (failure != null) {
+                        Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                        System.err.println(parts[0] + ": " + cause.getMessage());
+                    } else {
+                        System.out.println(result);
+                    }
+                });
+            }
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from int keys to non-negative int values, stored in two primitive arrays.
+ * Keys are placed by open addressing with linear probing, so lookups never box a key
+ * or follow a pointer to an entry object. The table doubles when it is half full.
+ * Not thread-safe.
+ */
+final class IntIntMap {
+    /** Returned by {@link #get} and {@link #put} when the key is not present. */
+    static final int MISSING = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    /**
+     * Constructs a map with room for the given number of keys before it grows.
+     *
+     * @param expectedSize the expected number of keys
+     */
+    IntIntMap(int expectedSize) {
+        long capacity = Long.highestOneBit(Math.max(expectedSize, 8) * 2L - 1) << 1;
+        allocate((int) Math.min(capacity, 1 << 30));
+    }
+
+    /**
+     * Returns the value of a key.
+     *
+     * @param key the key
+     * @return the value, or {@link #MISSING} if the key is not present
+     */
+    int get(int key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            int value = values[slot];
+            if (value == MISSING || keys[slot] == key) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Associates a value with a key.
+     *
+     * @param key the key
+     * @param value the value, which must not be negative
+     * @return the previous value of the key, or {@link #MISSING} if it was not present
+     */
+    int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must not be negative");
+        }
+        int slot = slot(key);
+        for (; values[slot] != MISSING; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+        return MISSING;
+    }
+
+    /**
+     * Returns the number of keys.
+     *
+     * @return the key count
+     */
+    int size() {
+        return size;
+    }
+
+    private int slot(int key) {
+        // Fibonacci hashing spreads sequential ids across the table
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != MISSING) {
+                int slot = slot(oldKeys[i]);
+                while (values[slot] != MISSING) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.nio.file.Path;
+
+/**
+ * Statistics for one input file run through the pipeline as a single job.
+ */
+public class JobResult {
+    private final Path input;
+    private final Path output;
+    private final int rowsRead;
+    private final int rowsTransformed;
+    private final int rowsSkipped;
+    private final long inputBytes;
+    private final long nanos;
+
+    JobResult(Path input, Path output, int rowsRead, int rowsTransformed, int rowsSkipped, long inputBytes, long nanos) {
+        this.input = input;
+        this.output = output;
+        this.rowsRead = rowsRead;
+        this.rowsTransformed = rowsTransformed;
+        this.rowsSkipped = rowsSkipped;
+        this.inputBytes = inputBytes;
+        this.nanos = nanos;
+    }
+
+    /**
+     * Returns the input file.
+     *
+     * @return the input file
+     */
+    public Path getInput() {
+        return input;
+    }
+
+    /**
+     * Returns the output file.
+     *
+     * @return the output file
+     */
+    public Path getOutput() {
+        return output;
+    }
+
+    /**
+     * Returns the number of rows read from the file.
+     *
+     * @return the number of rows read from the file
+     */
+    public int getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * Returns the number of rows transformed.
+     *
+     * @return the number of rows transformed
+     */
+    public int getRowsTransformed() {
+        return rowsTransformed;
+    }
+
+    /**
+     * Returns the number of rows skipped.
+     *
+     * @return the number of rows skipped
+     */
+    public int getRowsSkipped() {
+        return rowsSkipped;
+    }
+
+    /**
+     * Returns the size of the input file in bytes.
+     *
+     * @return the size of the input file in bytes
+     */
+    public long getInputBytes() {
+        return inputBytes;
+    }
+
+    /**
+     * Returns the time taken to process the file, in nanoseconds.
+     *
+     * @return the time taken to process the file, in nanoseconds
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return input + ": rows read " + rowsRead + ", transformed " + rowsTransformed
+                + ", skipped " + rowsSkipped + " in " + (nanos / 1_000_000) + " ms";
+    }
+}
@@ -0,0 +1,132 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of latencies in nanoseconds with power-of-two buckets.
+ * Bucket 0 counts zero latencies and bucket i counts latencies in
+ * [2^(i-1), 2^i) nanoseconds, so recording a value is one leading-zero count,
+ * one bucket increment and one addition to the sum; the total count is summed
+ * from the buckets when it is read. Safe to update from many threads at once.
+ */
+public final class LatencyHistogram {
+    /** Number of buckets; the last one holds latencies of 2^62 nanoseconds and more. */
+    public static final int BUCKET_COUNT = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * Constructs an empty histogram.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records one latency. Negative values are counted as zero.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        buckets[bucketFor(value)].increment();
+        sum.add(value);
+    }
+
+    /**
+     * Adds latencies that were counted elsewhere, such as in a {@link StageMetrics.Recorder}.
+     *
+     * @param bucketCounts the number of latencies per bucket
+     * @param nanos the sum of those latencies
+     */
+    void add(long[] bucketCounts, long nanos) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (bucketCounts[i] != 0) {
+                buckets[i].add(bucketCounts[i]);
+            }
+        }
+        sum.add(nanos);
+    }
+
+    /**
+     * Returns the bucket that counts a latency.
+     *
+     * @param nanos a latency of at least zero nanoseconds
+     * @return the bucket index
+     */
+    static int bucketFor(long nanos) {
+        return Math.min(64 - Long.numberOfLeadingZeros(nanos), BUCKET_COUNT - 1);
+    }
+
+    /**
+     * Returns the number of latencies recorded in a bucket.
+     *
+     * @param bucket the bucket index
+     * @return the bucket count
+     */
+    public long getBucketCount(int bucket) {
+        return buckets[bucket].sum();
+    }
+
+    /**
+     * Returns the exclusive upper bound of a bucket in nanoseconds.
+     *
+     * @param bucket the bucket index
+     * @return 2^bucket, or Long.MAX_VALUE for the last bucket
+     */
+    public static long getUpperBound(int bucket) {
+        return bucket >= BUCKET_COUNT - 1 ? Long.MAX_VALUE : 1L << bucket;
+    }
+
+    /**
+     * Returns the number of latencies recorded.
+     *
+     * @return the total count
+     */
+    public long getCount() {
+        long total = 0;
+        for (LongAdder bucket : buckets) {
+            total += bucket.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the sum of all recorded latencies.
+     *
+     * @return the total in nanoseconds
+     */
+    public long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * Estimates a percentile as the upper bound of the bucket that contains it.
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the estimated latency in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentile(double percentile) {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) {
+                return getUpperBound(i);
+            }
+        }
+        return getUpperBound(BUCKET_COUNT - 1);
+    }
+}
@@ -0,0 +1,142 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads products from a memory-mapped input file.
+ * Line terminators and delimiters are found directly in the mapped bytes by a
+ * {@link RowTokenizer} and rows are validated by a {@link ByteRowParser}, so only
+ * the fields of valid rows are ever turned into Strings.
+ * <p>
+ * The file is mapped in windows, which keeps each mapping below the 2 GB limit of
+ * a MappedByteBuffer and lets files of any size be read. A window always starts at
+ * the beginning of a line; a line that runs past the end of a window causes the
+ * next window to be mapped from the start of that line.
+ */
+class MappedProductReader implements ProductReader {
+    private static final int WINDOW_BYTES = 64 * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final ByteRowParser parser;
+    private final RowTokenizer tokens;
+    private final long fileSize;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private int position;
+    private int lineStart;
+
+    /**
+     * Opens and maps the input file and consumes the header row.
+     *
+     * @param inputFile the path to the input CSV file
+     * @param extractor the extractor used to validate rows and record statistics
+     * @param delimiter the configured delimiter
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    MappedProductReader(String inputFile, ProductExtractor extractor, String delimiter) throws IOException {
+        this(inputFile, extractor, delimiter, 0);
+    }
+
+    /**
+     * Opens and maps the input file from the start of a data row, or from the
+     * beginning of the file, in which case the header row is consumed.
+     *
+     * @param inputFile the path to the input CSV file
+     * @param extractor the extractor used to validate rows and record statistics
+     * @param delimiter the configured delimiter
+     * @param startOffset 0, or a byte offset returned by {@link #getPosition()} on an earlier reader
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    MappedProductReader(String inputFile, ProductExtractor extractor, String delimiter, long startOffset) throws IOException {
+        this.channel = FileChannel.open(Paths.get(inputFile), StandardOpenOption.READ);
+        this.parser = new ByteRowParser(extractor, delimiter);
+        this.tokens = parser.newRowTokenizer();
+        this.fileSize = channel.size();
+        if (startOffset > fileSize) {
+            channel.close();
+            throw new IOException("Offset " + startOffset + " is past the end of " + inputFile);
+        }
+        map(startOffset, WINDOW_BYTES);
+        if (startOffset == 0) {
+            nextLine(); // skip header
+        }
+    }
+
+    /**
+     * Returns the byte offset in the file of the first row not yet read.
+     * A reader opened at this offset continues with exactly the rows this reader has not returned.
+     *
+     * @return the offset just past the terminator of the last row read
+     */
+    long getPosition() {
+        return windowStart + position;
+    }
+
+    @Override
+    public Product read() throws IOException {
+        int lineEnd;
+        while ((lineEnd = nextLine()) >= 0) {
+            Product product = parser.parse(window, lineStart, lineEnd, tokens);
+            if (product != null) {
+                return product;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Finds the line starting at the current position and advances past its terminator.
+     * The start of the line, which moves if a new window had to be mapped, is stored
+     * in lineStart.
+     *
+     * @return the index in the current window just past the last byte of the line,
+     *         or -1 if no bytes remain
+     */
+    private int nextLine() throws IOException {
+        if (windowStart + position >= fileSize) {
+            return -1;
+        }
+        int windowSize = WINDOW_BYTES;
+        while (true) {
+            int limit = window.limit();
+            boolean lastWindow = windowStart + limit >= fileSize;
+            int i = tokens.lineEnd(position);
+
+            // A terminator at the window edge may be the first half of "\r\n"
+            if (lastWindow || i < limit - 1 || (i == limit - 1 && window.get(i) == '\n')) {
+                lineStart = position;
+                int next = i + 1;
+                if (i < limit && window.get(i) == '\r' && next < limit && window.get(next) == '\n') {
+                    next++;
+                }
+                position = Math.min(next, limit);
+                return i;
+            }
+
+            // Remap from the start of this line, growing the window for very long lines
+            if (position == 0) {
+                if (windowSize == Integer.MAX_VALUE) {
+                    throw new IOException("Line too long to map at offset " + windowStart);
+                }
+                windowSize = (int) Math.min(Integer.MAX_VALUE, windowSize * 2L);
+            }
+            map(windowStart + position, windowSize);
+        }
+    }
+
+    private void map(long start, int size) throws IOException {
+        windowStart = start;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size, fileSize - start));
+        position = 0;
+        tokens.reset(window, 0, window.limit());
+    }
+}
@@ -0,0 +1,304 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs the pipeline over many input files in one JVM.
+ * The files named by {@link ETLConfig#getInputPattern()} are processed concurrently
+ * on a fixed pool of {@link ETLConfig#getWorkerCount()} threads; each file is streamed
+ * row by row through its own extractor and transformer, while the compiled rules and
+ * the metrics are shared. Every input either gets its own output file in the output
+ * directory, or all rows are merged into the configured output file in input file order.
+ * <p>
+ * Merging writes each file to a temporary part file and concatenates the parts at
+ * the end, so it assumes a charset that does not start its output with a byte order mark.
+ */
+public class MultiFileExecutor {
+    private ETLConfig config;
+    private TransformRules rules;
+    private PipelineMetrics metrics;
+    private RejectLog rejects;
+    private ProductPostProcessor post;
+    private final List<JobResult> results = new ArrayList<>();
+
+    /**
+     * Constructs a MultiFileExecutor.
+     *
+     * @param config the ETL configuration, including the input pattern and output settings
+     * @param rules the compiled rules applied to every file
+     * @param metrics the metrics every file reports into
+     */
+    public MultiFileExecutor(ETLConfig config, TransformRules rules, PipelineMetrics metrics) {
+        this(config, rules, metrics, null, null);
+    }
+
+    /**
+     * Constructs a MultiFileExecutor whose files share one reject log.
+     *
+     * @param config the ETL configuration, including the input pattern and output settings
+     * @param rules the compiled rules applied to every file
+     * @param metrics the metrics every file reports into
+     * @param rejects the log that receives the rows skipped in every file, or null to
+     *                only report them on the console
+     * @param post the post-processor whose summary receives the transformed rows of
+     *             every file, or null for none
+     */
+    MultiFileExecutor(ETLConfig config, TransformRules rules, PipelineMetrics metrics, RejectLog rejects,
+                      ProductPostProcessor post) {
+        this.config = config;
+        this.rules = rules;
+        this.metrics = metrics;
+        this.rejects = rejects;
+        this.post = post;
+    }
+
+    /**
+     * Processes every matching input file and prints per-file statistics and the overall throughput.
+     * A file that fails is reported and the remaining files are still processed, but a
+     * merged output is only written when every file succeeded.
+     *
+     * @return false if no input pattern is configured, no file matches it, or any file failed
+     */
+    public boolean run() {
+        if (config.getInputPattern() == null) {
+            System.out.println("No input files specified; use --input=DIR or --input=GLOB");
+            return false;
+        }
+
+        List<Path> inputs;
+        try {
+            inputs = findInputFiles(config.getInputPattern());
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            return false;
+        }
+        if (inputs.isEmpty()) {
+            System.out.println("No input files found matching " + config.getInputPattern());
+            return false;
+        }
+
+        if (!config.isMergeOutput()) {
+            try {
+                Files.createDirectories(Paths.get(config.getOutputDirectory()));
+            } catch (IOException ex) {
+                System.err.println(ex.getMessage());
+                return false;
+            }
+        }
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(config.getWorkerCount(), inputs.size()));
+        List<Path> parts = new ArrayList<>();
+        List<Path> failed = new ArrayList<>();
+        try {
+            List<Future<JobResult>> futures = new ArrayList<>();
+            for (int i = 0; i < inputs.size(); i++) {
+                Path output = outputFor(inputs.get(i), i);
+                if (config.isMergeOutput()) {
+                    parts.add(output);
+                }
+                ETLConfig fileConfig = new ETLConfig(config, inputs.get(i).toString(), output.toString());
+                futures.add(pool.submit(new FileJob(fileConfig, rules, metrics, rejects, post, config.isMergeOutput())));
+            }
+
+            // Collect in submission order, which is input file order; a failed file does not stop the others
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    JobResult result = futures.get(i).get();
+                    results.add(result);
+                    System.out.println(result);
+                } catch (ExecutionException ex) {
+                    Throwable cause = ex.getCause();
+                    System.err.println(inputs.get(i) + ": "
+                            + (cause.getMessage() != null ? cause.getMessage() : cause.toString()));
+                    failed.add(inputs.get(i));
+                }
+            }
+
+            if (!failed.isEmpty()) {
+                System.out.println(failed.size() + " of " + inputs.size() + " files failed: " + failed);
+                if (config.isMergeOutput()) {
+                    System.out.println("Merged output not written: " + config.getOutputFile());
+                }
+            } else if (config.isMergeOutput()) {
+                mergeParts(parts);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            System.err.println("Multi-file run interrupted");
+            return false;
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            return false;
+        } finally {
+            pool.shutdownNow();
+            for (Path part : parts) {
+                try {
+                    Files.deleteIfExists(part);
+                } catch (IOException ex) {
+                    System.err.println(ex.getMessage());
+                }
+            }
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long bytes = 0;
+        for (JobResult result : results) {
+            bytes += result.getInputBytes();
+        }
+        double seconds = Math.max(elapsed, 1) / 1e9;
+        System.out.printf("Processed %d files, %d rows, %d bytes in %d ms (%.0f rows/s, %.2f MB/s)%n",
+                results.size(), getRowsRead(), bytes, elapsed / 1_000_000,
+                getRowsRead() / seconds, bytes / seconds / (1024 * 1024));
+        return failed.isEmpty();
+    }
+
+    /**
+     * Lists the input files named by a directory or a glob, sorted by file name.
+     * A directory selects its .csv files; otherwise the last path element is a glob
+     * matched against the regular files of its parent directory.
+     */
+    static List<Path> findInputFiles(String pattern) throws IOException {
+        Path path = Paths.get(pattern);
+        Path directory;
+        String glob;
+        if (Files.isDirectory(path)) {
+            directory = path;
+            glob = "*.csv";
+        } else {
+            directory = path.getParent() != null ? path.getParent() : Paths.get(".");
+            glob = path.getFileName().toString();
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, glob)) {
+            for (Path file : stream) {
+                if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    /**
+     * Returns the file a worker writes: a part file next to the merged output,
+     * or the input file name prefixed with "transformed_" in the output directory.
+     * Binary output replaces the .csv extension, and any compression extension after it, with .bin.
+     */
+    private Path outputFor(Path input, int index) {
+        if (config.isMergeOutput()) {
+            return Paths.get(config.getOutputFile() + ".part" + index);
+        }
+        String name = input.getFileName().toString();
+        if (config.getOutputFormat() == OutputFormat.BINARY) {
+            int extension = name.lastIndexOf(".csv");
+            name = (extension > 0 ? name.substring(0, extension) : name) + ".bin";
+        }
+        return Paths.get(config.getOutputDirectory(), "transformed_" + name);
+    }
+
+    /**
+     * Writes the header to the merged output file and appends every part in order,
+     * compressing the merged output if configured.
+     * Binary parts each have their own dictionaries, so their rows are read back and rewritten,
+     * which also lets a binary merged output be indexed; CSV parts are copied as raw bytes.
+     */
+    private void mergeParts(List<Path> parts) throws IOException {
+        ProductIndex.Builder index = ProductIndex.prepare(config);
+        if (config.getOutputFormat() == OutputFormat.BINARY) {
+            try (BinaryProductWriter merged = new BinaryProductWriter(
+                    CompressionCodec.openOutput(config.getOutputFile(), config.getOutputCompression()))) {
+                merged.setIndex(index);
+                for (Path part : parts) {
+                    try (BinaryProductReader reader = new BinaryProductReader(part.toString())) {
+                        Product product;
+                        while ((product = reader.read()) != null) {
+                            merged.write(product);
+                        }
+                    }
+                }
+            }
+            return;
+        }
+        if (index != null) {
+            System.out.println("Merged CSV output is not indexed: " + config.getOutputFile());
+        }
+        try (CsvProductWriter merged = new CsvProductWriter(
+                CompressionCodec.openOutput(config.getOutputFile(), config.getOutputCompression()),
+                config.getWriteBufferSize())) {
+            for (Path part : parts) {
+                merged.append(part);
+            }
+        }
+    }
+
+    /**
+     * Returns the per-file results, in input file order.
+     *
+     * @return the results of the files processed so far
+     */
+    public List<JobResult> getResults() {
+        return Collections.unmodifiableList(results);
+    }
+
+    /**
+     * Returns the number of rows read across all files.
+     *
+     * @return the total rows read
+     */
+    public int getRowsRead() {
+        int total = 0;
+        for (JobResult result : results) {
+            total += result.getRowsRead();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of rows transformed across all files.
+     *
+     * @return the total rows transformed
+     */
+    public int getRowsTransformed() {
+        int total = 0;
+        for (JobResult result : results) {
+            total += result.getRowsTransformed();
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of rows skipped across all files.
+     *
+     * @return the total rows skipped
+     */
+    public int getRowsSkipped() {
+        int total = 0;
+        for (JobResult result : results) {
+            total += result.getRowsSkipped();
+        }
+        return total;
+    }
+
+    /**
+     * Returns where the output was written.
+     *
+     * @return the merged output file, or the output directory
+     */
+    public String getOutputLocation() {
+        return config.isMergeOutput() ? config.getOutputFile() : config.getOutputDirectory();
+    }
+}
@@ -0,0 +1,599 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.Closeable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Row storage for extracted products that lives outside the Java heap.
+ * Every row is a fixed-width record in a direct buffer: the id as an int, the price
+ * in cents as a long, category and price range dictionary codes, and the offset and
+ * length of the name in a separate string area, which is also made of direct buffers.
+ * A large input therefore adds almost nothing to the heap for the garbage collector to
+ * trace or copy, however many rows are held.
+ * <p>
+ * Rows are read and updated through a {@link Row} flyweight, a cursor that is moved
+ * from row to row, so walking the store allocates nothing. Names are kept as UTF-8;
+ * ASCII names, the common case, can be uppercased and copied out byte by byte.
+ * As in {@link ProductBatch}, values the fixed-width fields cannot represent exactly
+ * are kept on the side: the original text of a non canonical id, and a price that does
+ * not fit in cents. Categories take a handful of values, so they stay in a small
+ * dictionary on the heap.
+ * <p>
+ * The buffers are freed as soon as the store is closed instead of when the garbage
+ * collector gets to them, so a store should be used in a try-with-resources block.
+ * Their size counts against -XX:MaxDirectMemorySize. Not thread-safe.
+ */
+public class OffHeapProductStore implements Closeable {
+    /** Price range code of a row that has not been classified yet. */
+    public static final byte NO_PRICE_RANGE = ProductBatch.NO_PRICE_RANGE;
+
+    // Fixed-width row record
+    private static final int ID = 0;
+    private static final int CATEGORY = 4;
+    private static final int PRICE = 8;
+    private static final int NAME_REF = 16;
+    private static final int NAME_LENGTH = 24;
+    private static final int PRICE_RANGE = 28;
+    private static final int FLAGS = 29;
+    private static final int ROW_BYTES = 32;
+
+    private static final byte NON_CANONICAL_ID = 1;
+    private static final byte WIDE_PRICE = 2;
+    private static final byte ASCII_NAME = 4;
+
+    private static final int ROW_CHUNK_SHIFT = 15;
+    private static final int ROWS_PER_CHUNK = 1 << ROW_CHUNK_SHIFT;
+    private static final int STRING_CHUNK_BYTES = 1 << 20;
+
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            // Without jdk.unsupported the buffers are left to the garbage collector
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private final List<ByteBuffer> rowChunks = new ArrayList<>();
+    private final List<ByteBuffer> stringChunks = new ArrayList<>();
+    private ByteBuffer strings;
+    private int stringsIndex;
+    private int size;
+    private long reservedBytes;
+    private boolean closed;
+
+    private final Map<Integer, String> idTexts = new HashMap<>();
+    private final Map<Integer, BigDecimal> widePrices = new HashMap<>();
+    private final List<String> categoryDictionary = new ArrayList<>();
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+    private final List<String> priceRangeDictionary = new ArrayList<>();
+    private final Row appender = new Row();
+
+    /**
+     * Appends a product to the store.
+     * The product ID must be a valid integer, as guaranteed by the extractor.
+     *
+     * @param product the product to append
+     */
+    public void add(Product product) {
+        ensureOpen();
+        if ((size & (ROWS_PER_CHUNK - 1)) == 0 && size >> ROW_CHUNK_SHIFT == rowChunks.size()) {
+            rowChunks.add(allocate(ROWS_PER_CHUNK * ROW_BYTES));
+        }
+        Row row = appender.moveTo(size++);
+
+        String idText = product.getProductId();
+        int id = Integer.parseInt(idText);
+        row.chunk.putInt(row.base + ID, id);
+        row.chunk.put(row.base + FLAGS, (byte) 0);
+        if (!ProductBatch.isCanonicalInt(idText)) {
+            idTexts.put(row.row, idText);
+            row.setFlag(NON_CANONICAL_ID, true);
+        }
+
+        // An empty name still needs a reference into an existing string chunk
+        row.chunk.putLong(row.base + NAME_REF, reserveString(0));
+        row.chunk.putInt(row.base + NAME_LENGTH, 0);
+        row.setName(product.getName());
+        if (product.hasPriceCents()) {
+            row.setPriceCents(product.getPriceCents());
+        } else {
+            row.setPrice(product.getPrice());
+        }
+        row.setCategoryCode(categoryCode(product.getCategory()));
+        row.setPriceRangeCode(product.getPriceRange() == null ? NO_PRICE_RANGE : priceRangeCode(product.getPriceRange()));
+    }
+
+    /**
+     * Returns a new cursor over the rows of the store.
+     * One cursor is typically created per loop and moved with {@link Row#moveTo(int)}.
+     *
+     * @return a cursor that is not positioned on any row yet
+     */
+    public Row row() {
+        return new Row();
+    }
+
+    /**
+     * Returns a new Product holding the values of a row.
+     *
+     * @param row the row index
+     * @return the row as a Product
+     */
+    public Product getProduct(int row) {
+        Row cursor = row().moveTo(row);
+        Product product = cursor.hasPriceCents()
+                ? new Product(cursor.getIdText(), cursor.getName(), cursor.getPriceCents(), cursor.getCategory())
+                : new Product(cursor.getIdText(), cursor.getName(), cursor.getPrice(), cursor.getCategory());
+        product.setPriceRange(cursor.getPriceRange());
+        return product;
+    }
+
+    /**
+     * Returns the number of rows in the store.
+     *
+     * @return the row count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of off-heap bytes the store has allocated.
+     *
+     * @return the size of the row and string buffers, or 0 once the store is closed
+     */
+    public long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    /**
+     * Returns the dictionary code for a category, adding it if it is new.
+     *
+     * @param category the category name
+     * @return the category code
+     */
+    public int categoryCode(String category) {
+        Integer code = categoryCodes.get(category);
+        if (code == null) {
+            code = categoryDictionary.size();
+            categoryDictionary.add(category);
+            categoryCodes.put(category, code);
+        }
+        return code;
+    }
+
+    /**
+     * Returns the number of distinct categories in the dictionary.
+     *
+     * @return the category count; codes range from 0 to this value minus one
+     */
+    public int getCategoryCount() {
+        return categoryDictionary.size();
+    }
+
+    /**
+     * Returns the category name for a dictionary code.
+     *
+     * @param code the category code
+     * @return the category name
+     */
+    public String getCategoryName(int code) {
+        return categoryDictionary.get(code);
+    }
+
+    /**
+     * Returns the dictionary code for a price range, adding it if it is new.
+     *
+     * @param priceRange the price range name
+     * @return the price range code
+     */
+    public byte priceRangeCode(String priceRange) {
+        int code = priceRangeDictionary.indexOf(priceRange);
+        if (code < 0) {
+            if (priceRangeDictionary.size() == Byte.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct price ranges");
+            }
+            code = priceRangeDictionary.size();
+            priceRangeDictionary.add(priceRange);
+        }
+        return (byte) code;
+    }
+
+    /**
+     * Returns the price range name for a dictionary code.
+     *
+     * @param code the price range code
+     * @return the price range name, or null for {@link #NO_PRICE_RANGE}
+     */
+    public String getPriceRangeName(byte code) {
+        return code == NO_PRICE_RANGE ? null : priceRangeDictionary.get(code);
+    }
+
+    /**
+     * Frees the off-heap buffers. The store holds no rows afterwards and must not be used again.
+     * Calling this more than once has no effect.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (ByteBuffer chunk : rowChunks) {
+            free(chunk);
+        }
+        for (ByteBuffer chunk : stringChunks) {
+            free(chunk);
+        }
+        rowChunks.clear();
+        stringChunks.clear();
+        strings = null;
+        idTexts.clear();
+        widePrices.clear();
+        size = 0;
+        reservedBytes = 0;
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("The off-heap store is closed");
+        }
+    }
+
+    private ByteBuffer allocate(int bytes) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        reservedBytes += bytes;
+        return buffer;
+    }
+
+    /**
+     * Reserves room for a string in the string area.
+     * A string never spans two chunks; one longer than half a chunk gets a chunk of its own.
+     *
+     * @return the reference of the reserved bytes: the chunk index in the high half, the offset in the low half
+     */
+    private long reserveString(int length) {
+        if (strings == null || strings.capacity() - strings.position() < length) {
+            if (length > STRING_CHUNK_BYTES / 2) {
+                // Keep filling the current chunk after an oversized string
+                stringChunks.add(allocate(length));
+                return (long) (stringChunks.size() - 1) << 32;
+            }
+            strings = allocate(STRING_CHUNK_BYTES);
+            stringChunks.add(strings);
+            stringsIndex = stringChunks.size() - 1;
+        }
+        long ref = (long) stringsIndex << 32 | strings.position();
+        strings.position(strings.position() + length);
+        return ref;
+    }
+
+    private ByteBuffer stringChunk(long ref) {
+        return stringChunks.get((int) (ref >>> 32));
+    }
+
+    private static void free(ByteBuffer buffer) {
+        if (INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException ex) {
+            // Left to the garbage collector
+        }
+    }
+
+    /**
+     * A movable view of one row of the store. Getters and setters read and write the
+     * row's record in place; only the methods returning Strings or BigDecimals allocate.
+     * Once the store is closed every accessor throws an IllegalStateException.
+     */
+    public final class Row {
+        private ByteBuffer chunk;
+        private int base;
+        private int row = -1;
+
+        private Row() {
+        }
+
+        /**
+         * Positions the cursor on a row.
+         *
+         * @param row the row index
+         * @return this cursor
+         */
+        public Row moveTo(int row) {
+            if (row < 0 || row >= size) {
+                ensureOpen();
+                throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+            }
+            this.row = row;
+            this.chunk = rowChunks.get(row >>> ROW_CHUNK_SHIFT);
+            this.base = (row & (ROWS_PER_CHUNK - 1)) * ROW_BYTES;
+            return this;
+        }
+
+        /**
+         * Returns the index of the row the cursor is on.
+         *
+         * @return the row index
+         */
+        public int getRow() {
+            return row;
+        }
+
+        /**
+         * Returns the numeric product ID.
+         *
+         * @return the product ID
+         */
+        public int getId() {
+            return chunk().getInt(base + ID);
+        }
+
+        /**
+         * Returns whether the product ID is the canonical text of its numeric value.
+         *
+         * @return false if the ID was written in another form, such as "007" or "+7"
+         */
+        public boolean hasCanonicalId() {
+            return !hasFlag(NON_CANONICAL_ID);
+        }
+
+        /**
+         * Returns the product ID exactly as it appeared in the input.
+         *
+         * @return the product ID text
+         */
+        public String getIdText() {
+            return hasCanonicalId() ? Integer.toString(getId()) : idTexts.get(row);
+        }
+
+        /**
+         * Returns whether the name only holds ASCII characters, so its UTF-8 bytes are its characters.
+         *
+         * @return true for an ASCII name
+         */
+        public boolean isAsciiName() {
+            return hasFlag(ASCII_NAME);
+        }
+
+        /**
+         * Returns the length of the name in bytes of UTF-8.
+         *
+         * @return the encoded length of the name
+         */
+        public int getNameLength() {
+            return chunk().getInt(base + NAME_LENGTH);
+        }
+
+        /**
+         * Copies part of the UTF-8 bytes of the name into an array.
+         *
+         * @param from the index of the first byte of the name to copy
+         * @param target the array receiving the bytes
+         * @param offset the index in the array of the first byte copied
+         * @param length the number of bytes to copy
+         */
+        public void copyName(int from, byte[] target, int offset, int length) {
+            long ref = chunk().getLong(base + NAME_REF);
+            stringChunk(ref).get((int) ref + from, target, offset, length);
+        }
+
+        /**
+         * Returns the name.
+         *
+         * @return the product name, decoded from the string area
+         */
+        public String getName() {
+            int length = getNameLength();
+            byte[] bytes = new byte[length];
+            copyName(0, bytes, 0, length);
+            return new String(bytes, isAsciiName() ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Sets the name. The new name overwrites the old one in the string area when
+         * it is not longer, and is appended to the string area otherwise.
+         *
+         * @param name the product name
+         */
+        public void setName(String name) {
+            int length = name.length();
+            boolean ascii = true;
+            for (int i = 0; i < length && ascii; i++) {
+                ascii = name.charAt(i) < 0x80;
+            }
+            byte[] encoded = ascii ? null : name.getBytes(StandardCharsets.UTF_8);
+            int encodedLength = ascii ? length : encoded.length;
+
+            long ref = chunk().getLong(base + NAME_REF);
+            if (encodedLength > getNameLength()) {
+                ref = reserveString(encodedLength);
+                chunk().putLong(base + NAME_REF, ref);
+            }
+            ByteBuffer target = stringChunk(ref);
+            int offset = (int) ref;
+            if (ascii) {
+                for (int i = 0; i < length; i++) {
+                    target.put(offset + i, (byte) name.charAt(i));
+                }
+            } else {
+                target.put(offset, encoded);
+            }
+            chunk().putInt(base + NAME_LENGTH, encodedLength);
+            setFlag(ASCII_NAME, ascii);
+        }
+
+        /**
+         * Uppercases an ASCII name in place, mapping only 'a' to 'z'.
+         * This matches String.toUpperCase for ASCII text in every locale but those,
+         * such as Turkish, that map 'i' to a non ASCII letter; callers check the locale.
+         *
+         * @return true if the name was uppercased, false if it is not ASCII and was left unchanged
+         */
+        public boolean upperCaseAsciiName() {
+            if (!isAsciiName()) {
+                return false;
+            }
+            long ref = chunk().getLong(base + NAME_REF);
+            ByteBuffer target = stringChunk(ref);
+            int end = (int) ref + getNameLength();
+            for (int i = (int) ref; i < end; i++) {
+                byte b = target.get(i);
+                if (b >= 'a' && b <= 'z') {
+                    target.put(i, (byte) (b - ('a' - 'A')));
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Returns whether the price is held as cents.
+         *
+         * @return true if {@link #getPriceCents()} holds the price
+         */
+        public boolean hasPriceCents() {
+            return !hasFlag(WIDE_PRICE);
+        }
+
+        /**
+         * Returns the price in cents.
+         *
+         * @return the price in cents; only meaningful when {@link #hasPriceCents()} is true
+         */
+        public long getPriceCents() {
+            return chunk().getLong(base + PRICE);
+        }
+
+        /**
+         * Sets the price in cents.
+         *
+         * @param cents the price in cents
+         */
+        public void setPriceCents(long cents) {
+            chunk().putLong(base + PRICE, cents);
+            if (hasFlag(WIDE_PRICE)) {
+                widePrices.remove(row);
+                setFlag(WIDE_PRICE, false);
+            }
+        }
+
+        /**
+         * Returns the price as a BigDecimal.
+         *
+         * @return the product price
+         */
+        public BigDecimal getPrice() {
+            return hasPriceCents() ? PriceCents.toBigDecimal(getPriceCents()) : widePrices.get(row);
+        }
+
+        /**
+         * Sets the price from a BigDecimal, storing it as cents when possible.
+         *
+         * @param price the product price
+         */
+        public void setPrice(BigDecimal price) {
+            long cents = PriceCents.fromBigDecimal(price);
+            if (cents != PriceCents.UNSUPPORTED) {
+                setPriceCents(cents);
+                return;
+            }
+            widePrices.put(row, price);
+            setFlag(WIDE_PRICE, true);
+        }
+
+        /**
+         * Returns the category dictionary code.
+         *
+         * @return the category code
+         */
+        public int getCategoryCode() {
+            return chunk().getInt(base + CATEGORY);
+        }
+
+        /**
+         * Sets the category dictionary code.
+         *
+         * @param code a code returned by {@link OffHeapProductStore#categoryCode(String)}
+         */
+        public void setCategoryCode(int code) {
+            chunk().putInt(base + CATEGORY, code);
+        }
+
+        /**
+         * Returns the category.
+         *
+         * @return the category name
+         */
+        public String getCategory() {
+            return categoryDictionary.get(getCategoryCode());
+        }
+
+        /**
+         * Returns the price range dictionary code.
+         *
+         * @return the price range code, or {@link #NO_PRICE_RANGE}
+         */
+        public byte getPriceRangeCode() {
+            return chunk().get(base + PRICE_RANGE);
+        }
+
+        /**
+         * Sets the price range dictionary code.
+         *
+         * @param code a code returned by {@link OffHeapProductStore#priceRangeCode(String)}
+         */
+        public void setPriceRangeCode(byte code) {
+            chunk().put(base + PRICE_RANGE, code);
+        }
+
+        /**
+         * Returns the price range.
+         *
+         * @return the price range, or null if the row has not been classified
+         */
+        public String getPriceRange() {
+            return getPriceRangeName(getPriceRangeCode());
+        }
+
+        /**
+         * Returns the chunk holding the row, failing rather than touching freed memory once the store is closed.
+         */
+        private ByteBuffer chunk() {
+            if (closed) {
+                throw new IllegalStateException("The off-heap store is closed");
+            }
+            return chunk;
+        }
+
+        private boolean hasFlag(byte flag) {
+            return (chunk().get(base + FLAGS) & flag) != 0;
+        }
+
+        private void setFlag(byte flag, boolean set) {
+            byte flags = chunk().get(base + FLAGS);
+            chunk().put(base + FLAGS, (byte) (set ? flags | flag : flags & ~flag));
+        }
+    }
+}
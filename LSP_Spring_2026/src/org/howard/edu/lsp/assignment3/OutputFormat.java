@@ -0,0 +1,15 @@
+package org.howard.edu.lsp.assignment3;
+
+/**
+ * File formats the pipeline can write its output in.
+ */
+public enum OutputFormat {
+    /** Comma separated text with a header row. */
+    CSV,
+
+    /**
+     * Columnar binary row groups with dictionary-encoded categories and price ranges,
+     * read back with {@link BinaryProductReader}.
+     */
+    BINARY
+}
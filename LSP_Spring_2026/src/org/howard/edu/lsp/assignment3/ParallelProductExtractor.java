@@ -0,0 +1,237 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Extracts product data using several worker threads.
+ * The input file is split into byte ranges that start and end on line boundaries.
+ * Each range is parsed independently and the results are merged back in file order,
+ * so the extracted list and the row statistics match the sequential extractor exactly.
+ * The input must use an ASCII compatible charset (such as UTF-8) so that line
+ * terminators can be located in the raw bytes.
+ */
+public class ParallelProductExtractor extends ProductExtractor {
+    private static final int MAX_CHUNK_BYTES = 8 * 1024 * 1024;
+    private static final int SCAN_BUFFER_BYTES = 4096;
+
+    /**
+     * Constructs a ParallelProductExtractor using the provided ETL configuration.
+     * The number of worker threads is taken from {@link ETLConfig#getWorkerCount()}.
+     *
+     * @param config the ETLConfig object containing input file, delimiter and worker settings
+     */
+    public ParallelProductExtractor(ETLConfig config) {
+        super(config);
+    }
+
+    /**
+     * Extracts product data from the configured input CSV file in parallel.
+     *
+     * @return a List of Product objects in file order;
+     *         returns null if the input file does not exist
+     */
+    @Override
+    public List<Product> extractData() {
+        try {
+            if (new File(config.getInputFile()).exists()
+                    && CompressionCodec.forInput(config.getInputFile(), config.getInputCompression()) != CompressionCodec.NONE) {
+                // Compressed input cannot be split into byte ranges; read it sequentially
+                return super.extractData();
+            }
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            return new ArrayList<>();
+        }
+
+        List<Product> products = new ArrayList<>();
+
+        // Ensure data directory exists
+        File dataDir = new File("data");
+        if (!dataDir.exists()) dataDir.mkdir();
+
+        File inputFile = new File(config.getInputFile());
+
+        if (!inputFile.exists()) {
+            System.out.println("Input file products.csv not found");
+            return null;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(config.getWorkerCount());
+        try (FileChannel channel = FileChannel.open(Paths.get(config.getInputFile()), StandardOpenOption.READ)) {
+            List<Future<ChunkResult>> futures = new ArrayList<>();
+            long[] boundaries = splitIntoChunks(channel);
+            for (int i = 0; i + 1 < boundaries.length; i++) {
+                futures.add(pool.submit(new ChunkTask(channel, boundaries[i], boundaries[i + 1])));
+            }
+
+            // Merge in submission order, which is file order
+            for (Future<ChunkResult> future : futures) {
+                ChunkResult result = future.get();
+                products.addAll(result.products);
+                result.rowStatistics.getRejectLog().replay(getRejectLog(), getRowsRead());
+                addStatistics(result.rowStatistics);
+            }
+
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+        } catch (ExecutionException ex) {
+            System.err.println(ex.getCause().getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            System.err.println("Extraction interrupted");
+        } finally {
+            pool.shutdownNow();
+        }
+
+        return products;
+    }
+
+    /**
+     * Computes chunk boundaries for the data rows of the file.
+     * The first boundary is the start of the first data row; every other boundary
+     * is the start of a line, so no row is split between two chunks.
+     */
+    private long[] splitIntoChunks(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long start = nextLineStart(channel, 0, size); // skip header
+        long dataBytes = size - start;
+
+        long chunkCount = Math.max(config.getWorkerCount(), (dataBytes + MAX_CHUNK_BYTES - 1) / MAX_CHUNK_BYTES);
+        chunkCount = Math.max(1, Math.min(chunkCount, dataBytes));
+
+        List<Long> boundaries = new ArrayList<>();
+        boundaries.add(start);
+        long previous = start;
+        for (long i = 1; i < chunkCount; i++) {
+            long target = start + dataBytes * i / chunkCount;
+            if (target <= previous) {
+                continue;
+            }
+            long boundary = nextLineStart(channel, target - 1, size);
+            if (boundary > previous && boundary < size) {
+                boundaries.add(boundary);
+                previous = boundary;
+            }
+        }
+        boundaries.add(size);
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the offset just past the first line terminator found at or after
+     * the given position, treating "\r\n" as a single terminator.
+     * Returns the file size if no terminator follows.
+     */
+    private static long nextLineStart(FileChannel channel, long position, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_BYTES);
+        long offset = position;
+        while (offset < size) {
+            buffer.clear();
+            int count = channel.read(buffer, offset);
+            if (count <= 0) {
+                break;
+            }
+            for (int i = 0; i < count; i++) {
+                byte b = buffer.get(i);
+                if (b == '\n') {
+                    return offset + i + 1;
+                }
+                if (b == '\r') {
+                    long next = offset + i + 1;
+                    if (next < size) {
+                        ByteBuffer one = ByteBuffer.allocate(1);
+                        channel.read(one, next);
+                        if (one.get(0) == '\n') {
+                            return next + 1;
+                        }
+                    }
+                    return next;
+                }
+            }
+            offset += count;
+        }
+        return size;
+    }
+
+    /**
+     * Rows and statistics produced by a single chunk.
+     */
+    private static class ChunkResult {
+        private final List<Product> products;
+        private final ProductExtractor rowStatistics;
+
+        ChunkResult(List<Product> products, ProductExtractor rowStatistics) {
+            this.products = products;
+            this.rowStatistics = rowStatistics;
+        }
+    }
+
+    /**
+     * Parses one byte range of the input file on a worker thread.
+     * Each task validates rows with its own ProductExtractor and ByteRowParser
+     * so that statistics are never shared between threads. Skipped rows are held
+     * in a deferred reject log and replayed in file order when chunks are merged.
+     */
+    private class ChunkTask implements Callable<ChunkResult> {
+        private final FileChannel channel;
+        private final long from;
+        private final long to;
+
+        ChunkTask(FileChannel channel, long from, long to) {
+            this.channel = channel;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public ChunkResult call() throws IOException {
+            byte[] bytes = new byte[(int) (to - from)];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, from + buffer.position()) < 0) {
+                    break;
+                }
+            }
+
+            ProductExtractor rowStatistics = new ProductExtractor(config);
+            rowStatistics.setRejectLog(RejectLog.deferred(getRejectLog()));
+            ByteRowParser parser = new ByteRowParser(rowStatistics, config.getDelimiter());
+            List<Product> products = new ArrayList<>();
+            int length = buffer.position();
+            RowTokenizer tokens = parser.newRowTokenizer();
+            tokens.reset(buffer, 0, length);
+            int pos = 0;
+            while (pos < length) {
+                int end = tokens.lineEnd(pos);
+
+                Product product = parser.parse(buffer, pos, end, tokens);
+                if (product != null) {
+                    products.add(product);
+                }
+
+                if (end < length && bytes[end] == '\r' && end + 1 < length && bytes[end + 1] == '\n') {
+                    end++;
+                }
+                pos = end + 1;
+            }
+            return new ChunkResult(products, rowStatistics);
+        }
+    }
+}
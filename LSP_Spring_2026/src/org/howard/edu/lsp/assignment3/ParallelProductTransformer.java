@@ -0,0 +1,117 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Transforms a list of products using several worker threads.
+ * The list is split in half recursively until each piece holds at most one batch of rows,
+ * and the pieces are transformed on a fork/join pool. Every product is written back to
+ * its own index, so the result is in input order and equal to the sequential transformer.
+ * <p>
+ * Rows are independent of each other and the shared state of a transformer, the row
+ * count and the name cache, is safe to update from several threads. Columnar batches
+ * are still transformed sequentially, since transforming a row can add a category to
+ * the batch dictionary.
+ */
+public class ParallelProductTransformer extends ProductTransformer {
+    private final int batchSize;
+    private final int parallelism;
+
+    /**
+     * Constructs a ParallelProductTransformer.
+     *
+     * @param rules the rules to apply
+     * @param nameCacheSize the number of uppercase names to remember; 0 converts every name
+     * @param batchSize the largest number of rows transformed by one task, at least 1
+     * @param parallelism the number of worker threads, at least 1
+     */
+    public ParallelProductTransformer(TransformRules rules, int nameCacheSize, int batchSize, int parallelism) {
+        super(rules, nameCacheSize);
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Transforms a list of raw products in parallel by applying business rules.
+     * Inputs of a single batch, or a parallelism of 1, are transformed on the calling thread.
+     *
+     * @param products the list of raw products to transform
+     * @return a list of transformed products in input order
+     */
+    @Override
+    public List<Product> transform(List<Product> products) {
+        if (parallelism == 1 || products.size() <= batchSize) {
+            return super.transform(products);
+        }
+
+        Product[] source = products.toArray(new Product[0]);
+        Product[] results = new Product[source.length];
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new TransformTask(source, results, 0, source.length));
+        } finally {
+            pool.shutdown();
+        }
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    /**
+     * Returns the largest number of rows transformed by one task.
+     *
+     * @return the batch size
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns the number of worker threads.
+     *
+     * @return the parallelism
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Transforms rows [from, to) of the source, splitting the range while it is larger than a batch.
+     */
+    private class TransformTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Product[] source;
+        private final Product[] results;
+        private final int from;
+        private final int to;
+
+        TransformTask(Product[] source, Product[] results, int from, int to) {
+            this.source = source;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= batchSize) {
+                for (int i = from; i < to; i++) {
+                    results[i] = transformProduct(source[i]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new TransformTask(source, results, from, middle),
+                    new TransformTask(source, results, middle, to));
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.howard.edu.lsp.assignment3;
+
+/**
+ * Columns the transformed products can be partitioned by when they are loaded.
+ */
+public enum PartitionKey {
+    /** One output file per transformed category. */
+    CATEGORY("Category"),
+
+    /** One output file per price range. */
+    PRICE_RANGE("PriceRange");
+
+    private final String column;
+
+    PartitionKey(String column) {
+        this.column = column;
+    }
+
+    /**
+     * Returns the name of the output column this key reads.
+     *
+     * @return the column name, as in the output header
+     */
+    public String getColumn() {
+        return column;
+    }
+
+    /**
+     * Returns the value of this column for a transformed product.
+     *
+     * @param product the transformed product
+     * @return the column value, or an empty string if it is not set
+     */
+    public String valueOf(Product product) {
+        String value = this == CATEGORY ? product.getCategory() : product.getPriceRange();
+        return value != null ? value : "";
+    }
+
+    /**
+     * Parses a partition key from its column name or constant name, ignoring case.
+     *
+     * @param name a name such as "category", "PriceRange" or "price_range"
+     * @return the partition key
+     * @throws IllegalArgumentException if the name does not match a key
+     */
+    public static PartitionKey parse(String name) {
+        for (PartitionKey key : values()) {
+            if (key.column.equalsIgnoreCase(name) || key.name().equalsIgnoreCase(name)) {
+                return key;
+            }
+        }
+        throw new IllegalArgumentException("Unknown partition column: " + name);
+    }
+}
@@ -0,0 +1,352 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Writes transformed products to one file per value of a partition column, such as
+ * one file per category, so readers only open the partitions they need.
+ * <p>
+ * The files are placed in a directory named after the output file, inside the output
+ * directory: for "data/transformed_products.csv" partitioned by category, the
+ * Electronics rows go to "data/transformed_products/Category=Electronics.csv". Each
+ * file is written in the configured format and compression, with its own header.
+ * A "manifest.csv" next to them lists every partition with its row count and size,
+ * and is replaced in one atomic step once all partitions are complete, so a reader
+ * that starts from the manifest never sees a partition that is still being written.
+ * Files listed in the previous manifest are deleted first.
+ * <p>
+ * Rows are collected per partition in batches of {@link ETLConfig#getBatchSize()}.
+ * A full batch is handed to a pool of {@link ETLConfig#getWorkerCount()} threads, so
+ * different partitions are encoded and written in parallel; the batches of one
+ * partition are chained, which keeps its rows in input order. At most a few batches
+ * per thread are waiting at any time, so memory stays bounded when the writers fall
+ * behind. Not thread-safe: rows must be handed over by one thread.
+ */
+public class PartitionedProductWriter implements ProductWriter {
+    /** Name of the manifest file in the partition directory. */
+    public static final String MANIFEST = "manifest.csv";
+
+    /** Header row of the manifest file. */
+    public static final String MANIFEST_HEADER = "Column,Value,File,Rows,Bytes";
+
+    private static final int PENDING_BATCHES_PER_THREAD = 4;
+
+    private final ETLConfig config;
+    private final PartitionKey key;
+    private final Path directory;
+    private final String suffix;
+    private final int batchSize;
+    private final ExecutorService pool;
+    private final Semaphore pending;
+    private final Map<String, Partition> partitions = new HashMap<>();
+    private final Set<String> fileNames = new HashSet<>();
+    private long bytesWritten = 0;
+    private long fileBytes = 0;
+    private boolean closed = false;
+
+    /**
+     * Creates the partition directory and removes the partitions of the previous run.
+     *
+     * @param config the configuration naming the partition column, output file and format
+     * @throws IOException if the directory cannot be created or cleared
+     */
+    public PartitionedProductWriter(ETLConfig config) throws IOException {
+        this.config = config;
+        this.key = config.getPartitionKey();
+        this.directory = getDirectory(config);
+        String name = new File(config.getOutputFile()).getName();
+        int dot = name.indexOf('.');
+        this.suffix = dot >= 0 ? name.substring(dot) : "";
+        this.batchSize = config.getBatchSize();
+        int threads = config.getWorkerCount();
+        this.pool = Executors.newFixedThreadPool(threads);
+        this.pending = new Semaphore(threads * PENDING_BATCHES_PER_THREAD);
+
+        Files.createDirectories(directory);
+        deletePreviousPartitions();
+    }
+
+    /**
+     * Returns the directory that receives the partition files for a configuration.
+     *
+     * @param config the ETL configuration
+     * @return the output directory followed by the output file name without its extensions
+     */
+    public static Path getDirectory(ETLConfig config) {
+        String name = new File(config.getOutputFile()).getName();
+        int dot = name.indexOf('.');
+        return Paths.get(config.getOutputDirectory(), dot > 0 ? name.substring(0, dot) : name + ".partitions");
+    }
+
+    @Override
+    public void write(Product product) throws IOException {
+        String value = key.valueOf(product);
+        Partition partition = partitions.get(value);
+        if (partition == null) {
+            partition = new Partition(value, fileName(value));
+            partitions.put(value, partition);
+        }
+        partition.batch.add(product);
+        if (partition.batch.size() >= batchSize) {
+            partition.submit();
+        }
+    }
+
+    @Override
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Returns the total size on disk of the partition files, once the writer is closed.
+     *
+     * @return the size of the partition files in bytes, after any compression
+     */
+    public long getFileBytes() {
+        return fileBytes;
+    }
+
+    /**
+     * Returns the number of partitions written so far.
+     *
+     * @return the number of distinct values of the partition column
+     */
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    /**
+     * Writes the remaining batches, closes every partition and writes the manifest.
+     *
+     * @throws IOException if a partition or the manifest could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        IOException failure = null;
+        try {
+            for (Partition partition : partitions.values()) {
+                if (!partition.batch.isEmpty()) {
+                    partition.submit();
+                }
+                partition.finish();
+            }
+            for (Partition partition : partitions.values()) {
+                try {
+                    partition.tail.join();
+                } catch (CompletionException ex) {
+                    failure = failure != null ? failure : unwrap(ex);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        for (Partition partition : partitions.values()) {
+            bytesWritten += partition.bytes;
+        }
+        writeManifest();
+    }
+
+    /**
+     * Writes the manifest to a temporary file and moves it into place.
+     */
+    private void writeManifest() throws IOException {
+        Map<String, Partition> sorted = new TreeMap<>(partitions);
+        Path manifest = directory.resolve(MANIFEST);
+        Path temp = directory.resolve(MANIFEST + ".tmp");
+        try (BufferedWriter out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            out.write(MANIFEST_HEADER);
+            out.newLine();
+            for (Partition partition : sorted.values()) {
+                long size = Files.size(directory.resolve(partition.fileName));
+                fileBytes += size;
+                out.write(key.getColumn() + "," + RejectLog.quote(partition.value) + ","
+                        + RejectLog.quote(partition.fileName) + "," + partition.rows + "," + size);
+                out.newLine();
+            }
+        }
+        Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Deletes the files listed in the manifest of the previous run, and that manifest.
+     */
+    private void deletePreviousPartitions() throws IOException {
+        Path manifest = directory.resolve(MANIFEST);
+        if (!Files.exists(manifest)) {
+            return;
+        }
+        try (BufferedReader in = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            in.readLine();
+            String line;
+            while ((line = in.readLine()) != null) {
+                String file = fileColumn(line);
+                // Only names the manifest could have written; never a path out of the directory
+                if (file != null && !file.contains("/") && !file.contains("\\") && !file.startsWith(".")) {
+                    Files.deleteIfExists(directory.resolve(file));
+                }
+            }
+        }
+        Files.delete(manifest);
+    }
+
+    /**
+     * Returns the third field of a manifest row, honouring the quotes RejectLog.quote adds.
+     */
+    private static String fileColumn(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields.size() > 2 ? fields.get(2) : null;
+    }
+
+    /**
+     * Builds a file name for a partition value. Characters other than ASCII letters, digits,
+     * '-', '_' and '.' are percent encoded, and names that only differ in case get a
+     * numbered suffix so they stay distinct on case-insensitive file systems.
+     */
+    private String fileName(String value) {
+        StringBuilder name = new StringBuilder(key.getColumn()).append('=');
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.') {
+                name.append(c);
+            } else {
+                name.append('%').append(String.format("%02X", (int) c));
+            }
+        }
+        String base = name.toString();
+        String candidate = base + suffix;
+        for (int n = 2; !fileNames.add(candidate.toLowerCase(Locale.ROOT)); n++) {
+            candidate = base + "~" + n + suffix;
+        }
+        return candidate;
+    }
+
+    private static IOException unwrap(CompletionException ex) {
+        Throwable cause = ex.getCause();
+        if (cause instanceof UncheckedIOException) {
+            return ((UncheckedIOException) cause).getCause();
+        }
+        return new IOException(cause);
+    }
+
+    /**
+     * One partition file, with the batch being collected and the chain of writes already submitted.
+     */
+    private class Partition {
+        private final String value;
+        private final String fileName;
+        private List<Product> batch = new ArrayList<>();
+        private CompletableFuture<Void> tail = CompletableFuture.completedFuture(null);
+        private ProductWriter writer;
+        private long rows;
+        private long bytes;
+
+        Partition(String value, String fileName) {
+            this.value = value;
+            this.fileName = fileName;
+        }
+
+        /**
+         * Queues the collected batch behind the earlier batches of this partition.
+         */
+        void submit() throws IOException {
+            List<Product> products = batch;
+            batch = new ArrayList<>(Math.min(batchSize, 1024));
+            try {
+                pending.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for partition writers", ex);
+            }
+            tail = tail.handleAsync((ignored, error) -> {
+                try {
+                    if (error != null) {
+                        // An earlier batch failed; skip this one but still free its slot
+                        throw error instanceof CompletionException ? (CompletionException) error : new CompletionException(error);
+                    }
+                    if (writer == null) {
+                        writer = ProductLoader.openFileWriter(config, directory.resolve(fileName).toString(), null);
+                    }
+                    for (Product product : products) {
+                        writer.write(product);
+                    }
+                    rows += products.size();
+                    return null;
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                } finally {
+                    pending.release();
+                }
+            }, pool);
+        }
+
+        /**
+         * Queues closing the file behind the last batch.
+         */
+        void finish() {
+            tail = tail.whenCompleteAsync((ignored, error) -> {
+                if (writer == null) {
+                    return;
+                }
+                try {
+                    bytes = writer.getBytesWritten();
+                    writer.close();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }, pool);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the metrics of one pipeline run: per-stage counters and latencies,
+ * rows read, rows skipped by reason, string cache hits and misses, and the total
+ * elapsed time.
+ * Stages are created on first use and keep their creation order. Every counter is
+ * a LongAdder, so stages running on different threads can report concurrently.
+ * <p>
+ * Metrics can be exported as JSON or in the Prometheus text exposition format.
+ */
+public final class PipelineMetrics {
+    public static final String EXTRACT = "extract";
+    public static final String TRANSFORM = "transform";
+    public static final String LOAD = "load";
+    public static final String CATEGORY_CACHE = "category";
+    public static final String NAME_CACHE = "name";
+
+    private final Map<String, StageMetrics> stages = new LinkedHashMap<>();
+    private final LongAdder rowsRead = new LongAdder();
+    private final LongAdder[] rowsSkipped = new LongAdder[SkipReason.values().length];
+    private final Map<String, LongAdder[]> caches = new LinkedHashMap<>();
+    private final long startNanos = System.nanoTime();
+    private volatile long elapsedNanos = -1;
+
+    /**
+     * Constructs an empty set of metrics; the elapsed time is measured from now.
+     */
+    public PipelineMetrics() {
+        for (int i = 0; i < rowsSkipped.length; i++) {
+            rowsSkipped[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Returns the metrics of a stage, creating them on first use.
+     * Callers on a hot path should look a stage up once and keep the reference.
+     *
+     * @param name the stage name
+     * @return the stage metrics
+     */
+    public synchronized StageMetrics stage(String name) {
+        return stages.computeIfAbsent(name, StageMetrics::new);
+    }
+
+    /**
+     * Adds the row statistics gathered by an extractor.
+     *
+     * @param extractor an extractor that has finished reading its input
+     */
+    public void recordExtraction(ProductExtractor extractor) {
+        rowsRead.add(extractor.getRowsRead());
+        for (SkipReason reason : SkipReason.values()) {
+            rowsSkipped[reason.ordinal()].add(extractor.getRowsSkipped(reason));
+        }
+        recordCache(CATEGORY_CACHE, extractor.getCategoryCache());
+    }
+
+    /**
+     * Adds the name cache statistics gathered by a transformer.
+     *
+     * @param transformer a transformer that has finished transforming its rows
+     */
+    public void recordTransformation(ProductTransformer transformer) {
+        recordCache(NAME_CACHE, transformer.getNameCache());
+    }
+
+    /**
+     * Adds the hit and miss counts of a string cache under a name.
+     *
+     * @param name the cache name
+     * @param cache the cache whose counts are added
+     */
+    public void recordCache(String name, StringCache cache) {
+        LongAdder[] counts;
+        synchronized (this) {
+            counts = caches.computeIfAbsent(name, key -> new LongAdder[] {new LongAdder(), new LongAdder()});
+        }
+        counts[0].add(cache.getHits());
+        counts[1].add(cache.getMisses());
+    }
+
+    /**
+     * Returns the hits recorded for a cache.
+     *
+     * @param name the cache name
+     * @return the hit count, or 0 if the cache has not reported
+     */
+    public synchronized long getCacheHits(String name) {
+        LongAdder[] counts = caches.get(name);
+        return counts == null ? 0 : counts[0].sum();
+    }
+
+    /**
+     * Returns the misses recorded for a cache.
+     *
+     * @param name the cache name
+     * @return the miss count, or 0 if the cache has not reported
+     */
+    public synchronized long getCacheMisses(String name) {
+        LongAdder[] counts = caches.get(name);
+        return counts == null ? 0 : counts[1].sum();
+    }
+
+    /**
+     * Returns the names of the caches that have reported, in reporting order.
+     *
+     * @return a snapshot of the cache names
+     */
+    public synchronized List<String> getCacheNames() {
+        return new ArrayList<>(caches.keySet());
+    }
+
+    /**
+     * Stops the run clock. Later calls have no effect.
+     */
+    public void finish() {
+        if (elapsedNanos < 0) {
+            elapsedNanos = System.nanoTime() - startNanos;
+        }
+    }
+
+    /**
+     * Returns the elapsed time of the run.
+     *
+     * @return the time from construction until {@link #finish()}, or until now if not finished
+     */
+    public long getElapsedNanos() {
+        long elapsed = elapsedNanos;
+        return elapsed < 0 ? System.nanoTime() - startNanos : elapsed;
+    }
+
+    /**
+     * Returns the number of rows read.
+     *
+     * @return the row count
+     */
+    public long getRowsRead() {
+        return rowsRead.sum();
+    }
+
+    /**
+     * Returns the number of rows skipped for a reason.
+     *
+     * @param reason the skip reason
+     * @return the row count
+     */
+    public long getRowsSkipped(SkipReason reason) {
+        return rowsSkipped[reason.ordinal()].sum();
+    }
+
+    /**
+     * Returns the stages that have reported so far, in creation order.
+     *
+     * @return a snapshot of the stage metrics
+     */
+    public synchronized List<StageMetrics> getStages() {
+        return new ArrayList<>(stages.values());
+    }
+
+    /**
+     * Writes the metrics to a file. Files ending in ".json" are written as JSON,
+     * anything else in the Prometheus text format.
+     *
+     * @param file the path of the metrics file
+     * @throws IOException if the file cannot be written
+     */
+    public void export(String file) throws IOException {
+        String text = file.endsWith(".json") ? toJson() : toPrometheus();
+        Files.write(Paths.get(file), text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Formats the metrics as a JSON document.
+     *
+     * @return the JSON text
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"elapsedNanos\": ").append(getElapsedNanos()).append(",\n");
+        json.append("  \"rowsRead\": ").append(getRowsRead()).append(",\n");
+        json.append("  \"rowsSkipped\": {");
+        for (SkipReason reason : SkipReason.values()) {
+            json.append(reason.ordinal() == 0 ? "" : ", ");
+            json.append('"').append(reason.label()).append("\": ").append(getRowsSkipped(reason));
+        }
+        json.append("},\n");
+        json.append("  \"caches\": {");
+        List<String> cacheNames = getCacheNames();
+        for (int c = 0; c < cacheNames.size(); c++) {
+            String name = cacheNames.get(c);
+            long hits = getCacheHits(name);
+            long lookups = hits + getCacheMisses(name);
+            json.append(c == 0 ? "" : ", ");
+            json.append('"').append(escapeJson(name)).append("\": {\"hits\": ").append(hits);
+            json.append(", \"misses\": ").append(getCacheMisses(name));
+            json.append(", \"hitRate\": ").append(lookups == 0 ? 0.0 : (double) hits / lookups).append('}');
+        }
+        json.append("},\n");
+        json.append("  \"stages\": [");
+        List<StageMetrics> snapshot = getStages();
+        for (int s = 0; s < snapshot.size(); s++) {
+            StageMetrics stage = snapshot.get(s);
+            LatencyHistogram latency = stage.getLatency();
+            json.append(s == 0 ? "\n" : ",\n");
+            json.append("    {\"name\": \"").append(escapeJson(stage.getName())).append('"');
+            json.append(", \"rows\": ").append(stage.getRows());
+            json.append(", \"bytes\": ").append(stage.getBytes());
+            json.append(", \"nanos\": ").append(stage.getNanos());
+            json.append(", \"latency\": {\"count\": ").append(latency.getCount());
+            json.append(", \"p50Nanos\": ").append(latency.getPercentile(50));
+            json.append(", \"p99Nanos\": ").append(latency.getPercentile(99));
+            json.append(", \"buckets\": [");
+            boolean first = true;
+            for (int i = 0; i < LatencyHistogram.BUCKET_COUNT; i++) {
+                long count = latency.getBucketCount(i);
+                if (count > 0) {
+                    json.append(first ? "" : ", ");
+                    json.append("{\"ltNanos\": ").append(LatencyHistogram.getUpperBound(i));
+                    json.append(", \"count\": ").append(count).append('}');
+                    first = false;
+                }
+            }
+            json.append("]}}");
+        }
+        json.append(snapshot.isEmpty() ? "]\n" : "\n  ]\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    /**
+     * Formats the metrics in the Prometheus text exposition format.
+     * Latency buckets are cumulative and labelled with their upper bound in seconds.
+     *
+     * @return the Prometheus text
+     */
+    public String toPrometheus() {
+        StringBuilder text = new StringBuilder();
+        text.append("# HELP etl_elapsed_seconds Wall clock time of the pipeline run.\n");
+        text.append("# TYPE etl_elapsed_seconds gauge\n");
+        text.append("etl_elapsed_seconds ").append(seconds(getElapsedNanos())).append('\n');
+        text.append("# HELP etl_rows_read_total Data rows read from the input.\n");
+        text.append("# TYPE etl_rows_read_total counter\n");
+        text.append("etl_rows_read_total ").append(getRowsRead()).append('\n');
+        text.append("# HELP etl_rows_skipped_total Data rows skipped during extraction, by reason.\n");
+        text.append("# TYPE etl_rows_skipped_total counter\n");
+        for (SkipReason reason : SkipReason.values()) {
+            text.append("etl_rows_skipped_total{reason=\"").append(reason.label()).append("\"} ")
+                    .append(getRowsSkipped(reason)).append('\n');
+        }
+
+        List<String> cacheNames = getCacheNames();
+        text.append("# HELP etl_cache_hits_total String cache lookups answered from the cache.\n");
+        text.append("# TYPE etl_cache_hits_total counter\n");
+        for (String name : cacheNames) {
+            text.append("etl_cache_hits_total").append(label("cache", name)).append(' ')
+                    .append(getCacheHits(name)).append('\n');
+        }
+        text.append("# HELP etl_cache_misses_total String cache lookups that built a new value.\n");
+        text.append("# TYPE etl_cache_misses_total counter\n");
+        for (String name : cacheNames) {
+            text.append("etl_cache_misses_total").append(label("cache", name)).append(' ')
+                    .append(getCacheMisses(name)).append('\n');
+        }
+
+        List<StageMetrics> snapshot = getStages();
+        text.append("# HELP etl_stage_rows_total Rows produced by each stage.\n");
+        text.append("# TYPE etl_stage_rows_total counter\n");
+        for (StageMetrics stage : snapshot) {
+            text.append("etl_stage_rows_total").append(stageLabel(stage, "")).append(' ')
+                    .append(stage.getRows()).append('\n');
+        }
+        text.append("# HELP etl_stage_bytes_total Bytes read or written by each stage.\n");
+        text.append("# TYPE etl_stage_bytes_total counter\n");
+        for (StageMetrics stage : snapshot) {
+            text.append("etl_stage_bytes_total").append(stageLabel(stage, "")).append(' ')
+                    .append(stage.getBytes()).append('\n');
+        }
+        text.append("# HELP etl_stage_latency_seconds Time taken by each unit of work of a stage.\n");
+        text.append("# TYPE etl_stage_latency_seconds histogram\n");
+        for (StageMetrics stage : snapshot) {
+            LatencyHistogram latency = stage.getLatency();
+            int last = 0;
+            for (int i = 0; i < LatencyHistogram.BUCKET_COUNT - 1; i++) {
+                if (latency.getBucketCount(i) > 0) {
+                    last = i;
+                }
+            }
+            long cumulative = 0;
+            for (int i = 0; i <= last; i++) {
+                cumulative += latency.getBucketCount(i);
+                text.append("etl_stage_latency_seconds_bucket")
+                        .append(stageLabel(stage, ",le=\"" + seconds(LatencyHistogram.getUpperBound(i)) + "\""))
+                        .append(' ').append(cumulative).append('\n');
+            }
+            text.append("etl_stage_latency_seconds_bucket").append(stageLabel(stage, ",le=\"+Inf\""))
+                    .append(' ').append(latency.getCount()).append('\n');
+            text.append("etl_stage_latency_seconds_sum").append(stageLabel(stage, "")).append(' ')
+                    .append(seconds(latency.getSum())).append('\n');
+            text.append("etl_stage_latency_seconds_count").append(stageLabel(stage, "")).append(' ')
+                    .append(latency.getCount()).append('\n');
+        }
+        return text.toString();
+    }
+
+    private static String stageLabel(StageMetrics stage, String extraLabels) {
+        return "{stage=\"" + escapeLabel(stage.getName()) + "\"" + extraLabels + "}";
+    }
+
+    private static String label(String name, String value) {
+        return "{" + name + "=\"" + escapeLabel(value) + "\"}";
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String seconds(long nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+
+    private static String escapeJson(String value) {
+        StringBuilder escaped = new StringBuilder();
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append(String.format("\\u%04x", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+}
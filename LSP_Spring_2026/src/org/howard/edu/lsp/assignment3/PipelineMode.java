@@ -0,0 +1,36 @@
+package org.howard.edu.lsp.assignment3;
+
+/**
+ * Execution strategies supported by the ETL pipeline orchestrator.
+ */
+public enum PipelineMode {
+    /** Extract every row, then transform every row, then load every row. */
+    BATCH,
+
+    /** Extract, transform and load one row at a time in constant memory. */
+    STREAMING,
+
+    /** Extract with several worker threads over newline-aligned byte ranges, then transform and load. */
+    PARALLEL,
+
+    /** Extract into a columnar ProductBatch, then transform and load it column by column. */
+    COLUMNAR,
+
+    /** Run extract, transform and load concurrently, connected by bounded queues of row batches. */
+    PIPELINED,
+
+    /** Reprocess only rows that changed since the previous run, using a persisted state file. */
+    INCREMENTAL,
+
+    /** Process every file matching a directory or glob concurrently on a bounded pool of workers. */
+    MULTI_FILE,
+
+    /** Stream rows into a partial output while recording checkpoints, so an interrupted run resumes where it stopped. */
+    CHECKPOINTED,
+
+    /** Keep watching the input and append rows to the output as they are added to the input. */
+    FOLLOW,
+
+    /** Extract into an off-heap row store, then transform and load the rows in place, outside the Java heap. */
+    OFF_HEAP
+}
@@ -0,0 +1,233 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs extract, transform and load as concurrent stages.
+ * Each stage has its own thread and hands batches of rows to the next stage
+ * through a bounded queue. When a stage falls behind, the queue in front of it
+ * fills up and the stages before it block, so memory stays bounded by the queue
+ * capacity and the batch size. With one thread per stage the rows keep their
+ * input order, and the total run time approaches that of the slowest stage.
+ */
+public class PipelinedExecutor {
+    private static final List<Product> END_OF_INPUT = new ArrayList<>();
+
+    private ETLConfig config;
+    private ProductExtractor extractor;
+    private ProductTransformer transformer;
+    private ProductLoader loader;
+    private PipelineMetrics metrics;
+    private ProductPostProcessor post;
+
+    /**
+     * Constructs a PipelinedExecutor over the given pipeline components.
+     * Batch size and queue capacity are taken from the configuration.
+     *
+     * @param config the ETL configuration
+     * @param extractor the extractor feeding the first stage
+     * @param transformer the transformer run by the second stage
+     * @param loader the loader run by the last stage
+     */
+    public PipelinedExecutor(ETLConfig config, ProductExtractor extractor,
+                             ProductTransformer transformer, ProductLoader loader) {
+        this(config, extractor, transformer, loader, new PipelineMetrics());
+    }
+
+    /**
+     * Constructs a PipelinedExecutor that reports into the given metrics.
+     * Each stage records the time it spends on every batch, excluding the time
+     * it waits on its queues, so the busiest stage is the bottleneck.
+     *
+     * @param config the ETL configuration
+     * @param extractor the extractor feeding the first stage
+     * @param transformer the transformer run by the second stage
+     * @param loader the loader run by the last stage
+     * @param metrics the metrics the stages report into
+     */
+    public PipelinedExecutor(ETLConfig config, ProductExtractor extractor,
+                             ProductTransformer transformer, ProductLoader loader, PipelineMetrics metrics) {
+        this(config, extractor, transformer, loader, metrics, null);
+    }
+
+    /**
+     * Constructs a PipelinedExecutor whose transform stage also feeds each transformed
+     * row to the summary of the given post-processor.
+     *
+     * @param config the ETL configuration
+     * @param extractor the extractor feeding the first stage
+     * @param transformer the transformer run by the second stage
+     * @param loader the loader run by the last stage
+     * @param metrics the metrics the stages report into
+     * @param post the post-processor whose summary receives every transformed row, or null for none
+     */
+    public PipelinedExecutor(ETLConfig config, ProductExtractor extractor, ProductTransformer transformer,
+                             ProductLoader loader, PipelineMetrics metrics, ProductPostProcessor post) {
+        this.config = config;
+        this.extractor = extractor;
+        this.transformer = transformer;
+        this.loader = loader;
+        this.metrics = metrics;
+        this.post = post;
+    }
+
+    /**
+     * Runs the three stages until the input is exhausted and every row has been written.
+     * If any stage fails, the other stages are interrupted, which also releases any
+     * stage blocked on a full or empty queue, and the error is reported.
+     *
+     * @return false if the input file could not be found or the run failed
+     */
+    public boolean run() {
+        ProductReader reader;
+        try {
+            reader = extractor.openReader();
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            return false;
+        }
+        if (reader == null) {
+            return false;
+        }
+
+        BlockingQueue<List<Product>> extracted = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        BlockingQueue<List<Product>> transformed = new ArrayBlockingQueue<>(config.getQueueCapacity());
+
+        ExecutorService stages = Executors.newFixedThreadPool(3);
+        CompletionService<Void> completion = new ExecutorCompletionService<>(stages);
+        try (ProductReader input = reader) {
+            completion.submit(new ExtractStage(input, extracted));
+            completion.submit(new TransformStage(extracted, transformed));
+            completion.submit(new LoadStage(transformed));
+
+            // Wait in completion order so a failed stage is noticed even while others are blocked
+            for (int i = 0; i < 3; i++) {
+                completion.take().get();
+            }
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            System.err.println(cause.getMessage() != null ? cause.getMessage() : cause.toString());
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            System.err.println("Pipeline interrupted");
+            return false;
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+            return false;
+        } finally {
+            // Interrupts the remaining stages if one of them failed
+            stages.shutdownNow();
+        }
+        return true;
+    }
+
+    /**
+     * Reads rows and groups them into batches for the transform stage.
+     */
+    private class ExtractStage implements Callable<Void> {
+        private final ProductReader reader;
+        private final BlockingQueue<List<Product>> output;
+
+        ExtractStage(ProductReader reader, BlockingQueue<List<Product>> output) {
+            this.reader = reader;
+            this.output = output;
+        }
+
+        @Override
+        public Void call() throws IOException, InterruptedException {
+            StageMetrics extract = metrics.stage(PipelineMetrics.EXTRACT);
+            int batchSize = config.getBatchSize();
+            List<Product> batch = new ArrayList<>(batchSize);
+            Product product;
+            long start = System.nanoTime();
+            while ((product = reader.read()) != null) {
+                batch.add(product);
+                if (batch.size() == batchSize) {
+                    extract.record(batch.size(), System.nanoTime() - start);
+                    output.put(batch);
+                    batch = new ArrayList<>(batchSize);
+                    start = System.nanoTime();
+                }
+            }
+            extract.record(batch.size(), System.nanoTime() - start);
+            extract.addBytes(new File(config.getInputFile()).length());
+            if (!batch.isEmpty()) {
+                output.put(batch);
+            }
+            output.put(END_OF_INPUT);
+            return null;
+        }
+    }
+
+    /**
+     * Transforms each batch in place and passes it on to the load stage.
+     */
+    private class TransformStage implements Callable<Void> {
+        private final BlockingQueue<List<Product>> input;
+        private final BlockingQueue<List<Product>> output;
+
+        TransformStage(BlockingQueue<List<Product>> input, BlockingQueue<List<Product>> output) {
+            this.input = input;
+            this.output = output;
+        }
+
+        @Override
+        public Void call() throws InterruptedException {
+            StageMetrics transform = metrics.stage(PipelineMetrics.TRANSFORM);
+            List<Product> batch;
+            while ((batch = input.take()) != END_OF_INPUT) {
+                long start = System.nanoTime();
+                for (Product product : batch) {
+                    transformer.transformProduct(product);
+                    if (post != null) {
+                        post.record(product);
+                    }
+                }
+                transform.record(batch.size(), System.nanoTime() - start);
+                output.put(batch);
+            }
+            output.put(END_OF_INPUT);
+            return null;
+        }
+    }
+
+    /**
+     * Writes each transformed batch to the output file.
+     */
+    private class LoadStage implements Callable<Void> {
+        private final BlockingQueue<List<Product>> input;
+
+        LoadStage(BlockingQueue<List<Product>> input) {
+            this.input = input;
+        }
+
+        @Override
+        public Void call() throws IOException, InterruptedException {
+            StageMetrics load = metrics.stage(PipelineMetrics.LOAD);
+            try (ProductWriter writer = loader.openWriter()) {
+                List<Product> batch;
+                while ((batch = input.take()) != END_OF_INPUT) {
+                    long start = System.nanoTime();
+                    for (Product product : batch) {
+                        writer.write(product);
+                    }
+                    load.record(batch.size(), System.nanoTime() - start);
+                }
+            }
+            load.addBytes(loader.getOutputSize());
+            return null;
+        }
+    }
+}
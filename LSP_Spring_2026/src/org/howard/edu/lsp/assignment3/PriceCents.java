@@ -0,0 +1,249 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point price arithmetic on a long count of cents.
+ * Parsing, discounting and price range classification all work on primitive
+ * longs, so the hot path of the pipeline never allocates a BigDecimal.
+ * Every operation rounds HALF_UP to two decimal places and produces exactly the
+ * same values as the equivalent BigDecimal code.
+ * <p>
+ * Prices are limited to magnitudes below 10^16 units so that scaling never overflows.
+ * Inputs outside that range, or written in a form the fast parser does not handle
+ * (exponents, non ASCII digits), are reported as {@link #UNSUPPORTED} and must be
+ * handled with BigDecimal instead.
+ */
+public final class PriceCents {
+    /** Returned by the parsers when the text is not a valid price. */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    /** Returned by the parsers when the text must be parsed with BigDecimal instead. */
+    public static final long UNSUPPORTED = Long.MIN_VALUE + 1;
+
+    /** Largest magnitude, in whole units, accepted by the fast parser. */
+    private static final long MAX_UNITS = 10_000_000_000_000_000L;
+
+    public static final long TEN = 1_000;
+    public static final long HUNDRED = 10_000;
+    public static final long FIVE_HUNDRED = 50_000;
+
+    private PriceCents() {
+    }
+
+    /**
+     * Parses a decimal price into cents, rounding HALF_UP to two decimal places
+     * exactly like {@code new BigDecimal(text).setScale(2, RoundingMode.HALF_UP)}.
+     *
+     * @param text the trimmed price text
+     * @return the price in cents, {@link #INVALID} if the text is not a number,
+     *         or {@link #UNSUPPORTED} if it needs the BigDecimal parser
+     */
+    public static long parse(CharSequence text) {
+        int length = text.length();
+        int i = 0;
+        if (length == 0) {
+            return INVALID;
+        }
+
+        char first = text.charAt(0);
+        boolean negative = first == '-';
+        if (negative || first == '+') {
+            i++;
+        }
+
+        long units = 0;
+        int integerDigits = 0;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                break;
+            }
+            units = units * 10 + (c - '0');
+            integerDigits++;
+            if (units >= MAX_UNITS) {
+                return UNSUPPORTED;
+            }
+        }
+
+        long fraction = 0;
+        int fractionDigits = 0;
+        boolean roundUp = false;
+        if (i < length && text.charAt(i) == '.') {
+            i++;
+            for (; i < length; i++) {
+                char c = text.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                if (fractionDigits < 2) {
+                    fraction = fraction * 10 + (c - '0');
+                } else if (fractionDigits == 2) {
+                    roundUp = c >= '5';
+                }
+                fractionDigits++;
+            }
+        }
+
+        if (i < length || integerDigits + fractionDigits == 0) {
+            // Exponents and non ASCII digits are left to BigDecimal
+            return needsBigDecimal(text) ? UNSUPPORTED : INVALID;
+        }
+
+        for (int d = fractionDigits; d < 2; d++) {
+            fraction *= 10;
+        }
+        long cents = units * 100 + fraction + (roundUp ? 1 : 0);
+        return negative ? -cents : cents;
+    }
+
+    /**
+     * Parses a price with BigDecimal, for text reported as {@link #UNSUPPORTED} by {@link #parse}.
+     *
+     * @param text the trimmed price text
+     * @return the price rounded HALF_UP to two decimal places, or null if it is not a number
+     */
+    public static BigDecimal parseBigDecimal(String text) {
+        // Reject malformed text up front, so only out of range exponents reach the exception path
+        if (!isDecimal(text)) {
+            return null;
+        }
+        try {
+            return new BigDecimal(text).setScale(2, RoundingMode.HALF_UP);
+        } catch (NumberFormatException | ArithmeticException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Multiplies a price by the decimal factor {@code numerator / divisor} and rounds
+     * HALF_UP to whole cents, matching BigDecimal multiply followed by setScale(2, HALF_UP).
+     *
+     * @param cents the price in cents
+     * @param numerator the unscaled value of the factor (9 for 0.9)
+     * @param divisor the power of ten the numerator is scaled by (10 for 0.9)
+     * @return the scaled price in cents, or {@link #UNSUPPORTED} if the product overflows
+     */
+    public static long multiply(long cents, long numerator, long divisor) {
+        long high = Math.multiplyHigh(cents, numerator);
+        long product = cents * numerator;
+        if ((high != 0 || product < 0) && (high != -1 || product >= 0)) {
+            return UNSUPPORTED;
+        }
+        boolean negative = product < 0;
+        long magnitude = negative ? -product : product;
+        long quotient = magnitude / divisor;
+        long remainder = magnitude % divisor;
+        if (remainder * 2 >= divisor) {
+            quotient++;
+        }
+        return negative ? -quotient : quotient;
+    }
+
+    /**
+     * Classifies a price into its price range.
+     *
+     * @param cents the price in cents
+     * @return "Low" up to 10.00, "Medium" up to 100.00, "High" up to 500.00, otherwise "Premium"
+     */
+    public static String priceRange(long cents) {
+        if (cents <= TEN) {
+            return "Low";
+        }
+        if (cents <= HUNDRED) {
+            return "Medium";
+        }
+        if (cents <= FIVE_HUNDRED) {
+            return "High";
+        }
+        return "Premium";
+    }
+
+    /**
+     * Converts a BigDecimal price to cents when it has exactly two decimal places
+     * and fits the supported range.
+     *
+     * @param price the price to convert
+     * @return the price in cents, or {@link #UNSUPPORTED} if it cannot be represented
+     */
+    public static long fromBigDecimal(BigDecimal price) {
+        if (price == null || price.scale() != 2 || price.precision() > 18) {
+            return UNSUPPORTED;
+        }
+        return price.unscaledValue().longValue();
+    }
+
+    /**
+     * Converts cents back to a BigDecimal with two decimal places.
+     *
+     * @param cents the price in cents
+     * @return the equivalent BigDecimal
+     */
+    public static BigDecimal toBigDecimal(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Checks whether text has the form BigDecimal accepts: an optional sign, digits with
+     * at most one decimal point, and an optional exponent. Digits of any script are accepted.
+     */
+    static boolean isDecimal(CharSequence text) {
+        int length = text.length();
+        int i = 0;
+        if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            i++;
+        }
+        int digits = 0;
+        boolean point = false;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '.') {
+                if (point) {
+                    return false;
+                }
+                point = true;
+            } else if (Character.isDigit(c)) {
+                digits++;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0) {
+            return false;
+        }
+        if (i == length) {
+            return true;
+        }
+        char marker = text.charAt(i++);
+        if (marker != 'e' && marker != 'E') {
+            return false;
+        }
+        if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            i++;
+        }
+        if (i == length) {
+            return false;
+        }
+        for (; i < length; i++) {
+            if (!Character.isDigit(text.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether text rejected by the fast parser could still be accepted by
+     * BigDecimal, which also understands exponents and non ASCII digits.
+     */
+    private static boolean needsBigDecimal(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == 'e' || c == 'E' || c >= 0x80) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -12,6 +12,7 @@ public class Product {
     private String productId;
     private String name;
     private BigDecimal price;
+    private long priceCents = PriceCents.UNSUPPORTED;
     private String category;
     private String priceRange;
 
@@ -28,7 +29,23 @@ public class Product {
     public Product(String productId, String name, BigDecimal price, String category){
         this.productId = productId;
         this.name = name;
-        this.price = price;
+        setPrice(price);
+        this.category = category;
+    }
+
+    /**
+     * Constructs a raw Product whose price is given as a fixed-point count of cents.
+     * This avoids allocating a BigDecimal for every extracted row.
+     *
+     * @param productId the unique identifier of the product
+     * @param name the name of the product
+     * @param priceCents the price of the product in cents
+     * @param category the category the product belongs to
+     */
+    public Product(String productId, String name, long priceCents, String category){
+        this.productId = productId;
+        this.name = name;
+        this.priceCents = priceCents;
         this.category = category;
     }
 
@@ -68,11 +85,23 @@ public class Product {
 
     /**
      * Sets the product price.
+     * Prices with two decimal places are stored as cents; any other value is kept as given.
      *
      * @param price the price value to assign to this product
      */
     public void setPrice(BigDecimal price){
-        this.price = price;
+        this.priceCents = PriceCents.fromBigDecimal(price);
+        this.price = priceCents == PriceCents.UNSUPPORTED ? price : null;
+    }
+
+    /**
+     * Sets the product price as a fixed-point count of cents.
+     *
+     * @param priceCents the price in cents
+     */
+    public void setPriceCents(long priceCents){
+        this.priceCents = priceCents;
+        this.price = null;
     }
 
     /**
@@ -117,9 +146,32 @@ public class Product {
      * @return the price of the product as a BigDecimal
      */
     public BigDecimal getPrice(){
+        if (hasPriceCents()) {
+            return PriceCents.toBigDecimal(priceCents);
+        }
         return this.price;
     }
 
+    /**
+     * Returns whether the price is held as a fixed-point count of cents.
+     * Prices that do not fit, or that do not have two decimal places, are only
+     * available through {@link #getPrice()}.
+     *
+     * @return true if {@link #getPriceCents()} holds the price
+     */
+    public boolean hasPriceCents(){
+        return priceCents != PriceCents.UNSUPPORTED;
+    }
+
+    /**
+     * Returns the product price as a fixed-point count of cents.
+     *
+     * @return the price in cents, or {@link PriceCents#UNSUPPORTED} if it is not held as cents
+     */
+    public long getPriceCents(){
+        return this.priceCents;
+    }
+
     /**
      * Returns the product category.
      *
@@ -0,0 +1,434 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar, primitive-specialized storage for a batch of products.
+ * Instead of one Product object per row, each field is kept in its own array:
+ * ids as ints, prices as cents in a long array, and categories and price ranges
+ * as small dictionary codes. This cuts per-row heap usage and keeps the transform
+ * loop running over contiguous primitive arrays.
+ * <p>
+ * Values that the primitive columns cannot represent exactly are kept on the side
+ * so that converting back with {@link #toProducts()} loses nothing: an id written
+ * in a non canonical form (such as "007" or "+7") keeps its original text, and a
+ * price that does not fit in cents keeps its BigDecimal.
+ */
+public class ProductBatch {
+    /** Price range code of a row that has not been classified yet. */
+    public static final byte NO_PRICE_RANGE = -1;
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private int size;
+    private int[] ids;
+    private String[] idTexts;
+    private String[] names;
+    private long[] prices;
+    private BigDecimal[] widePrices;
+    private int[] categories;
+    private byte[] priceRanges;
+
+    private final List<String> categoryDictionary = new ArrayList<>();
+    private final Map<String, Integer> categoryCodes = new HashMap<>();
+    private final List<String> priceRangeDictionary = new ArrayList<>();
+
+    /**
+     * Constructs an empty batch with a default initial capacity.
+     */
+    public ProductBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty batch able to hold the given number of rows before growing.
+     *
+     * @param capacity the initial number of rows
+     */
+    public ProductBatch(int capacity) {
+        capacity = Math.max(capacity, 1);
+        ids = new int[capacity];
+        names = new String[capacity];
+        prices = new long[capacity];
+        categories = new int[capacity];
+        priceRanges = new byte[capacity];
+    }
+
+    /**
+     * Builds a batch holding the given products, in order.
+     *
+     * @param products the products to copy into the batch
+     * @return a new batch
+     */
+    public static ProductBatch fromProducts(List<Product> products) {
+        ProductBatch batch = new ProductBatch(products.size());
+        for (Product product : products) {
+            batch.add(product);
+        }
+        return batch;
+    }
+
+    /**
+     * Converts every row of the batch back into a Product, in order.
+     *
+     * @return a list of new Product objects
+     */
+    public List<Product> toProducts() {
+        List<Product> products = new ArrayList<>(size);
+        for (int row = 0; row < size; row++) {
+            products.add(getProduct(row));
+        }
+        return products;
+    }
+
+    /**
+     * Appends a product to the batch.
+     * The product ID must be a valid integer, as guaranteed by the extractor.
+     *
+     * @param product the product to append
+     */
+    public void add(Product product) {
+        ensureCapacity(size + 1);
+        int row = size++;
+
+        String idText = product.getProductId();
+        ids[row] = Integer.parseInt(idText);
+        if (!isCanonicalInt(idText)) {
+            if (idTexts == null) {
+                idTexts = new String[ids.length];
+            }
+            idTexts[row] = idText;
+        } else if (idTexts != null) {
+            idTexts[row] = null;
+        }
+
+        names[row] = product.getName();
+        if (product.hasPriceCents()) {
+            setPriceCents(row, product.getPriceCents());
+        } else {
+            setPrice(row, product.getPrice());
+        }
+        categories[row] = categoryCode(product.getCategory());
+        priceRanges[row] = product.getPriceRange() == null ? NO_PRICE_RANGE : priceRangeCode(product.getPriceRange());
+    }
+
+    /**
+     * Returns a new Product holding the values of a row.
+     *
+     * @param row the row index
+     * @return the row as a Product
+     */
+    public Product getProduct(int row) {
+        Product product = hasPriceCents(row)
+                ? new Product(getIdText(row), names[row], prices[row], getCategory(row))
+                : new Product(getIdText(row), names[row], getPrice(row), getCategory(row));
+        product.setPriceRange(getPriceRange(row));
+        return product;
+    }
+
+    /**
+     * Returns the number of rows in the batch.
+     *
+     * @return the row count
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every row while keeping the allocated columns and dictionaries for reuse.
+     */
+    public void clear() {
+        if (idTexts != null) {
+            Arrays.fill(idTexts, 0, size, null);
+        }
+        if (widePrices != null) {
+            Arrays.fill(widePrices, 0, size, null);
+        }
+        Arrays.fill(names, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Returns the numeric product ID of a row.
+     *
+     * @param row the row index
+     * @return the product ID
+     */
+    public int getId(int row) {
+        return ids[row];
+    }
+
+    /**
+     * Returns the product ID of a row exactly as it appeared in the input.
+     *
+     * @param row the row index
+     * @return the product ID text
+     */
+    public String getIdText(int row) {
+        if (idTexts != null && idTexts[row] != null) {
+            return idTexts[row];
+        }
+        return Integer.toString(ids[row]);
+    }
+
+    /**
+     * Returns whether the product ID of a row is the canonical text of its numeric value.
+     *
+     * @param row the row index
+     * @return false if the ID was written in another form, such as "007" or "+7"
+     */
+    public boolean hasCanonicalId(int row) {
+        return idTexts == null || idTexts[row] == null;
+    }
+
+    /**
+     * Returns the name of a row.
+     *
+     * @param row the row index
+     * @return the product name
+     */
+    public String getName(int row) {
+        return names[row];
+    }
+
+    /**
+     * Sets the name of a row.
+     *
+     * @param row the row index
+     * @param name the product name
+     */
+    public void setName(int row, String name) {
+        names[row] = name;
+    }
+
+    /**
+     * Returns whether the price of a row is held as cents.
+     *
+     * @param row the row index
+     * @return true if {@link #getPriceCents(int)} holds the price
+     */
+    public boolean hasPriceCents(int row) {
+        return widePrices == null || widePrices[row] == null;
+    }
+
+    /**
+     * Returns the price of a row in cents.
+     *
+     * @param row the row index
+     * @return the price in cents; only meaningful when {@link #hasPriceCents(int)} is true
+     */
+    public long getPriceCents(int row) {
+        return prices[row];
+    }
+
+    /**
+     * Sets the price of a row in cents.
+     *
+     * @param row the row index
+     * @param cents the price in cents
+     */
+    public void setPriceCents(int row, long cents) {
+        prices[row] = cents;
+        if (widePrices != null) {
+            widePrices[row] = null;
+        }
+    }
+
+    /**
+     * Returns the price of a row as a BigDecimal.
+     *
+     * @param row the row index
+     * @return the product price
+     */
+    public BigDecimal getPrice(int row) {
+        return hasPriceCents(row) ? PriceCents.toBigDecimal(prices[row]) : widePrices[row];
+    }
+
+    /**
+     * Sets the price of a row from a BigDecimal, storing it as cents when possible.
+     *
+     * @param row the row index
+     * @param price the product price
+     */
+    public void setPrice(int row, BigDecimal price) {
+        long cents = PriceCents.fromBigDecimal(price);
+        if (cents != PriceCents.UNSUPPORTED) {
+            setPriceCents(row, cents);
+            return;
+        }
+        if (widePrices == null) {
+            widePrices = new BigDecimal[ids.length];
+        }
+        widePrices[row] = price;
+    }
+
+    /**
+     * Returns the category dictionary code of a row.
+     *
+     * @param row the row index
+     * @return the category code
+     */
+    public int getCategoryCode(int row) {
+        return categories[row];
+    }
+
+    /**
+     * Sets the category dictionary code of a row.
+     *
+     * @param row the row index
+     * @param code a code returned by {@link #categoryCode(String)}
+     */
+    public void setCategoryCode(int row, int code) {
+        categories[row] = code;
+    }
+
+    /**
+     * Returns the category of a row.
+     *
+     * @param row the row index
+     * @return the category name
+     */
+    public String getCategory(int row) {
+        return categoryDictionary.get(categories[row]);
+    }
+
+    /**
+     * Returns the dictionary code for a category, adding it if it is new.
+     *
+     * @param category the category name
+     * @return the category code
+     */
+    public int categoryCode(String category) {
+        Integer code = categoryCodes.get(category);
+        if (code == null) {
+            code = categoryDictionary.size();
+            categoryDictionary.add(category);
+            categoryCodes.put(category, code);
+        }
+        return code;
+    }
+
+    /**
+     * Returns the dictionary code for a category without adding it.
+     *
+     * @param category the category name
+     * @return the category code, or -1 if no row uses that category
+     */
+    public int findCategoryCode(String category) {
+        Integer code = categoryCodes.get(category);
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Returns the number of distinct categories in the dictionary.
+     *
+     * @return the category count; codes range from 0 to this value minus one
+     */
+    public int getCategoryCount() {
+        return categoryDictionary.size();
+    }
+
+    /**
+     * Returns the category name for a dictionary code.
+     *
+     * @param code the category code
+     * @return the category name
+     */
+    public String getCategoryName(int code) {
+        return categoryDictionary.get(code);
+    }
+
+    /**
+     * Returns the price range dictionary code of a row.
+     *
+     * @param row the row index
+     * @return the price range code, or {@link #NO_PRICE_RANGE}
+     */
+    public byte getPriceRangeCode(int row) {
+        return priceRanges[row];
+    }
+
+    /**
+     * Sets the price range dictionary code of a row.
+     *
+     * @param row the row index
+     * @param code a code returned by {@link #priceRangeCode(String)}
+     */
+    public void setPriceRangeCode(int row, byte code) {
+        priceRanges[row] = code;
+    }
+
+    /**
+     * Returns the price range of a row.
+     *
+     * @param row the row index
+     * @return the price range, or null if the row has not been classified
+     */
+    public String getPriceRange(int row) {
+        byte code = priceRanges[row];
+        return code == NO_PRICE_RANGE ? null : priceRangeDictionary.get(code);
+    }
+
+    /**
+     * Returns the dictionary code for a price range, adding it if it is new.
+     *
+     * @param priceRange the price range name
+     * @return the price range code
+     */
+    public byte priceRangeCode(String priceRange) {
+        int code = priceRangeDictionary.indexOf(priceRange);
+        if (code < 0) {
+            if (priceRangeDictionary.size() == Byte.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct price ranges");
+            }
+            code = priceRangeDictionary.size();
+            priceRangeDictionary.add(priceRange);
+        }
+        return (byte) code;
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        priceRanges = Arrays.copyOf(priceRanges, capacity);
+        if (idTexts != null) {
+            idTexts = Arrays.copyOf(idTexts, capacity);
+        }
+        if (widePrices != null) {
+            widePrices = Arrays.copyOf(widePrices, capacity);
+        }
+    }
+
+    /**
+     * Checks whether Integer.toString would reproduce the text of a valid integer,
+     * i.e. it has no plus sign, no leading zeros and only ASCII digits.
+     */
+    static boolean isCanonicalInt(String text) {
+        int start = text.startsWith("-") ? 1 : 0;
+        if (text.length() - start > 1 && text.charAt(start) == '0') {
+            return false;
+        }
+        if (text.equals("-0")) {
+            return false;
+        }
+        for (int i = start; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
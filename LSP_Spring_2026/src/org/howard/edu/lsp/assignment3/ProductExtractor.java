@@ -2,7 +2,8 @@ package org.howard.edu.lsp.assignment3;
 
 import java.io.*;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -13,9 +14,16 @@ import java.util.List;
  * It also tracks statistics such as rows read and rows skipped.
  */
 public class ProductExtractor {
-    private ETLConfig config;
+    private static final int CATEGORY_CACHE_SIZE = 256;
+
+    /** The configuration naming the input file and how to read it. */
+    protected final ETLConfig config;
     private int rowsRead = 0;
     private int rowsSkipped = 0;
+    private final int[] rowsSkippedByReason = new int[SkipReason.values().length];
+    // Categories take a handful of distinct values, so every row shares one instance per value
+    private final StringCache categories = new StringCache(CATEGORY_CACHE_SIZE);
+    private RejectLog rejects;
 
     /**
      * Constructs a ProductExtractor using the provided ETL configuration.
@@ -25,6 +33,7 @@ public class ProductExtractor {
      */
     public ProductExtractor(ETLConfig config) {
         this.config = config;
+        this.rejects = RejectLog.console(config.getSkipLogInterval());
     }
 
     /**
@@ -45,6 +54,95 @@ public class ProductExtractor {
     public List<Product> extractData(){
         List<Product> products = new ArrayList<>();
 
+        // Try-With-Resources automatically closes the reader
+        try (ProductReader reader = openReader()) {
+            if (reader == null) {
+                return null;
+            }
+
+            Product product;
+            while ((product = reader.read()) != null) {
+                products.add(product);
+            }
+
+        } catch (FileNotFoundException ex) {
+            System.err.println(ex.getMessage());
+        }
+        catch (IOException ex) {
+            System.err.println(ex.getMessage());
+        }
+
+        return products;
+    }
+
+    /**
+     * Extracts product data from the configured input CSV file into a columnar batch.
+     * Rows are streamed from the file straight into the batch, so no list of
+     * Product objects is kept alive during extraction.
+     *
+     * @return a ProductBatch holding the valid rows;
+     *         returns null if the input file does not exist
+     */
+    public ProductBatch extractBatch(){
+        ProductBatch batch = new ProductBatch();
+
+        try (ProductReader reader = openReader()) {
+            if (reader == null) {
+                return null;
+            }
+
+            Product product;
+            while ((product = reader.read()) != null) {
+                batch.add(product);
+            }
+
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+        }
+
+        return batch;
+    }
+
+    /**
+     * Extracts product data from the configured input CSV file into an off-heap store.
+     * Each row is copied into the store as soon as it is read, so the extracted rows
+     * are never held on the heap. The caller must close the store.
+     *
+     * @return an OffHeapProductStore holding the valid rows;
+     *         returns null if the input file does not exist
+     */
+    public OffHeapProductStore extractOffHeap(){
+        OffHeapProductStore store = new OffHeapProductStore();
+
+        try (ProductReader reader = openReader()) {
+            if (reader == null) {
+                store.close();
+                return null;
+            }
+
+            Product product;
+            while ((product = reader.read()) != null) {
+                store.add(product);
+            }
+
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+        }
+
+        return store;
+    }
+
+    /**
+     * Opens a streaming reader over the configured input CSV file.
+     * The header row is consumed before the reader is returned, and every
+     * row handed out by the reader has already been validated.
+     * Rows read and rows skipped are tracked by this extractor as the reader advances.
+     *
+     * @return a ProductReader positioned at the first data row;
+     *         returns null if the input file does not exist
+     * @throws IOException if the input file cannot be opened
+     */
+    public ProductReader openReader() throws IOException {
         // Ensure data directory exists
         File dataDir = new File("data");
         if (!dataDir.exists()) dataDir.mkdir();
@@ -56,59 +154,228 @@ public class ProductExtractor {
             return null;
         }
 
-        // Try-With-Resources automatically closes the reader
-        try (BufferedReader br = new BufferedReader(new FileReader(config.getInputFile()))) {
+        CompressionCodec codec = CompressionCodec.forInput(config.getInputFile(), config.getInputCompression());
+        if (config.isMemoryMapped() && codec == CompressionCodec.NONE) {
+            return new MappedProductReader(config.getInputFile(), this, config.getDelimiter());
+        }
 
-            String line = br.readLine(); // read header once
+        BufferedReader br = openTextReader(config.getInputFile(), codec);
+        br.readLine(); // read header once
+        return new CsvProductReader(br, this);
+    }
 
-            while ((line = br.readLine()) != null) {
+    /**
+     * Opens a text reader over an input file, decompressing it if needed.
+     * Compressed input is inflated on a separate thread, so decompression overlaps
+     * with parsing. Text is decoded with the platform charset, like FileReader.
+     *
+     * @param inputFile the path to the input file
+     * @param codec the compression of the file
+     * @return a reader positioned at the start of the text
+     * @throws IOException if the file cannot be opened or its compression header is invalid
+     */
+    static BufferedReader openTextReader(String inputFile, CompressionCodec codec) throws IOException {
+        if (codec == CompressionCodec.NONE) {
+            return new BufferedReader(new FileReader(inputFile));
+        }
+        InputStream compressed = Files.newInputStream(Paths.get(inputFile));
+        try {
+            InputStream text = new ReadAheadInputStream(codec.decompress(compressed), "decompress " + inputFile);
+            return new BufferedReader(new InputStreamReader(text));
+        } catch (IOException ex) {
+            compressed.close();
+            throw ex;
+        }
+    }
 
-                rowsRead++;
+    /**
+     * Validates a single data row and converts it into a Product.
+     * Every call counts as one row read; rows that are blank, have the wrong
+     * number of columns, or carry an invalid product ID or price are counted as skipped
+     * under the matching {@link SkipReason}.
+     *
+     * @param line the raw data row, without its line terminator
+     * @return the extracted Product, or null if the row was skipped
+     */
+    Product parseLine(String line) {
+        // Skip blank lines
+        if (line.trim().isEmpty()) {
+            reject(SkipReason.BLANK, line);
+            return null;
+        }
 
-                // Skip blank lines
-                if (line.trim().isEmpty()) {
-                    rowsSkipped++;
-                    continue;
-                }
+        // Split row using configured delimiter
+        String[] lineParts = line.split(config.getDelimiter());
 
-                // Split row using configured delimiter
-                String[] lineParts = line.split(config.getDelimiter());
+        if (lineParts.length != 4) {
+            reject(SkipReason.COLUMN_COUNT, line);
+            return null;
+        }
 
-                if (lineParts.length != 4) {
-                    rowsSkipped++;
-                    continue;
-                }
+        String productId = lineParts[0].trim();
+        String name = lineParts[1].trim();
+        String price = lineParts[2].trim();
+        String category = lineParts[3].trim();
 
-                String productId = lineParts[0].trim();
-                String name = lineParts[1].trim();
-                String price = lineParts[2].trim();
-                String category = lineParts[3].trim();
+        // Validate productId and price
+        if (!isValidId(productId)) {
+            reject(SkipReason.INVALID_ID, line);
+            return null;
+        }
+        long priceCents = PriceCents.parse(price);
+        BigDecimal widePrice = null;
+        if (priceCents == PriceCents.UNSUPPORTED) {
+            widePrice = PriceCents.parseBigDecimal(price);
+            if (widePrice == null) {
+                priceCents = PriceCents.INVALID;
+            }
+        }
+        if (priceCents == PriceCents.INVALID) {
+            reject(SkipReason.INVALID_PRICE, line);
+            return null;
+        }
 
-                BigDecimal parsedPrice;
+        recordRow();
+        // Only interned once the row is valid, so rejected rows never evict real categories
+        category = categories.intern(category);
+        if (widePrice != null) {
+            return new Product(productId, name, widePrice, category);
+        }
+        return new Product(productId, name, priceCents, category);
+    }
 
-                // Validate productId and price
-                try {
-                    Integer.parseInt(productId);
-                    parsedPrice = new BigDecimal(price).setScale(2, RoundingMode.HALF_UP);
+    /**
+     * Checks whether text would be accepted by Integer.parseInt, without throwing.
+     * Like Integer.parseInt, digits of any script are accepted.
+     *
+     * @param text the trimmed ProductID text
+     * @return true if the text is a valid int
+     */
+    static boolean isValidId(CharSequence text) {
+        int length = text.length();
+        if (length == 0) {
+            return false;
+        }
+        int i = 0;
+        char first = text.charAt(0);
+        boolean negative = first == '-';
+        if (negative || first == '+') {
+            i++;
+            if (i == length) {
+                return false;
+            }
+        }
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long value = 0;
+        for (; i < length; i++) {
+            char c = text.charAt(i);
+            int digit = c >= '0' && c <= '9' ? c - '0' : Character.digit(c, 10);
+            if (digit < 0) {
+                return false;
+            }
+            value = value * 10 + digit;
+            if (value > limit) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-                } catch (Exception e) {
-                    System.out.println("Skipping row due to invalid ProductID or Price");
-                    rowsSkipped++;
-                    continue;
-                }
+    /**
+     * Records one valid row handled by a reader that validates rows itself.
+     */
+    void recordRow() {
+        rowsRead++;
+    }
 
-                Product product = new Product(productId, name, parsedPrice, category);
-                products.add(product);
-            }
+    /**
+     * Records one row that was read and skipped.
+     *
+     * @param reason why the row was skipped
+     */
+    private void recordSkip(SkipReason reason) {
+        rowsRead++;
+        rowsSkipped++;
+        rowsSkippedByReason[reason.ordinal()]++;
+    }
 
-        } catch (FileNotFoundException ex) {
-            System.err.println(ex.getMessage());
+    /**
+     * Records one row that was read and skipped, and passes it to the reject log.
+     *
+     * @param reason why the row was skipped
+     * @param row the raw text of the row; only kept if the reject log records rows
+     */
+    void reject(SkipReason reason, String row) {
+        recordSkip(reason);
+        // The header is line 1, so the n-th row read is line n + 1
+        rejects.reject(config.getInputFile(), rowsRead + 1L, reason, rejects.isRecordingRows() ? row : null);
+    }
+
+    /**
+     * Restores the row statistics of an earlier, interrupted run over the same input,
+     * so that counting continues where that run stopped.
+     *
+     * @param rowsRead the number of rows read
+     * @param rowsSkippedByReason the number of rows skipped, indexed by {@link SkipReason#ordinal()}
+     */
+    void restoreStatistics(int rowsRead, int[] rowsSkippedByReason) {
+        this.rowsRead += rowsRead;
+        for (SkipReason reason : SkipReason.values()) {
+            this.rowsSkipped += rowsSkippedByReason[reason.ordinal()];
+            this.rowsSkippedByReason[reason.ordinal()] += rowsSkippedByReason[reason.ordinal()];
         }
-        catch (IOException ex) {
-            System.err.println(ex.getMessage());
+    }
+
+    /**
+     * Sets the log that receives the rows skipped by this extractor.
+     * By default skipped rows are only reported on the console.
+     *
+     * @param rejects the reject log, which may be shared with other extractors
+     */
+    void setRejectLog(RejectLog rejects) {
+        this.rejects = rejects;
+    }
+
+    /**
+     * Returns the log that receives the rows skipped by this extractor.
+     *
+     * @return the reject log
+     */
+    RejectLog getRejectLog() {
+        return rejects;
+    }
+
+    /**
+     * Adds the row and category cache statistics of another extractor to this one.
+     * Used to merge the statistics of extractors that each read part of the input.
+     *
+     * @param other the extractor whose statistics are added
+     */
+    void addStatistics(ProductExtractor other) {
+        rowsRead += other.getRowsRead();
+        rowsSkipped += other.getRowsSkipped();
+        for (SkipReason reason : SkipReason.values()) {
+            rowsSkippedByReason[reason.ordinal()] += other.getRowsSkipped(reason);
         }
+        categories.addStatistics(other.getCategoryCache());
+    }
 
-        return products;
+    /**
+     * Returns the cache that deduplicates category values.
+     *
+     * @return the category cache, with its hit and miss counts
+     */
+    public StringCache getCategoryCache() {
+        return categories;
+    }
+
+    /**
+     * Returns the backend that finds delimiters and line terminators in the raw input bytes.
+     *
+     * @return the vector tokenizer if it is configured and available, otherwise the scalar one
+     */
+    ByteTokenizer getTokenizer() {
+        return ByteTokenizer.create(config.isVectorTokenizer());
     }
 
     /**
@@ -137,4 +404,14 @@ public class ProductExtractor {
         return rowsSkipped;
     }
 
+    /**
+     * Returns the number of rows skipped for a single reason.
+     *
+     * @param reason the skip reason
+     * @return the number of rows skipped for that reason
+     */
+    public int getRowsSkipped(SkipReason reason){
+        return rowsSkippedByReason[reason.ordinal()];
+    }
+
 }
\ No newline at end of file
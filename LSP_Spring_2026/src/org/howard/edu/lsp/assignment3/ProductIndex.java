@@ -0,0 +1,424 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sidecar index from ProductID to the position of each row in an output file,
+ * for point lookups without scanning the output.
+ * <p>
+ * The index file (the output file name followed by ".idx") is written next to the output
+ * when the pipeline runs with {@link ETLConfig#setIndexOutput(boolean)}. It holds a header
+ * followed by (int id, long position) entries sorted by id, where the position is the byte
+ * offset of the row in a CSV output or the row number in a binary output. The index is
+ * memory-mapped and searched with a binary search, and only the matching rows of the
+ * output are read.
+ * <p>
+ * The header records the size and modification time of the output it was built for.
+ * Every pipeline run that rewrites an output either rebuilds its index or deletes it,
+ * and a lookup fails with an IOException if the output has changed since the index was
+ * written. Compressed output cannot be read at an offset and is never indexed.
+ */
+public final class ProductIndex implements Closeable {
+    /** The bytes "PIDX" read as a little-endian int. */
+    private static final int MAGIC = 0x58444950;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 36;
+    private static final int ENTRY_BYTES = 12;
+    private static final int MIN_ROW_BYTES = 256;
+
+    private final String outputFile;
+    private final String indexFile;
+    private final FileChannel channel;
+    private final ByteBuffer entries;
+    private final int entryCount;
+    private final OutputFormat format;
+    private final long outputSize;
+    private final long outputModified;
+    private final Charset charset = Charset.defaultCharset();
+    private FileChannel csvOutput;
+    private BinaryProductReader binaryOutput;
+    private BinaryProductReader.RowGroup[] rowGroups;
+
+    /**
+     * Opens the index written next to an output file.
+     *
+     * @param outputFile the path to the indexed output file
+     * @throws IOException if the index cannot be read, is not valid or is out of date
+     */
+    public ProductIndex(String outputFile) throws IOException {
+        this(outputFile, indexFileFor(outputFile));
+    }
+
+    /**
+     * Opens an index file.
+     *
+     * @param outputFile the path to the indexed output file
+     * @param indexFile the path to the index file
+     * @throws IOException if the index cannot be read, is not valid or is out of date
+     */
+    public ProductIndex(String outputFile, String indexFile) throws IOException {
+        this.outputFile = outputFile;
+        this.indexFile = indexFile;
+        this.channel = FileChannel.open(Paths.get(indexFile), StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Not a product index: " + indexFile);
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a product index: " + indexFile);
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported product index version " + version + ": " + indexFile);
+            }
+            int formatCode = header.getInt();
+            outputSize = header.getLong();
+            outputModified = header.getLong();
+            long count = header.getLong();
+            if (formatCode < 0 || formatCode >= OutputFormat.values().length
+                    || count < 0 || count > Integer.MAX_VALUE / ENTRY_BYTES
+                    || size != HEADER_BYTES + count * ENTRY_BYTES) {
+                throw new IOException("Corrupt product index: " + indexFile);
+            }
+            format = OutputFormat.values()[formatCode];
+            entryCount = (int) count;
+            entries = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, count * ENTRY_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            checkCurrent();
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the path of the index file kept next to an output file.
+     *
+     * @param outputFile the path to the output file
+     * @return the path to its index file
+     */
+    public static String indexFileFor(String outputFile) {
+        return outputFile + ".idx";
+    }
+
+    /**
+     * Returns the number of rows in the index.
+     *
+     * @return the entry count
+     */
+    public int size() {
+        return entryCount;
+    }
+
+    /**
+     * Finds the first row of the output with the given product ID.
+     *
+     * @param productId the numeric product ID
+     * @return the row as a Product, or null if no row has that ID
+     * @throws IOException if the output cannot be read or has changed since the index was written
+     */
+    public Product lookup(int productId) throws IOException {
+        checkCurrent();
+        int entry = firstEntry(productId);
+        return entry < entryCount && idAt(entry) == productId ? readRow(productId, positionAt(entry)) : null;
+    }
+
+    /**
+     * Finds every row of the output with the given product ID, in output order.
+     *
+     * @param productId the numeric product ID
+     * @return the rows as Products; empty if no row has that ID
+     * @throws IOException if the output cannot be read or has changed since the index was written
+     */
+    public List<Product> lookupAll(int productId) throws IOException {
+        checkCurrent();
+        List<Product> products = new ArrayList<>();
+        for (int entry = firstEntry(productId); entry < entryCount && idAt(entry) == productId; entry++) {
+            products.add(readRow(productId, positionAt(entry)));
+        }
+        return products;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (binaryOutput != null) {
+                binaryOutput.close();
+            }
+            if (csvOutput != null) {
+                csvOutput.close();
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Returns the index of the first entry whose ID is not less than the given ID.
+     */
+    private int firstEntry(int productId) {
+        int low = 0;
+        int high = entryCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (idAt(mid) < productId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int idAt(int entry) {
+        return entries.getInt(entry * ENTRY_BYTES);
+    }
+
+    private long positionAt(int entry) {
+        return entries.getLong(entry * ENTRY_BYTES + 4);
+    }
+
+    private void checkCurrent() throws IOException {
+        Path output = Paths.get(outputFile);
+        if (!Files.isRegularFile(output) || Files.size(output) != outputSize
+                || Files.getLastModifiedTime(output).toMillis() != outputModified) {
+            throw outOfDate();
+        }
+    }
+
+    private IOException outOfDate() {
+        return new IOException("Index " + indexFile + " is out of date for " + outputFile);
+    }
+
+    /**
+     * Reads the row at a position of the output and checks that it has the expected ID.
+     */
+    private Product readRow(int productId, long position) throws IOException {
+        Product product = format == OutputFormat.BINARY ? readBinaryRow(position) : readCsvRow(position);
+        if (product == null || !isId(product.getProductId(), productId)) {
+            throw outOfDate();
+        }
+        return product;
+    }
+
+    private Product readBinaryRow(long row) throws IOException {
+        if (binaryOutput == null) {
+            binaryOutput = new BinaryProductReader(outputFile);
+            rowGroups = new BinaryProductReader.RowGroup[binaryOutput.getRowGroupCount()];
+        }
+        long group = row / binaryOutput.getRowGroupSize();
+        if (row < 0 || group >= rowGroups.length) {
+            return null;
+        }
+        // Row groups are mapped on first use and kept, since lookups tend to revisit them
+        BinaryProductReader.RowGroup rowGroup = rowGroups[(int) group];
+        if (rowGroup == null) {
+            rowGroup = binaryOutput.getRowGroup((int) group);
+            rowGroups[(int) group] = rowGroup;
+        }
+        int index = (int) (row % binaryOutput.getRowGroupSize());
+        return index < rowGroup.size() ? rowGroup.getProduct(index) : null;
+    }
+
+    /**
+     * Reads one CSV row starting at a byte offset, reading more of the file only
+     * until the line separator is found.
+     */
+    private Product readCsvRow(long offset) throws IOException {
+        if (csvOutput == null) {
+            csvOutput = FileChannel.open(Paths.get(outputFile), StandardOpenOption.READ);
+        }
+        String separator = System.lineSeparator();
+        ByteBuffer bytes = ByteBuffer.allocate(MIN_ROW_BYTES);
+        while (true) {
+            int read = csvOutput.read(bytes, offset + bytes.position());
+            String text = new String(bytes.array(), 0, bytes.position(), charset);
+            int end = text.indexOf(separator);
+            if (end >= 0 || read < 0) {
+                return parseCsvRow(end >= 0 ? text.substring(0, end) : text);
+            }
+            if (!bytes.hasRemaining()) {
+                bytes = ByteBuffer.allocate(bytes.capacity() * 2).put(bytes.flip());
+            }
+        }
+    }
+
+    /**
+     * Splits an output row into its five fields. The name is taken as everything between
+     * the first comma and the last three, so a name containing commas is kept whole.
+     */
+    private static Product parseCsvRow(String row) {
+        int rangeAt = row.lastIndexOf(',');
+        int categoryAt = rangeAt > 0 ? row.lastIndexOf(',', rangeAt - 1) : -1;
+        int priceAt = categoryAt > 0 ? row.lastIndexOf(',', categoryAt - 1) : -1;
+        int nameAt = row.indexOf(',');
+        if (nameAt < 0 || priceAt <= nameAt) {
+            return null;
+        }
+        BigDecimal price;
+        try {
+            price = new BigDecimal(row.substring(priceAt + 1, categoryAt));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+        return new Product(row.substring(0, nameAt), row.substring(nameAt + 1, priceAt), price,
+                row.substring(categoryAt + 1, rangeAt), row.substring(rangeAt + 1));
+    }
+
+    private static boolean isId(String text, int productId) {
+        try {
+            return Integer.parseInt(text) == productId;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the index of an output file that is about to be rewritten and, if the
+     * configuration asks for an index and the output can be indexed, returns a builder
+     * for the new one.
+     *
+     * @param config the configuration naming the output file, its format and compression
+     * @return a builder to pass to the writer, or null if no index is built
+     * @throws IOException if an existing index cannot be deleted
+     */
+    static Builder prepare(ETLConfig config) throws IOException {
+        String outputFile = config.getOutputFile();
+        Files.deleteIfExists(Paths.get(indexFileFor(outputFile)));
+        if (!config.isIndexOutput()) {
+            return null;
+        }
+        if (CompressionCodec.forOutput(outputFile, config.getOutputCompression()) != CompressionCodec.NONE) {
+            System.out.println("Compressed output is not indexed: " + outputFile);
+            return null;
+        }
+        return new Builder(outputFile, config.getOutputFormat());
+    }
+
+    /**
+     * Collects the position of every row while an output is written and writes the
+     * sorted index once the output is complete.
+     */
+    static final class Builder {
+        private final String outputFile;
+        private final OutputFormat format;
+        // Each key holds the ID in its high half and the row's insertion number in its low half,
+        // so sorting the keys sorts by ID and keeps rows with the same ID in output order
+        private long[] keys = new long[1024];
+        private long[] positions = new long[1024];
+        private int count;
+
+        Builder(String outputFile, OutputFormat format) {
+            this.outputFile = outputFile;
+            this.format = format;
+        }
+
+        /**
+         * Records the position of the next row.
+         *
+         * @param productId the numeric product ID of the row
+         * @param position the byte offset of a CSV row, or the row number in a binary file
+         */
+        void add(int productId, long position) {
+            if (count == keys.length) {
+                keys = Arrays.copyOf(keys, count * 2);
+                positions = Arrays.copyOf(positions, count * 2);
+            }
+            keys[count] = ((long) productId << 32) | count;
+            positions[count++] = position;
+        }
+
+        /**
+         * Sorts the entries by ID, keeping rows with the same ID in output order, and
+         * writes the index next to the now complete output file. The index is written
+         * to a temporary file and renamed, so readers never see a partial index.
+         *
+         * @throws IOException if the index cannot be written
+         */
+        void finish() throws IOException {
+            Arrays.sort(keys, 0, count);
+            Path output = Paths.get(outputFile);
+            Path index = Paths.get(indexFileFor(outputFile));
+            Path temporary = Paths.get(indexFileFor(outputFile) + ".tmp");
+
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocate(64 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(MAGIC).putInt(VERSION).putInt(format.ordinal())
+                        .putLong(Files.size(output))
+                        .putLong(Files.getLastModifiedTime(output).toMillis())
+                        .putLong(count);
+                for (int i = 0; i < count; i++) {
+                    if (buffer.remaining() < ENTRY_BYTES) {
+                        writeFully(out, buffer);
+                    }
+                    long key = keys[i];
+                    buffer.putInt((int) (key >>> 32)).putLong(positions[(int) key]);
+                }
+                writeFully(out, buffer);
+            }
+
+            try {
+                Files.move(temporary, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temporary, index, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+
+        private static void writeFully(FileChannel out, ByteBuffer buffer) throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Looks up product IDs in an indexed output file and prints the matching rows.
+     *
+     * @param args the output file followed by one or more product IDs
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: ProductIndex <output file> <product id>...");
+            return;
+        }
+        try (ProductIndex index = new ProductIndex(args[0])) {
+            for (int i = 1; i < args.length; i++) {
+                List<Product> products;
+                try {
+                    products = index.lookupAll(Integer.parseInt(args[i].trim()));
+                } catch (NumberFormatException ex) {
+                    System.out.println("Invalid product ID: " + args[i]);
+                    continue;
+                }
+                if (products.isEmpty()) {
+                    System.out.println("Product " + args[i] + " not found");
+                }
+                for (Product product : products) {
+                    System.out.println(CsvProductWriter.formatRow(product));
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println(ex.getMessage());
+        }
+    }
+}
@@ -3,11 +3,12 @@ package org.howard.edu.lsp.assignment3;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
 import java.util.List;
 
 public class ProductLoader {
     private ETLConfig config;
+    private PartitionedProductWriter partitioned;
 
     public ProductLoader(ETLConfig config) {
         this.config = config;
@@ -23,14 +24,115 @@ public class ProductLoader {
 
     public void loadTransformed(List<Product> transformedProducts) {
     	
-        try (PrintWriter writer = new PrintWriter(new File(config.getOutputFile()))) {
-            writer.println("ProductID,Name,Price,Category,PriceRange");
+        try (ProductWriter writer = openWriter()) {
             for (Product product : transformedProducts) {
                 // Load Data Rows to csv file
-                writer.println(product.getProductId() + "," + product.getName() + "," + product.getPrice() + "," + product.getCategory() + "," + product.getPriceRange());
+                writer.write(product);
             }
         } catch (IOException ex) {
             System.err.println(ex.getMessage());
         }
     }
+
+    /**
+     * Loads a transformed columnar batch into the configured output file.
+     * Rows are written straight from the batch columns without creating Product objects.
+     *
+     * @param transformedProducts the batch of transformed products
+     * @throws IOException if the output cannot be written
+     */
+    public void loadTransformed(ProductBatch transformedProducts) throws IOException {
+        try (ProductWriter writer = openWriter()) {
+            writer.write(transformedProducts);
+        }
+    }
+
+    /**
+     * Loads a transformed off-heap store into the configured output file.
+     * Rows are written straight from the store without creating Product objects.
+     *
+     * @param transformedProducts the store of transformed products
+     * @throws IOException if the output cannot be written
+     */
+    public void loadTransformed(OffHeapProductStore transformedProducts) throws IOException {
+        try (ProductWriter writer = openWriter()) {
+            writer.write(transformedProducts);
+        }
+    }
+
+    /**
+     * Opens a streaming writer over the configured output file in the configured format.
+     * For CSV the header row is written immediately and each product passed to the
+     * writer is written as one comma separated row; for the binary format rows are
+     * written in row groups. The output is compressed with the configured codec, or
+     * the codec implied by the file name. Any index of the previous output is deleted,
+     * and a new one is written when the writer is closed if the configuration asks for it.
+     * When a partition column is configured, the rows are written to one file per
+     * partition by a {@link PartitionedProductWriter} instead.
+     *
+     * @return a ProductWriter for the configured output file
+     * @throws IOException if the output file cannot be created
+     */
+    public ProductWriter openWriter() throws IOException {
+        if (config.getPartitionKey() != null) {
+            partitioned = new PartitionedProductWriter(config);
+            return partitioned;
+        }
+        return openFileWriter(config, config.getOutputFile(), ProductIndex.prepare(config));
+    }
+
+    /**
+     * Returns where the output was written: the output file, or the directory holding
+     * the partition files and their manifest.
+     *
+     * @return the output location
+     */
+    public String getOutputLocation() {
+        if (config.getPartitionKey() != null) {
+            return PartitionedProductWriter.getDirectory(config).toString();
+        }
+        return config.getOutputFile();
+    }
+
+    /**
+     * Returns the size on disk of the output written by the last writer.
+     *
+     * @return the size of the output file, or the total size of the partition files
+     */
+    public long getOutputSize() {
+        if (partitioned == null) {
+            return new File(config.getOutputFile()).length();
+        }
+        return partitioned.getFileBytes();
+    }
+
+    /**
+     * Returns the number of partitions the last writer created.
+     *
+     * @return the partition count, or 0 if the output is not partitioned
+     */
+    public int getPartitionCount() {
+        return partitioned != null ? partitioned.getPartitionCount() : 0;
+    }
+
+    /**
+     * Opens a writer over one file in the configured format and compression.
+     *
+     * @param config the configuration naming the format and compression
+     * @param file the path of the file to create
+     * @param index the index to record row offsets in, or null for none
+     * @return a ProductWriter for the file
+     * @throws IOException if the file cannot be created
+     */
+    static ProductWriter openFileWriter(ETLConfig config, String file, ProductIndex.Builder index) throws IOException {
+        OutputStream out = CompressionCodec.openOutput(file, config.getOutputCompression());
+        if (config.getOutputFormat() == OutputFormat.BINARY) {
+            BinaryProductWriter writer = new BinaryProductWriter(out);
+            writer.setIndex(index);
+            return writer;
+        }
+        CsvProductWriter writer = new CsvProductWriter(out, config.getWriteBufferSize());
+        writer.setIndex(index);
+        return writer;
+    }
 }
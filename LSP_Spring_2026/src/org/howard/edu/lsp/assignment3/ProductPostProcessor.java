@@ -0,0 +1,227 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Optional stages that run on the transformed products before they are loaded:
+ * removing rows with a repeated ProductID, sorting, and summarizing prices per
+ * category and price range. Which stages run is taken from the {@link ETLConfig}.
+ * <p>
+ * Deduplication keeps the latest row for each ProductID at the position where the
+ * ProductID first appeared, using an {@link IntIntMap} from ProductID to output position.
+ * Sorting is stable and runs on a fork/join pool of {@link ETLConfig#getWorkerCount()}
+ * threads, as does the summary, whose accumulators are safe to update concurrently.
+ * Deduplication and sorting need every row at once, so they are only available to
+ * pipelines that hold the transformed products in a list, and run as passes of their
+ * own after the transform. The summary is built one row at a time, so it is also fed
+ * by the row-at-a-time pipelines and read from columnar and off-heap stores.
+ */
+public class ProductPostProcessor {
+    private static final Comparator<Product> BY_PRICE = (a, b) -> {
+        if (a.hasPriceCents() && b.hasPriceCents()) {
+            return Long.compare(a.getPriceCents(), b.getPriceCents());
+        }
+        BigDecimal left = a.getPrice();
+        BigDecimal right = b.getPrice();
+        return left.compareTo(right);
+    };
+
+    private final boolean dedupe;
+    private final SortKey sortKey;
+    private final String summaryFile;
+    private final int parallelism;
+    private final ProductSummary summary;
+    private int duplicatesRemoved = 0;
+
+    /**
+     * Constructs a post processor running the stages enabled in the configuration.
+     *
+     * @param config the configuration naming the dedupe, sort and summary settings
+     */
+    public ProductPostProcessor(ETLConfig config) {
+        this.dedupe = config.isDedupe();
+        this.sortKey = config.getSortKey();
+        this.summaryFile = config.getSummaryFile();
+        this.parallelism = config.getWorkerCount();
+        this.summary = summaryFile != null ? new ProductSummary() : null;
+    }
+
+    /**
+     * Returns whether any stage is enabled.
+     *
+     * @return true if products are deduplicated, sorted or summarized
+     */
+    public boolean isEnabled() {
+        return dedupe || sortKey != null || summary != null;
+    }
+
+    /**
+     * Returns whether an enabled stage needs every transformed row at once.
+     *
+     * @return true if products are deduplicated or sorted
+     */
+    public boolean needsAllRows() {
+        return dedupe || sortKey != null;
+    }
+
+    /**
+     * Runs the enabled stages over a list of transformed products.
+     *
+     * @param products the transformed products, in input order
+     * @return the products to load, deduplicated and sorted as configured
+     */
+    public List<Product> process(List<Product> products) {
+        if (dedupe) {
+            products = dedupe(products);
+        }
+        if (sortKey == null && summary == null) {
+            return products;
+        }
+
+        Product[] rows = products.toArray(new Product[0]);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> {
+                // Work started from a pool thread stays in that pool
+                if (sortKey != null) {
+                    sort(rows);
+                }
+                if (summary != null) {
+                    Arrays.stream(rows).parallel().forEach(summary::add);
+                }
+            }).join();
+        } finally {
+            pool.shutdown();
+        }
+        return sortKey != null ? new ArrayList<>(Arrays.asList(rows)) : products;
+    }
+
+    /**
+     * Adds one transformed product to the summary, for pipelines that load row by row.
+     *
+     * @param product the transformed product
+     */
+    public void record(Product product) {
+        if (summary != null) {
+            summary.add(product);
+        }
+    }
+
+    /**
+     * Adds every row of a transformed columnar batch to the summary, reading the
+     * columns directly rather than creating a product per row.
+     *
+     * @param batch the transformed batch
+     */
+    public void record(ProductBatch batch) {
+        if (summary == null) {
+            return;
+        }
+        for (int row = 0; row < batch.size(); row++) {
+            if (batch.hasPriceCents(row)) {
+                summary.add(batch.getCategory(row), batch.getPriceRange(row), batch.getPriceCents(row));
+            } else {
+                summary.add(batch.getCategory(row), batch.getPriceRange(row), batch.getPrice(row));
+            }
+        }
+    }
+
+    /**
+     * Adds every row of a transformed off-heap store to the summary, reading the
+     * rows in place rather than creating a product per row.
+     *
+     * @param store the transformed store, which must still be open
+     */
+    public void record(OffHeapProductStore store) {
+        if (summary == null) {
+            return;
+        }
+        OffHeapProductStore.Row row = store.row();
+        for (int i = 0; i < store.size(); i++) {
+            row.moveTo(i);
+            if (row.hasPriceCents()) {
+                summary.add(row.getCategory(), row.getPriceRange(), row.getPriceCents());
+            } else {
+                summary.add(row.getCategory(), row.getPriceRange(), row.getPrice());
+            }
+        }
+    }
+
+    /**
+     * Writes the summary file, if one is configured.
+     *
+     * @throws IOException if the summary file cannot be written
+     */
+    public void finish() throws IOException {
+        if (summary != null) {
+            summary.write(summaryFile);
+        }
+    }
+
+    /**
+     * Returns the summary built so far.
+     *
+     * @return the summary, or null if no summary file is configured
+     */
+    public ProductSummary getSummary() {
+        return summary;
+    }
+
+    /**
+     * Returns the number of rows dropped because a later row had the same ProductID.
+     *
+     * @return the number of duplicate rows removed
+     */
+    public int getDuplicatesRemoved() {
+        return duplicatesRemoved;
+    }
+
+    /**
+     * Keeps the latest row of every ProductID, at the position of its first row.
+     */
+    private List<Product> dedupe(List<Product> products) {
+        IntIntMap positions = new IntIntMap(products.size());
+        List<Product> unique = new ArrayList<>(products.size());
+        for (Product product : products) {
+            int id = Integer.parseInt(product.getProductId());
+            int position = positions.get(id);
+            if (position == IntIntMap.MISSING) {
+                positions.put(id, unique.size());
+                unique.add(product);
+            } else {
+                unique.set(position, product);
+            }
+        }
+        duplicatesRemoved += products.size() - unique.size();
+        return unique;
+    }
+
+    /**
+     * Sorts rows stably by the configured key.
+     * ProductIDs are sorted as primitive keys packed with the original position,
+     * which keeps equal ids in input order without a comparator.
+     */
+    private void sort(Product[] rows) {
+        if (sortKey == SortKey.PRICE) {
+            Arrays.parallelSort(rows, BY_PRICE);
+            return;
+        }
+        long[] keys = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            // The signed id in the high half orders the keys; the position breaks ties
+            keys[i] = (long) Integer.parseInt(rows[i].getProductId()) << 32 | i;
+        }
+        Arrays.parallelSort(keys);
+        Product[] sorted = new Product[rows.length];
+        for (int i = 0; i < keys.length; i++) {
+            sorted[i] = rows[(int) keys[i]];
+        }
+        System.arraycopy(sorted, 0, rows, 0, rows.length);
+    }
+}
@@ -0,0 +1,20 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Pull-based source of validated products.
+ * A reader hands out one product per call and never keeps earlier rows,
+ * so a pipeline built on it runs in constant memory regardless of file size.
+ */
+public interface ProductReader extends Closeable {
+
+    /**
+     * Reads the next valid product, skipping rows that fail validation.
+     *
+     * @return the next product, or null when the input is exhausted
+     * @throws IOException if the input cannot be read
+     */
+    Product read() throws IOException;
+}
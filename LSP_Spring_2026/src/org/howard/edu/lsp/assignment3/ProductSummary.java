@@ -0,0 +1,203 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Count, sum, minimum, maximum and average price of the transformed products,
+ * per category and per price range.
+ * <p>
+ * Every statistic is kept in a concurrent accumulator, so any number of threads can
+ * add products at the same time without locking. Prices held as cents are summed
+ * exactly by adding their high and low 32 bits to separate counters; the rare prices
+ * only held as a BigDecimal are accumulated under a lock.
+ */
+public final class ProductSummary {
+    /** Header row of the summary file. */
+    public static final String HEADER = "Group,Value,Count,Sum,Min,Max,Average";
+
+    private final Map<String, Aggregate> categories = new ConcurrentHashMap<>();
+    private final Map<String, Aggregate> priceRanges = new ConcurrentHashMap<>();
+
+    /**
+     * Adds one transformed product.
+     *
+     * @param product the product, after transformation
+     */
+    public void add(Product product) {
+        if (product.hasPriceCents()) {
+            add(product.getCategory(), product.getPriceRange(), product.getPriceCents());
+        } else {
+            add(product.getCategory(), product.getPriceRange(), product.getPrice());
+        }
+    }
+
+    /**
+     * Adds one transformed row whose price is held as cents, for pipelines that
+     * keep their rows in columns rather than as products.
+     *
+     * @param category the category of the row
+     * @param priceRange the price range of the row
+     * @param cents the price in cents
+     */
+    public void add(String category, String priceRange, long cents) {
+        aggregateFor(categories, category).add(cents);
+        aggregateFor(priceRanges, priceRange).add(cents);
+    }
+
+    /**
+     * Adds one transformed row whose price is only held as a BigDecimal.
+     *
+     * @param category the category of the row
+     * @param priceRange the price range of the row
+     * @param price the price
+     */
+    public void add(String category, String priceRange, BigDecimal price) {
+        aggregateFor(categories, category).add(price);
+        aggregateFor(priceRanges, priceRange).add(price);
+    }
+
+    /**
+     * Returns the statistics per category, sorted by category.
+     *
+     * @return the aggregates keyed by category
+     */
+    public Map<String, Aggregate> getCategories() {
+        return new TreeMap<>(categories);
+    }
+
+    /**
+     * Returns the statistics per price range, sorted by price range.
+     *
+     * @return the aggregates keyed by price range
+     */
+    public Map<String, Aggregate> getPriceRanges() {
+        return new TreeMap<>(priceRanges);
+    }
+
+    /**
+     * Writes the summary as CSV, one row per category followed by one row per price range.
+     *
+     * @param file the path of the summary file, replaced if it exists
+     * @throws IOException if the file cannot be written
+     */
+    public void write(String file) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(file))) {
+            out.write(HEADER);
+            out.newLine();
+            writeGroup(out, "category", getCategories());
+            writeGroup(out, "price_range", getPriceRanges());
+        }
+    }
+
+    private static void writeGroup(BufferedWriter out, String group, Map<String, Aggregate> aggregates) throws IOException {
+        for (Map.Entry<String, Aggregate> entry : aggregates.entrySet()) {
+            Aggregate aggregate = entry.getValue();
+            out.write(group + "," + RejectLog.quote(entry.getKey()) + "," + aggregate.getCount()
+                    + "," + aggregate.getSum().toPlainString() + "," + aggregate.getMin().toPlainString()
+                    + "," + aggregate.getMax().toPlainString() + "," + aggregate.getAverage().toPlainString());
+            out.newLine();
+        }
+    }
+
+    private static Aggregate aggregateFor(Map<String, Aggregate> aggregates, String key) {
+        String group = key == null ? "" : key;
+        // Groups are created once, so the lock free get answers nearly every call
+        Aggregate aggregate = aggregates.get(group);
+        return aggregate != null ? aggregate : aggregates.computeIfAbsent(group, g -> new Aggregate());
+    }
+
+    /**
+     * Price statistics of one group of products.
+     */
+    public static final class Aggregate {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumHigh = new LongAdder();
+        private final LongAdder sumLow = new LongAdder();
+        private final LongAccumulator minCents = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator maxCents = new LongAccumulator(Math::max, Long.MIN_VALUE);
+        private BigDecimal wideSum = BigDecimal.ZERO;
+        private BigDecimal wideMin;
+        private BigDecimal wideMax;
+
+        Aggregate() {
+        }
+
+        void add(long cents) {
+            count.increment();
+            sumHigh.add(cents >> 32);
+            sumLow.add(cents & 0xFFFFFFFFL);
+            minCents.accumulate(cents);
+            maxCents.accumulate(cents);
+        }
+
+        void add(BigDecimal price) {
+            count.increment();
+            synchronized (this) {
+                wideSum = wideSum.add(price);
+                wideMin = wideMin == null || price.compareTo(wideMin) < 0 ? price : wideMin;
+                wideMax = wideMax == null || price.compareTo(wideMax) > 0 ? price : wideMax;
+            }
+        }
+
+        /**
+         * Returns the number of products in the group.
+         *
+         * @return the product count
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Returns the total price of the products in the group.
+         *
+         * @return the exact sum
+         */
+        public synchronized BigDecimal getSum() {
+            BigInteger cents = BigInteger.valueOf(sumHigh.sum()).shiftLeft(32).add(BigInteger.valueOf(sumLow.sum()));
+            return new BigDecimal(cents, 2).add(wideSum);
+        }
+
+        /**
+         * Returns the lowest price in the group.
+         *
+         * @return the minimum, or null if the group is empty
+         */
+        public synchronized BigDecimal getMin() {
+            long cents = minCents.get();
+            BigDecimal min = cents == Long.MAX_VALUE ? null : PriceCents.toBigDecimal(cents);
+            return min == null || (wideMin != null && wideMin.compareTo(min) < 0) ? wideMin : min;
+        }
+
+        /**
+         * Returns the highest price in the group.
+         *
+         * @return the maximum, or null if the group is empty
+         */
+        public synchronized BigDecimal getMax() {
+            long cents = maxCents.get();
+            BigDecimal max = cents == Long.MIN_VALUE ? null : PriceCents.toBigDecimal(cents);
+            return max == null || (wideMax != null && wideMax.compareTo(max) > 0) ? wideMax : max;
+        }
+
+        /**
+         * Returns the average price in the group, rounded HALF_UP to two decimal places.
+         *
+         * @return the average, or null if the group is empty
+         */
+        public BigDecimal getAverage() {
+            long n = getCount();
+            return n == 0 ? null : getSum().divide(BigDecimal.valueOf(n), 2, RoundingMode.HALF_UP);
+        }
+    }
+}
@@ -2,22 +2,52 @@ package org.howard.edu.lsp.assignment3;
 
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
 
 public class ProductTransformer {
 
 
-    private static final BigDecimal TEN = new BigDecimal("10");
-    private static final BigDecimal HUNDRED = new BigDecimal("100");
-    private static final BigDecimal FIVE_HUNDRED = new BigDecimal("500");
-    private static final BigDecimal ELECTRONICS_DISCOUNT = new BigDecimal("0.9");
-    private static int rowsTransformed = 0;
+    /** Number of uppercase names remembered when no cache size is given. */
+    public static final int DEFAULT_NAME_CACHE_SIZE = 4096;
+
+    private final TransformRules rules;
+    private final StringCache names;
+    private final LongAdder rowsTransformed = new LongAdder();
+
+    /**
+     * Creates a transformer that applies the default business rules.
+     */
+    public ProductTransformer() {
+        this(TransformRules.defaults());
+    }
+
+    /**
+     * Creates a transformer that applies the given compiled rules.
+     *
+     * @param rules the rules to apply
+     */
+    public ProductTransformer(TransformRules rules) {
+        this(rules, DEFAULT_NAME_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a transformer that applies the given compiled rules and remembers the
+     * uppercase form of up to the given number of names, so names that repeat across
+     * rows are converted once and share one instance.
+     *
+     * @param rules the rules to apply
+     * @param nameCacheSize the number of names to remember; 0 converts every name
+     */
+    public ProductTransformer(TransformRules rules, int nameCacheSize) {
+        this.rules = rules;
+        this.names = new StringCache(nameCacheSize);
+    }
 
     /**
      * Transforms a list of raw products by applying business rules.
-     * Applies a 10% discount to electronics, assigns price ranges,
+     * Applies the category discounts and promotions, assigns price ranges,
      * and converts product names to uppercase.
      *
      * @param products the list of raw products to transform
@@ -27,59 +57,239 @@ public class ProductTransformer {
         List<Product> transformedProducts = new ArrayList<>();
         
         for(Product product : products){
-            String name = product.getName();
-            BigDecimal price = product.getPrice();
-            String category = product.getCategory();
+            transformedProducts.add(transformProduct(product));
+        }
+    return transformedProducts;
+    }
 
-            BigDecimal newPrice;
-            String priceRange;
-            String updatedCategory;
+    /**
+     * Transforms every row of a columnar batch in place by applying the business rules.
+     * The rules are resolved once per category code and price range label before the
+     * loop, so each row costs an array lookup, a fixed-point multiply and a binary search.
+     *
+     * @param batch the batch of raw products to transform
+     * @return the same batch, now transformed
+     */
+    public ProductBatch transform(ProductBatch batch){
+        int categoryCount = batch.getCategoryCount();
+        TransformRules.CategoryRule[] categoryRules = new TransformRules.CategoryRule[categoryCount];
+        for (int code = 0; code < categoryCount; code++) {
+            categoryRules[code] = rules.ruleFor(batch.getCategoryName(code));
+        }
+        String[] labels = rules.getPriceRangeLabels();
+        byte[] priceRanges = new byte[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            priceRanges[i] = batch.priceRangeCode(labels[i]);
+        }
 
-            // transform name to uppercase
-            String upperName = name.toUpperCase();
-            updatedCategory = category;
+        int size = batch.size();
+        int transformed = 0;
+        for (int row = 0; row < size; row++) {
+            int categoryCode = batch.getCategoryCode(row);
+            TransformRules.CategoryRule rule = categoryCode < categoryCount ? categoryRules[categoryCode] : null;
+            long newPrice = batch.hasPriceCents(row) ? batch.getPriceCents(row) : PriceCents.UNSUPPORTED;
+            if (rule != null && newPrice != PriceCents.UNSUPPORTED) {
+                newPrice = rule.applyDiscount(newPrice);
+            }
 
-            //apply 10% discount on electronics, change category if discounted price is greater than 500
-            if(category.equals("Electronics")){
-                newPrice = price.multiply(ELECTRONICS_DISCOUNT).setScale(2, RoundingMode.HALF_UP);
+            if (newPrice == PriceCents.UNSUPPORTED) {
+                Product product = transformWidePrice(batch.getProduct(row));
+                batch.setName(row, product.getName());
+                batch.setPrice(row, product.getPrice());
+                batch.setCategoryCode(row, batch.categoryCode(product.getCategory()));
+                batch.setPriceRangeCode(row, batch.priceRangeCode(product.getPriceRange()));
+                continue;
+            }
 
-                if (newPrice.compareTo(FIVE_HUNDRED)>0){
-                    updatedCategory = "Premium Electronics";
+            //apply the category discount, change category if the discounted price crosses the promotion threshold
+            if (rule != null) {
+                batch.setPriceCents(row, newPrice);
+                String category = batch.getCategoryName(categoryCode);
+                String updatedCategory = rule.categoryFor(newPrice, category);
+                if (updatedCategory != category) {
+                    batch.setCategoryCode(row, batch.categoryCode(updatedCategory));
                 }
             }
-            else{
-                newPrice = price;
-                updatedCategory = category;
+
+            batch.setPriceRangeCode(row, priceRanges[rules.priceRangeIndex(newPrice)]);
+
+            // transform name to uppercase
+            if (rules.isUppercaseNames()) {
+                batch.setName(row, names.upperCase(batch.getName(row)));
             }
+            transformed++;
+        }
+        rowsTransformed.add(transformed);
+        return batch;
+    }
 
-            //create new metric per row called price range based on price
-            if (newPrice.compareTo(TEN)<=0){
-                priceRange = "Low";
+    /**
+     * Transforms every row of an off-heap store in place by applying the business rules.
+     * Rows are visited with one flyweight cursor, and ASCII names are uppercased byte by
+     * byte in the string area, so rows whose price fits in cents are transformed without
+     * allocating. The rules are resolved once per category code, as for a columnar batch.
+     *
+     * @param store the store of raw products to transform
+     * @return the same store, now transformed
+     */
+    public OffHeapProductStore transform(OffHeapProductStore store){
+        int categoryCount = store.getCategoryCount();
+        TransformRules.CategoryRule[] categoryRules = new TransformRules.CategoryRule[categoryCount];
+        for (int code = 0; code < categoryCount; code++) {
+            categoryRules[code] = rules.ruleFor(store.getCategoryName(code));
+        }
+        String[] labels = rules.getPriceRangeLabels();
+        byte[] priceRanges = new byte[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            priceRanges[i] = store.priceRangeCode(labels[i]);
+        }
+        // Some locales, such as Turkish, uppercase ASCII letters to non ASCII ones
+        boolean asciiUpperCase = "i".toUpperCase().equals("I");
+
+        OffHeapProductStore.Row row = store.row();
+        int size = store.size();
+        int transformed = 0;
+        for (int index = 0; index < size; index++) {
+            row.moveTo(index);
+            int categoryCode = row.getCategoryCode();
+            TransformRules.CategoryRule rule = categoryCode < categoryCount ? categoryRules[categoryCode] : null;
+            long newPrice = row.hasPriceCents() ? row.getPriceCents() : PriceCents.UNSUPPORTED;
+            if (rule != null && newPrice != PriceCents.UNSUPPORTED) {
+                newPrice = rule.applyDiscount(newPrice);
             }
-            else if (newPrice.compareTo(HUNDRED)<=0 &&
-                    newPrice.compareTo(TEN)>0){
-                priceRange = "Medium";
+
+            if (newPrice == PriceCents.UNSUPPORTED) {
+                Product product = transformWidePrice(store.getProduct(index));
+                row.setName(product.getName());
+                row.setPrice(product.getPrice());
+                row.setCategoryCode(store.categoryCode(product.getCategory()));
+                row.setPriceRangeCode(store.priceRangeCode(product.getPriceRange()));
+                continue;
             }
-            else if (newPrice.compareTo(FIVE_HUNDRED)<=0 &&
-                    newPrice.compareTo(HUNDRED)>0){
-                priceRange = "High";
+
+            //apply the category discount, change category if the discounted price crosses the promotion threshold
+            if (rule != null) {
+                row.setPriceCents(newPrice);
+                String category = store.getCategoryName(categoryCode);
+                String updatedCategory = rule.categoryFor(newPrice, category);
+                if (updatedCategory != category) {
+                    row.setCategoryCode(store.categoryCode(updatedCategory));
+                }
             }
-            else{
-                priceRange = "Premium";
+
+            row.setPriceRangeCode(priceRanges[rules.priceRangeIndex(newPrice)]);
+
+            // transform name to uppercase
+            if (rules.isUppercaseNames() && !(asciiUpperCase && row.upperCaseAsciiName())) {
+                row.setName(names.upperCase(row.getName()));
             }
+            transformed++;
+        }
+        rowsTransformed.add(transformed);
+        return store;
+    }
 
-            product.setName(upperName);
-            product.setCategory(updatedCategory);
-            product.setPrice(newPrice);
-            product.setPriceRange(priceRange);
-            transformedProducts.add(product);
-            rowsTransformed++;
+    /**
+     * Transforms a single raw product in place by applying the business rules.
+     * This is the per-row step used by both the list based and the streaming pipelines.
+     *
+     * @param product the raw product to transform
+     * @return the same product instance, now transformed
+     */
+    public Product transformProduct(Product product){
+        if (!product.hasPriceCents()) {
+            return transformWidePrice(product);
         }
-    return transformedProducts;
+
+        String category = product.getCategory();
+        long newPrice = product.getPriceCents();
+        String updatedCategory = category;
+
+        //apply the category discount, change category if the discounted price crosses the promotion threshold
+        TransformRules.CategoryRule rule = rules.ruleFor(category);
+        if (rule != null) {
+            newPrice = rule.applyDiscount(newPrice);
+            if (newPrice == PriceCents.UNSUPPORTED) {
+                return transformWidePrice(product);
+            }
+            updatedCategory = rule.categoryFor(newPrice, category);
+        }
+
+        // transform name to uppercase
+        if (rules.isUppercaseNames()) {
+            product.setName(names.upperCase(product.getName()));
+        }
+        product.setCategory(updatedCategory);
+        product.setPriceCents(newPrice);
+        product.setPriceRange(rules.priceRange(newPrice));
+        rowsTransformed.increment();
+        return product;
+    }
+
+    /**
+     * Applies the business rules with BigDecimal arithmetic.
+     * Used for prices that cannot be held as a fixed-point count of cents.
+     */
+    private Product transformWidePrice(Product product){
+        String name = product.getName();
+        BigDecimal price = product.getPrice();
+        String category = product.getCategory();
+
+        BigDecimal newPrice = price;
+        String updatedCategory = category;
+
+        //apply the category discount, change category if the discounted price crosses the promotion threshold
+        TransformRules.CategoryRule rule = rules.ruleFor(category);
+        if (rule != null) {
+            newPrice = rule.applyDiscount(price);
+            updatedCategory = rule.categoryFor(newPrice, category);
+        }
+
+        // transform name to uppercase
+        product.setName(rules.isUppercaseNames() ? names.upperCase(name) : name);
+        product.setCategory(updatedCategory);
+        product.setPrice(newPrice);
+        //create new metric per row called price range based on price
+        product.setPriceRange(rules.priceRange(newPrice));
+        rowsTransformed.increment();
+        return product;
+    }
+
+    /**
+     * Returns the compiled rules this transformer applies.
+     *
+     * @return the rules
+     */
+    public TransformRules getRules(){
+        return rules;
+    }
+
+    /**
+     * Returns the cache of uppercase names.
+     *
+     * @return the name cache, with its hit and miss counts
+     */
+    public StringCache getNameCache(){
+        return names;
+    }
+
+    /**
+     * Adds rows transformed by an earlier, interrupted run to the count.
+     *
+     * @param rows the number of rows transformed
+     */
+    void restoreRowsTransformed(long rows){
+        rowsTransformed.add(rows);
     }
 
+    /**
+     * Returns the number of rows transformed by this transformer.
+     * The count is safe to read while other threads are transforming rows.
+     *
+     * @return the number of rows transformed
+     */
     public Integer getRowsTransformed(){
-        return rowsTransformed;
+        return rowsTransformed.intValue();
     }
 
 }
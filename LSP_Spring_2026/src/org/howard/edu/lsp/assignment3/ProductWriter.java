@@ -0,0 +1,55 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Push-based sink for transformed products.
+ * Rows are written as soon as they are handed over, so output starts
+ * appearing before the whole input has been read.
+ */
+public interface ProductWriter extends Closeable {
+
+    /**
+     * Writes a single transformed product.
+     *
+     * @param product the product to write
+     * @throws IOException if the output cannot be written
+     */
+    void write(Product product) throws IOException;
+
+    /**
+     * Writes every row of a columnar batch, in order.
+     * The default implementation converts each row to a Product; writers that can
+     * read the columns directly should override it.
+     *
+     * @param batch the batch to write
+     * @throws IOException if the output cannot be written
+     */
+    default void write(ProductBatch batch) throws IOException {
+        for (int row = 0; row < batch.size(); row++) {
+            write(batch.getProduct(row));
+        }
+    }
+
+    /**
+     * Writes every row of an off-heap store, in order.
+     * The default implementation converts each row to a Product; writers that can
+     * read the rows in place should override it.
+     *
+     * @param store the store to write
+     * @throws IOException if the output cannot be written
+     */
+    default void write(OffHeapProductStore store) throws IOException {
+        for (int row = 0; row < store.size(); row++) {
+            write(store.getProduct(row));
+        }
+    }
+
+    /**
+     * Returns the number of bytes written so far.
+     *
+     * @return the number of bytes written, before any compression
+     */
+    long getBytesWritten();
+}
@@ -0,0 +1,158 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads another stream on a background thread, ahead of the consumer.
+ * The background thread fills fixed-size chunks and hands them over through a
+ * bounded queue, so expensive work done by the source stream, such as
+ * decompression, overlaps with the consumer's parsing. Chunks are recycled
+ * through a second queue, so reading allocates nothing after start-up.
+ * Errors raised by the source are rethrown to the consumer in order.
+ */
+final class ReadAheadInputStream extends InputStream {
+    private static final int CHUNK_BYTES = 64 * 1024;
+    private static final int CHUNKS_AHEAD = 4;
+    private static final Chunk END = new Chunk(0);
+
+    private final InputStream source;
+    private final BlockingQueue<Chunk> filled = new ArrayBlockingQueue<>(CHUNKS_AHEAD + 1);
+    private final BlockingQueue<Chunk> free = new ArrayBlockingQueue<>(CHUNKS_AHEAD + 1);
+    private final Thread reader;
+    private volatile IOException failure;
+    private Chunk current;
+    private int position;
+    private boolean closed;
+
+    /**
+     * Starts reading the source stream in the background.
+     *
+     * @param source the stream to read ahead; closed when this stream is closed
+     * @param name the name of the background thread
+     */
+    ReadAheadInputStream(InputStream source, String name) {
+        this.source = source;
+        for (int i = 0; i < CHUNKS_AHEAD; i++) {
+            free.add(new Chunk(CHUNK_BYTES));
+        }
+        this.reader = new Thread(this::readAhead, name);
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    private void readAhead() {
+        try {
+            while (true) {
+                Chunk chunk = free.take();
+                chunk.length = 0;
+                int count;
+                while (chunk.length < chunk.data.length
+                        && (count = source.read(chunk.data, chunk.length, chunk.data.length - chunk.length)) > 0) {
+                    chunk.length += count;
+                }
+                if (chunk.length == 0) {
+                    break;
+                }
+                filled.put(chunk);
+            }
+        } catch (IOException ex) {
+            failure = ex;
+        } catch (InterruptedException ex) {
+            // Closed by the consumer
+            return;
+        }
+        try {
+            filled.put(END);
+        } catch (InterruptedException ex) {
+            // Closed by the consumer
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        return current.data[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!ensureAvailable()) {
+            return -1;
+        }
+        int count = Math.min(length, current.length - position);
+        System.arraycopy(current.data, position, buffer, offset, count);
+        position += count;
+        return count;
+    }
+
+    /**
+     * Makes sure the current chunk has unread bytes, waiting for the next one if needed.
+     *
+     * @return false at the end of the source stream
+     */
+    private boolean ensureAvailable() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        if (current != null && position < current.length) {
+            return true;
+        }
+        if (current == END) {
+            return false;
+        }
+        if (current != null) {
+            free.offer(current);
+        }
+        try {
+            current = filled.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading ahead");
+        }
+        position = 0;
+        if (current == END) {
+            if (failure != null) {
+                throw failure;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        reader.interrupt();
+        try {
+            reader.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            source.close();
+        }
+    }
+
+    /**
+     * A buffer and the number of valid bytes in it.
+     */
+    private static final class Chunk {
+        private final byte[] data;
+        private int length;
+
+        Chunk(int size) {
+            this.data = new byte[size];
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the rows skipped during extraction.
+ * Each rejected row can be written to a buffered reject file as one CSV record holding
+ * the input file, the line number, the {@link SkipReason} and the raw text of the row,
+ * so bad rows can be inspected and replayed later without printing them.
+ * <p>
+ * Rows with an invalid ProductID or price are also reported on the console with the
+ * message the extractor has always printed, but only for every n-th such row, where n
+ * is the configured log interval; an interval of 0 turns the message off.
+ * <p>
+ * A log may be shared by several extractors running on different threads. Extractors
+ * that read part of a file on a worker thread use a deferred log instead, which holds
+ * their rejections until they are replayed into the shared log in file order.
+ */
+final class RejectLog implements Closeable {
+    /** Header row of the reject file. */
+    static final String HEADER = "File,Line,Reason,Row";
+
+    private static final int WRITE_BUFFER_CHARS = 64 * 1024;
+
+    private final Writer out;
+    // Deferred logs use -1 to keep raw rows and 0 to drop them; they never print
+    private final int logInterval;
+    private final List<Rejection> deferred;
+    private long logged;
+
+    private RejectLog(Writer out, int logInterval, List<Rejection> deferred) {
+        this.out = out;
+        this.logInterval = logInterval;
+        this.deferred = deferred;
+    }
+
+    /**
+     * Opens the reject log described by a configuration.
+     *
+     * @param config the configuration naming the reject file and log interval
+     * @return the log; it writes no file if no reject file is configured
+     * @throws IOException if the reject file cannot be created
+     */
+    static RejectLog open(ETLConfig config) throws IOException {
+        return open(config.getRejectFile(), config.getSkipLogInterval());
+    }
+
+    /**
+     * Opens a reject log.
+     *
+     * @param rejectFile the path of the reject file, replaced if it exists; null to write no file
+     * @param logInterval print the console message for every n-th invalid row; 0 for none
+     * @return the log
+     * @throws IOException if the reject file cannot be created
+     */
+    static RejectLog open(String rejectFile, int logInterval) throws IOException {
+        if (rejectFile == null) {
+            return console(logInterval);
+        }
+        // Rows are written back in the platform charset they were decoded with
+        Writer out = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(Paths.get(rejectFile))), WRITE_BUFFER_CHARS);
+        out.write(HEADER);
+        out.write(System.lineSeparator());
+        return new RejectLog(out, logInterval, null);
+    }
+
+    /**
+     * Creates a log that writes no file and only prints the console message.
+     *
+     * @param logInterval print the console message for every n-th invalid row; 0 for none
+     * @return the log
+     */
+    static RejectLog console(int logInterval) {
+        return new RejectLog(null, logInterval, null);
+    }
+
+    /**
+     * Creates a log that holds rejections until {@link #replay} is called.
+     *
+     * @param target the log the rejections will be replayed into; raw rows are kept only if it records them
+     * @return the deferred log
+     */
+    static RejectLog deferred(RejectLog target) {
+        return new RejectLog(null, target.isRecordingRows() ? -1 : 0, new ArrayList<>());
+    }
+
+    /**
+     * Returns whether rejected rows are written anywhere, so callers can avoid
+     * building the raw text of a row when it is not needed.
+     *
+     * @return true if the raw text of rejected rows is recorded
+     */
+    boolean isRecordingRows() {
+        return out != null || (deferred != null && logInterval < 0);
+    }
+
+    /**
+     * Records one rejected row.
+     *
+     * @param file the input file the row was read from
+     * @param line the line number of the row, counting the header as line 1
+     * @param reason why the row was rejected
+     * @param row the raw text of the row, or null if rows are not recorded
+     */
+    synchronized void reject(String file, long line, SkipReason reason, String row) {
+        if (deferred != null) {
+            deferred.add(new Rejection(file, line, reason, row));
+            return;
+        }
+        if (out != null) {
+            try {
+                out.write(quote(file));
+                out.write(',');
+                out.write(Long.toString(line));
+                out.write(',');
+                out.write(reason.label());
+                out.write(',');
+                out.write(quote(row));
+                out.write(System.lineSeparator());
+            } catch (IOException ex) {
+                System.err.println(ex.getMessage());
+            }
+        }
+        if (reason == SkipReason.INVALID_ID || reason == SkipReason.INVALID_PRICE) {
+            logInvalid();
+        }
+    }
+
+    /**
+     * Prints the console message for every n-th row with an invalid ProductID or price.
+     * Deferred logs leave the message to the log they are replayed into.
+     */
+    private void logInvalid() {
+        if (logInterval > 0 && logged++ % logInterval == 0) {
+            System.out.println("Skipping row due to invalid ProductID or Price");
+        }
+    }
+
+    /**
+     * Replays the rejections held by this deferred log into another log, in the order
+     * they were recorded.
+     *
+     * @param target the log to replay into
+     * @param lineOffset the number of lines before the first line this log counted
+     */
+    void replay(RejectLog target, long lineOffset) {
+        for (Rejection rejection : deferred) {
+            target.reject(rejection.file, lineOffset + rejection.line, rejection.reason, rejection.row);
+        }
+        deferred.clear();
+    }
+
+    /**
+     * Flushes and closes the reject file.
+     *
+     * @throws IOException if the reject file cannot be written
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+    }
+
+    /**
+     * Quotes a CSV field if it contains a comma, a quote or a line break.
+     */
+    static String quote(String field) {
+        if (field == null) {
+            return "";
+        }
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + field.replace("\"", "\"\"") + '"';
+            }
+        }
+        return field;
+    }
+
+    /**
+     * One rejection held by a deferred log.
+     */
+    private static final class Rejection {
+        final String file;
+        final long line;
+        final SkipReason reason;
+        final String row;
+
+        Rejection(String file, long line, SkipReason reason, String row) {
+            this.file = file;
+            this.line = line;
+            this.reason = reason;
+            this.row = row;
+        }
+    }
+}
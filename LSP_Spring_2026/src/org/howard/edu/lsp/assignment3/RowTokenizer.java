@@ -0,0 +1,135 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Splits a region of a buffer into lines and fields using the positions a
+ * {@link ByteTokenizer} reports. The region is tokenized in blocks as the lines are
+ * consumed, so every byte is examined once to find both the end of its line and the
+ * delimiters inside it, and the positions array stays small. The delimiters of the
+ * current line are left in {@link #getPositions()} for {@link ByteRowParser} to use.
+ * Not thread-safe.
+ */
+final class RowTokenizer {
+    private static final int BLOCK_BYTES = 64 * 1024;
+
+    private final ByteTokenizer tokenizer;
+    private final byte delimiter;
+    private ByteBuffer buffer;
+    private int limit;
+    private int scanned;
+    private int[] positions = new int[BLOCK_BYTES];
+    private int count;
+    private int index;
+    private int lineStart;
+    private int lineFirst;
+
+    /**
+     * Constructs a tokenizer for the given backend and delimiter byte.
+     *
+     * @param tokenizer the backend that finds the positions
+     * @param delimiter the field delimiter byte
+     */
+    RowTokenizer(ByteTokenizer tokenizer, byte delimiter) {
+        this.tokenizer = tokenizer;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Starts tokenizing bytes [from, limit) of a buffer.
+     *
+     * @param buffer the buffer holding the rows
+     * @param from the index of the first line
+     * @param limit the index just past the last byte to tokenize
+     */
+    void reset(ByteBuffer buffer, int from, int limit) {
+        this.buffer = buffer;
+        this.limit = limit;
+        this.scanned = from;
+        this.count = 0;
+        this.index = 0;
+        this.lineStart = from;
+        this.lineFirst = 0;
+    }
+
+    /**
+     * Finds the end of the line starting at the given index, which must not be before
+     * the end of the previous line. The delimiters inside the line are then entries
+     * [{@link #getLineFirst()}, {@link #getLineLast()}) of {@link #getPositions()}.
+     *
+     * @param lineStart the index of the first byte of the line
+     * @return the index of the line's terminator, or the limit if no terminator follows
+     */
+    int lineEnd(int lineStart) {
+        this.lineStart = lineStart;
+        // Skip what the previous line consumed, including the '\n' of a "\r\n"
+        while (index < count && decode(positions[index]) < lineStart) {
+            index++;
+        }
+        lineFirst = index;
+        while (true) {
+            for (; index < count; index++) {
+                if (positions[index] < 0) {
+                    return ~positions[index];
+                }
+            }
+            if (scanned >= limit) {
+                return limit;
+            }
+            tokenizeBlock();
+        }
+    }
+
+    /**
+     * Returns the positions of the current block.
+     *
+     * @return delimiter indexes, and complemented terminator indexes
+     */
+    int[] getPositions() {
+        return positions;
+    }
+
+    /**
+     * Returns the index in {@link #getPositions()} of the current line's first delimiter.
+     *
+     * @return the first delimiter entry
+     */
+    int getLineFirst() {
+        return lineFirst;
+    }
+
+    /**
+     * Returns the index in {@link #getPositions()} just past the current line's last delimiter.
+     *
+     * @return the entry of the line's terminator, or the end of the entries
+     */
+    int getLineLast() {
+        return index;
+    }
+
+    /**
+     * Tokenizes the next block, keeping the positions of the current line at the front of the array.
+     */
+    private void tokenizeBlock() {
+        int kept = count - lineFirst;
+        System.arraycopy(positions, lineFirst, positions, 0, kept);
+        index -= lineFirst;
+        lineFirst = 0;
+        count = kept;
+
+        // Bytes before the line, such as the '\n' of a "\r\n" at a block edge, are already consumed
+        int blockStart = Math.max(scanned, lineStart);
+        int blockEnd = (int) Math.min(limit, (long) blockStart + BLOCK_BYTES);
+        if (positions.length < count + (blockEnd - blockStart)) {
+            // A line with more delimiters than one block holds
+            positions = Arrays.copyOf(positions, Math.max(positions.length * 2, count + (blockEnd - blockStart)));
+        }
+        count += tokenizer.scan(buffer, blockStart, blockEnd, delimiter, positions, count);
+        scanned = blockEnd;
+    }
+
+    private static int decode(int position) {
+        return position >= 0 ? position : ~position;
+    }
+}
@@ -0,0 +1,27 @@
+package org.howard.edu.lsp.assignment3;
+
+/**
+ * Reasons a data row can be skipped during extraction.
+ */
+public enum SkipReason {
+    /** The row is empty or contains only whitespace. */
+    BLANK,
+
+    /** The row does not have exactly four columns. */
+    COLUMN_COUNT,
+
+    /** The ProductID is not a valid integer. */
+    INVALID_ID,
+
+    /** The price is not a valid decimal number. */
+    INVALID_PRICE;
+
+    /**
+     * Returns the name used for this reason in exported metrics.
+     *
+     * @return the reason in lowercase, e.g. "invalid_price"
+     */
+    public String label() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,12 @@
+package org.howard.edu.lsp.assignment3;
+
+/**
+ * Keys the transformed products can be sorted by before they are loaded.
+ */
+public enum SortKey {
+    /** Ascending by numeric ProductID. */
+    ID,
+
+    /** Ascending by transformed price. */
+    PRICE
+}
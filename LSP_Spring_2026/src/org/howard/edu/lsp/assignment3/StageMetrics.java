@@ -0,0 +1,157 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for one pipeline stage: rows produced, bytes handled, time spent
+ * working and a histogram of how long each unit of work took. A unit of work is
+ * whatever the stage hands on at once: a single row when streaming, a batch of rows
+ * when pipelined, or the whole input in batch mode. The time spent is the sum of the
+ * histogram, so it is not counted twice.
+ * All counters are LongAdders, so any number of threads can report into the same stage.
+ * Loops that record every row report through a {@link Recorder} instead, which only
+ * touches the shared counters once per batch of rows.
+ */
+public final class StageMetrics {
+    private static final int RECORDER_FLUSH_UNITS = 1024;
+
+    private final String name;
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    StageMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records one unit of work.
+     *
+     * @param rowCount the number of rows the unit produced
+     * @param elapsedNanos the time the unit took, in nanoseconds
+     */
+    public void record(long rowCount, long elapsedNanos) {
+        rows.add(rowCount);
+        latency.record(elapsedNanos);
+    }
+
+    /**
+     * Creates a recorder for one thread that reports into this stage.
+     *
+     * @return a new recorder
+     */
+    public Recorder recorder() {
+        return new Recorder();
+    }
+
+    /**
+     * Adds to the number of bytes read or written by the stage.
+     *
+     * @param byteCount the number of bytes
+     */
+    public void addBytes(long byteCount) {
+        bytes.add(byteCount);
+    }
+
+    /**
+     * Returns the stage name.
+     *
+     * @return the name, e.g. "extract"
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of rows produced by the stage.
+     *
+     * @return the row count
+     */
+    public long getRows() {
+        return rows.sum();
+    }
+
+    /**
+     * Returns the number of bytes read or written by the stage.
+     *
+     * @return the byte count
+     */
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * Returns the total time the stage spent working.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getNanos() {
+        return latency.getSum();
+    }
+
+    /**
+     * Returns the latency histogram of the units of work.
+     *
+     * @return the histogram
+     */
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * Collects the units of work of one thread in plain fields and adds them to the stage
+     * every {@value #RECORDER_FLUSH_UNITS} units, so a loop that records every row does not
+     * update shared counters per row. Not thread-safe; call {@link #flush()} when the loop ends,
+     * since units recorded after the last batch are only reported then.
+     */
+    public final class Recorder {
+        private final long[] buckets = new long[LatencyHistogram.BUCKET_COUNT];
+        private long rowCount;
+        private long nanos;
+        private int units;
+
+        private Recorder() {
+        }
+
+        /**
+         * Records one unit of work.
+         *
+         * @param rowCount the number of rows the unit produced
+         * @param elapsedNanos the time the unit took, in nanoseconds
+         */
+        public void record(long rowCount, long elapsedNanos) {
+            long value = Math.max(elapsedNanos, 0);
+            this.rowCount += rowCount;
+            nanos += value;
+            buckets[LatencyHistogram.bucketFor(value)]++;
+            if (++units == RECORDER_FLUSH_UNITS) {
+                flush();
+            }
+        }
+
+        /**
+         * Adds to the number of bytes read or written by the stage.
+         *
+         * @param byteCount the number of bytes
+         */
+        public void addBytes(long byteCount) {
+            bytes.add(byteCount);
+        }
+
+        /**
+         * Adds the units recorded since the last flush to the stage.
+         */
+        public void flush() {
+            if (units == 0) {
+                return;
+            }
+            rows.add(rowCount);
+            latency.add(buckets, nanos);
+            Arrays.fill(buckets, 0);
+            rowCount = 0;
+            nanos = 0;
+            units = 0;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of canonical String instances for column values that repeat across rows.
+ * It serves two purposes: deduplicating values such as categories to one instance each,
+ * and remembering derived values such as the uppercase form of a name, so repeated rows
+ * neither allocate new Strings nor keep duplicate copies alive.
+ * <p>
+ * The cache is a direct-mapped table: each value hashes to exactly one slot, and a new
+ * value replaces whatever occupied its slot. Memory is therefore fixed by the capacity,
+ * lookups cost one hash and one comparison, and there is no eviction bookkeeping.
+ * Entries are immutable, so the cache can be shared by several threads without locking;
+ * a race at worst replaces an entry that was just added. Hits and misses are counted
+ * for reporting.
+ * <p>
+ * A column whose values rarely repeat would pay for a hash and a new entry on every
+ * lookup without ever hitting. The cache therefore samples its hit rate, and when fewer
+ * than one lookup in {@value #MIN_HITS_PER_SAMPLE_DIVISOR} hits it is bypassed for the
+ * next {@value #BYPASS_LOOKUPS} lookups before sampling again. Bypassed lookups count
+ * as misses.
+ * <p>
+ * An instance should be used for a single purpose, either {@link #intern(String)} or
+ * {@link #upperCase(String)}, since both store their results in the same table.
+ */
+public final class StringCache {
+    private static final int SAMPLE_LOOKUPS = 4096;
+    private static final int MIN_HITS_PER_SAMPLE_DIVISOR = 16;
+    private static final int BYPASS_LOOKUPS = 1 << 16;
+
+    private final Entry[] slots;
+    private final int mask;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    // Sampling state; updated without synchronization since it only steers the bypass
+    private int sampled;
+    private int sampledHits;
+    private int bypassRemaining;
+
+    /**
+     * Constructs a cache with room for at least the given number of values.
+     *
+     * @param capacity the number of slots, rounded up to a power of two; 0 disables caching
+     */
+    public StringCache(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity must not be negative");
+        }
+        int size = capacity == 0 ? 0 : Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+        this.slots = new Entry[Math.min(size, 1 << 30)];
+        this.mask = slots.length - 1;
+    }
+
+    /**
+     * Returns the canonical instance of a value.
+     *
+     * @param value the value to look up
+     * @return a String equal to the value, shared with earlier calls for the same value
+     */
+    public String intern(String value) {
+        if (bypass()) {
+            return value;
+        }
+        int hash = value.hashCode();
+        int slot = spread(hash) & mask;
+        Entry entry = slots[slot];
+        if (entry != null && entry.hash == hash && value.equals(entry.key)) {
+            recordHit();
+            return entry.value;
+        }
+        recordMiss();
+        slots[slot] = new Entry(hash, value, value, null);
+        return value;
+    }
+
+    /**
+     * Returns the canonical instance of the text encoded in bytes [start, end) of a buffer.
+     * On a hit the bytes are only compared, never decoded.
+     *
+     * @param buffer the buffer holding the encoded text
+     * @param start the absolute index of the first byte
+     * @param end the absolute index just past the last byte
+     * @param charset the charset the text is decoded with on a miss
+     * @return the decoded text, shared with earlier calls for the same bytes
+     */
+    String intern(ByteBuffer buffer, int start, int end, Charset charset) {
+        if (bypass()) {
+            return decode(buffer, start, end, charset);
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        int slot = spread(hash) & mask;
+        Entry entry = slots[slot];
+        if (entry != null && entry.hash == hash && entry.bytes != null && matches(entry.bytes, buffer, start, end)) {
+            recordHit();
+            return entry.value;
+        }
+
+        recordMiss();
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        String value = new String(bytes, charset);
+        slots[slot] = new Entry(hash, value, value, bytes);
+        return value;
+    }
+
+    /**
+     * Returns the uppercase form of a value, as {@link String#toUpperCase()} gives it,
+     * computing it only on a miss.
+     *
+     * @param value the value to convert
+     * @return the value converted to uppercase with the rules of the default locale
+     */
+    public String upperCase(String value) {
+        if (bypass()) {
+            return value.toUpperCase();
+        }
+        int hash = value.hashCode();
+        int slot = spread(hash) & mask;
+        Entry entry = slots[slot];
+        if (entry != null && entry.hash == hash && value.equals(entry.key)) {
+            recordHit();
+            return entry.value;
+        }
+        recordMiss();
+        String upper = value.toUpperCase();
+        slots[slot] = new Entry(hash, value, upper, null);
+        return upper;
+    }
+
+    /**
+     * Adds the hit and miss counts of another cache to this one.
+     * Used to report the caches of several workers as one.
+     *
+     * @param other the cache whose counts are added
+     */
+    void addStatistics(StringCache other) {
+        hits.add(other.getHits());
+        misses.add(other.getMisses());
+    }
+
+    /**
+     * Returns the number of slots.
+     *
+     * @return the capacity; 0 if caching is disabled
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     *
+     * @return the hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that had to build the value.
+     *
+     * @return the miss count
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the fraction of lookups answered from the cache.
+     *
+     * @return the hit rate between 0 and 1, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long hitCount = getHits();
+        long total = hitCount + getMisses();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Checks whether this lookup should skip the table, counting it as a miss if so.
+     */
+    private boolean bypass() {
+        if (slots.length == 0) {
+            misses.increment();
+            return true;
+        }
+        if (bypassRemaining > 0) {
+            bypassRemaining--;
+            misses.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private void recordHit() {
+        hits.increment();
+        sampledHits++;
+        sample();
+    }
+
+    private void recordMiss() {
+        misses.increment();
+        sample();
+    }
+
+    private void sample() {
+        if (++sampled >= SAMPLE_LOOKUPS) {
+            if (sampledHits < SAMPLE_LOOKUPS / MIN_HITS_PER_SAMPLE_DIVISOR) {
+                bypassRemaining = BYPASS_LOOKUPS;
+            }
+            sampled = 0;
+            sampledHits = 0;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static String decode(ByteBuffer buffer, int start, int end, Charset charset) {
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, charset);
+    }
+
+    private static boolean matches(byte[] bytes, ByteBuffer buffer, int start, int end) {
+        if (bytes.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != buffer.get(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * One cached value; bytes holds the encoded key when the entry was added from bytes.
+     */
+    private static final class Entry {
+        final int hash;
+        final String key;
+        final String value;
+        final byte[] bytes;
+
+        Entry(int hash, String key, String value, byte[] bytes) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+}
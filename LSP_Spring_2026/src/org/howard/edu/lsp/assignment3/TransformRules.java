@@ -0,0 +1,347 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Compiled set of business rules applied by the ProductTransformer.
+ * Rules are read once from a properties file and turned into flat lookup
+ * structures: a map from category to a precomputed {@link CategoryRule}, and a
+ * sorted array of price range breakpoints that is searched with binary search.
+ * Evaluating the rules for a row costs one map lookup, one fixed-point multiply
+ * and one binary search.
+ * <p>
+ * The rules file uses the following keys; see data/transform_rules.properties:
+ * <ul>
+ *   <li>{@code name.uppercase} - whether names are converted to uppercase</li>
+ *   <li>{@code category.<name>.discount} - price multiplier for the category, e.g. 0.9</li>
+ *   <li>{@code category.<name>.promoteAbove} - discounted price above which the category changes</li>
+ *   <li>{@code category.<name>.promoteTo} - the category assigned above that price</li>
+ *   <li>{@code priceRange.breakpoints} - ascending inclusive upper bounds, e.g. 10,100,500</li>
+ *   <li>{@code priceRange.labels} - one label per bound plus one for prices above the last bound</li>
+ * </ul>
+ */
+public final class TransformRules {
+    private final boolean uppercaseNames;
+    private final Map<String, CategoryRule> categoryRules;
+    private final long[] breakpointCents;
+    private final BigDecimal[] breakpoints;
+    private final String[] labels;
+
+    private TransformRules(boolean uppercaseNames, Map<String, CategoryRule> categoryRules,
+                           BigDecimal[] breakpoints, String[] labels) {
+        if (labels.length != breakpoints.length + 1) {
+            throw new IllegalArgumentException("priceRange.labels needs exactly one more entry than priceRange.breakpoints");
+        }
+        this.uppercaseNames = uppercaseNames;
+        this.categoryRules = categoryRules;
+        this.breakpoints = breakpoints;
+        this.labels = labels;
+        this.breakpointCents = new long[breakpoints.length];
+        for (int i = 0; i < breakpoints.length; i++) {
+            if (i > 0 && breakpoints[i].compareTo(breakpoints[i - 1]) <= 0) {
+                throw new IllegalArgumentException("priceRange.breakpoints must be in ascending order");
+            }
+            breakpointCents[i] = toCentsBound(breakpoints[i]);
+        }
+    }
+
+    /**
+     * Returns the rules the pipeline has always applied: uppercase names, a 10% discount
+     * on Electronics with promotion to Premium Electronics above 500, and the
+     * Low/Medium/High/Premium price ranges with bounds at 10, 100 and 500.
+     *
+     * @return the default rules
+     */
+    public static TransformRules defaults() {
+        Map<String, CategoryRule> categories = new HashMap<>();
+        categories.put("Electronics", new CategoryRule(new BigDecimal("0.9"), new BigDecimal("500"), "Premium Electronics"));
+        return new TransformRules(true, categories,
+                new BigDecimal[] {new BigDecimal("10"), new BigDecimal("100"), new BigDecimal("500")},
+                new String[] {"Low", "Medium", "High", "Premium"});
+    }
+
+    /**
+     * Loads and compiles rules from a properties file.
+     *
+     * @param rulesFile the path to the rules file
+     * @return the compiled rules
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file contains an invalid rule
+     */
+    public static TransformRules load(String rulesFile) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(rulesFile)) {
+            properties.load(in);
+        }
+        return compile(properties);
+    }
+
+    /**
+     * Compiles rules from already loaded properties.
+     *
+     * @param properties the rule definitions
+     * @return the compiled rules
+     * @throws IllegalArgumentException if a rule is invalid
+     */
+    public static TransformRules compile(Properties properties) {
+        boolean uppercase = Boolean.parseBoolean(properties.getProperty("name.uppercase", "true"));
+
+        Map<String, Map<String, String>> byCategory = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (key.startsWith("category.")) {
+                int dot = key.lastIndexOf('.');
+                if (dot <= "category.".length()) {
+                    throw new IllegalArgumentException("Invalid rule key: " + key);
+                }
+                String category = key.substring("category.".length(), dot);
+                byCategory.computeIfAbsent(category, c -> new HashMap<>())
+                        .put(key.substring(dot + 1), properties.getProperty(key).trim());
+            }
+        }
+
+        Map<String, CategoryRule> categories = new HashMap<>();
+        for (Map.Entry<String, Map<String, String>> entry : byCategory.entrySet()) {
+            Map<String, String> settings = entry.getValue();
+            for (String setting : settings.keySet()) {
+                if (!setting.equals("discount") && !setting.equals("promoteAbove") && !setting.equals("promoteTo")) {
+                    throw new IllegalArgumentException("Unknown setting for category " + entry.getKey() + ": " + setting);
+                }
+            }
+            String promoteTo = settings.get("promoteTo");
+            String promoteAbove = settings.get("promoteAbove");
+            if ((promoteTo == null) != (promoteAbove == null)) {
+                throw new IllegalArgumentException("Category " + entry.getKey() + " needs both promoteAbove and promoteTo");
+            }
+            categories.put(entry.getKey(), new CategoryRule(
+                    decimal("category." + entry.getKey() + ".discount", settings.getOrDefault("discount", "1")),
+                    promoteAbove == null ? null : decimal("category." + entry.getKey() + ".promoteAbove", promoteAbove),
+                    promoteTo));
+        }
+
+        List<BigDecimal> bounds = new ArrayList<>();
+        for (String bound : properties.getProperty("priceRange.breakpoints", "10,100,500").split(",")) {
+            if (!bound.trim().isEmpty()) {
+                bounds.add(decimal("priceRange.breakpoints", bound.trim()));
+            }
+        }
+        String[] labels = properties.getProperty("priceRange.labels", "Low,Medium,High,Premium").split(",");
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = labels[i].trim();
+        }
+        return new TransformRules(uppercase, categories, bounds.toArray(new BigDecimal[0]), labels);
+    }
+
+    private static BigDecimal decimal(String key, String value) {
+        try {
+            return new BigDecimal(value);
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid number for " + key + ": " + value);
+        }
+    }
+
+    /**
+     * Returns whether product names are converted to uppercase.
+     *
+     * @return true if names are uppercased
+     */
+    public boolean isUppercaseNames() {
+        return uppercaseNames;
+    }
+
+    /**
+     * Returns the rule for a category.
+     *
+     * @param category the category name
+     * @return the rule, or null if the category has no rule
+     */
+    public CategoryRule ruleFor(String category) {
+        return categoryRules.get(category);
+    }
+
+    /**
+     * Returns the index of the price range label for a price in cents.
+     * A price equal to a breakpoint belongs to the range that ends at that breakpoint.
+     *
+     * @param cents the price in cents
+     * @return an index into {@link #getPriceRangeLabels()}
+     */
+    public int priceRangeIndex(long cents) {
+        int low = 0;
+        int high = breakpointCents.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (breakpointCents[middle] < cents) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the index of the price range label for a BigDecimal price.
+     *
+     * @param price the price
+     * @return an index into {@link #getPriceRangeLabels()}
+     */
+    public int priceRangeIndex(BigDecimal price) {
+        int low = 0;
+        int high = breakpoints.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (breakpoints[middle].compareTo(price) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the price range label for a price in cents.
+     *
+     * @param cents the price in cents
+     * @return the price range label
+     */
+    public String priceRange(long cents) {
+        return labels[priceRangeIndex(cents)];
+    }
+
+    /**
+     * Returns the price range label for a BigDecimal price.
+     *
+     * @param price the price
+     * @return the price range label
+     */
+    public String priceRange(BigDecimal price) {
+        return labels[priceRangeIndex(price)];
+    }
+
+    /**
+     * Returns the price range labels, in ascending price order.
+     *
+     * @return a copy of the labels
+     */
+    public String[] getPriceRangeLabels() {
+        return labels.clone();
+    }
+
+    /**
+     * Converts an inclusive price bound to the largest whole number of cents that does
+     * not exceed it, so comparing cents against the result gives the same answer as
+     * comparing the exact price against the bound. Bounds beyond the range of a long
+     * are clamped.
+     */
+    private static long toCentsBound(BigDecimal bound) {
+        BigDecimal cents = bound.setScale(2, RoundingMode.FLOOR);
+        if (cents.precision() > 18) {
+            return cents.signum() > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        return cents.unscaledValue().longValue();
+    }
+
+    /**
+     * Describes the compiled rules. Two rule sets with the same description
+     * transform every row identically.
+     *
+     * @return a stable description of the rules
+     */
+    @Override
+    public String toString() {
+        StringBuilder description = new StringBuilder();
+        description.append("uppercase=").append(uppercaseNames);
+        for (Map.Entry<String, CategoryRule> rule : new TreeMap<>(categoryRules).entrySet()) {
+            description.append(";category[").append(rule.getKey()).append("]=").append(rule.getValue());
+        }
+        description.append(";breakpoints=").append(Arrays.toString(breakpoints));
+        description.append(";labels=").append(Arrays.toString(labels));
+        return description.toString();
+    }
+
+    /**
+     * Precomputed discount and promotion for one category.
+     * The discount factor is stored both as a BigDecimal and as a fixed-point
+     * fraction so rows priced in cents never need BigDecimal arithmetic.
+     */
+    public static final class CategoryRule {
+        private final BigDecimal discount;
+        private final long discountNumerator;
+        private final long discountDivisor;
+        private final BigDecimal promoteAbove;
+        private final long promoteAboveCents;
+        private final String promoteTo;
+
+        CategoryRule(BigDecimal discount, BigDecimal promoteAbove, String promoteTo) {
+            this.discount = discount;
+            BigDecimal factor = discount.scale() < 0 ? discount.setScale(0) : discount;
+            if (factor.precision() > 18 || factor.scale() > 17) {
+                throw new IllegalArgumentException("Discount has too many digits: " + discount);
+            }
+            this.discountNumerator = factor.unscaledValue().longValueExact();
+            this.discountDivisor = BigDecimal.ONE.movePointRight(factor.scale()).longValueExact();
+            this.promoteAbove = promoteAbove;
+            this.promoteAboveCents = promoteAbove == null ? Long.MAX_VALUE : toCentsBound(promoteAbove);
+            this.promoteTo = promoteTo;
+        }
+
+        /**
+         * Applies the discount to a price in cents, rounding HALF_UP.
+         *
+         * @param cents the price in cents
+         * @return the discounted price, or {@link PriceCents#UNSUPPORTED} if it overflows
+         */
+        public long applyDiscount(long cents) {
+            return PriceCents.multiply(cents, discountNumerator, discountDivisor);
+        }
+
+        /**
+         * Applies the discount to a BigDecimal price, rounding HALF_UP to two decimal places.
+         *
+         * @param price the price
+         * @return the discounted price
+         */
+        public BigDecimal applyDiscount(BigDecimal price) {
+            return price.multiply(discount).setScale(2, RoundingMode.HALF_UP);
+        }
+
+        /**
+         * Returns the category for a discounted price in cents.
+         *
+         * @param cents the discounted price
+         * @param category the current category
+         * @return the promoted category, or the current one if the price is not above the threshold
+         */
+        public String categoryFor(long cents, String category) {
+            return cents > promoteAboveCents ? promoteTo : category;
+        }
+
+        /**
+         * Returns the category for a discounted BigDecimal price.
+         *
+         * @param price the discounted price
+         * @param category the current category
+         * @return the promoted category, or the current one if the price is not above the threshold
+         */
+        public String categoryFor(BigDecimal price, String category) {
+            return promoteAbove != null && price.compareTo(promoteAbove) > 0 ? promoteTo : category;
+        }
+
+        @Override
+        public String toString() {
+            return "discount=" + discount + ",promoteAbove=" + promoteAbove + ",promoteTo=" + promoteTo;
+        }
+    }
+}
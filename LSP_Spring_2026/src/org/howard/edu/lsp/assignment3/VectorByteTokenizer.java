@@ -0,0 +1,80 @@
+package org.howard.edu.lsp.assignment3;
+
+import java.nio.ByteBuffer;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Finds delimiters and line terminators a whole vector at a time.
+ * Each vector of input bytes is compared with the three structural bytes, and the
+ * resulting masks are turned into bit sets whose set bits are the positions to
+ * report. Bytes after the last whole vector are scanned one at a time.
+ * <p>
+ * Vectors are loaded from byte arrays, the one load every incubator release supports;
+ * buffers without an accessible array are copied block by block into a per-thread
+ * array first. 256-bit vectors are used even where wider ones exist, because CSV rows
+ * hold a structural byte every few bytes and the cost of reporting them grows with
+ * the number of lanes.
+ * <p>
+ * Only loaded through {@link ByteTokenizer#vector()}, which tolerates the
+ * jdk.incubator.vector module being absent.
+ */
+final class VectorByteTokenizer extends ByteTokenizer {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED.vectorBitSize() >= 256
+            ? ByteVector.SPECIES_256
+            : ByteVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+    private static final int COPY_BYTES = 64 * 1024;
+
+    private final ThreadLocal<byte[]> scratch = ThreadLocal.withInitial(() -> new byte[COPY_BYTES]);
+
+    @Override
+    public int scan(ByteBuffer buffer, int from, int to, byte delimiter, int[] positions, int offset) {
+        if (buffer.hasArray()) {
+            int base = buffer.arrayOffset();
+            return scan(buffer.array(), base + from, base + to, -base, delimiter, positions, offset);
+        }
+        byte[] bytes = scratch.get();
+        int count = offset;
+        for (int start = from; start < to; start += COPY_BYTES) {
+            int length = Math.min(COPY_BYTES, to - start);
+            buffer.get(start, bytes, 0, length);
+            count += scan(bytes, 0, length, start, delimiter, positions, count);
+        }
+        return count - offset;
+    }
+
+    /**
+     * Scans bytes [from, to) of an array, reporting each position plus shift.
+     */
+    private static int scan(byte[] bytes, int from, int to, int shift, byte delimiter, int[] positions, int offset) {
+        int count = offset;
+        int i = from;
+        for (int bound = to - LANES; i <= bound; i += LANES) {
+            ByteVector vector = ByteVector.fromArray(SPECIES, bytes, i);
+            long terminators = vector.eq((byte) '\n').or(vector.eq((byte) '\r')).toLong();
+            long structural = vector.eq(delimiter).toLong() | terminators;
+            while (structural != 0) {
+                int lane = Long.numberOfTrailingZeros(structural);
+                int position = i + lane + shift;
+                positions[count++] = (terminators & (1L << lane)) != 0 ? ~position : position;
+                structural &= structural - 1;
+            }
+        }
+        for (; i < to; i++) {
+            byte b = bytes[i];
+            if (b == '\n' || b == '\r') {
+                positions[count++] = ~(i + shift);
+            } else if (b == delimiter) {
+                positions[count++] = i + shift;
+            }
+        }
+        return count - offset;
+    }
+
+    @Override
+    public String getName() {
+        return "vector-" + SPECIES.vectorBitSize();
+    }
+}
@@ -0,0 +1,150 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Writes products with {@link BinaryProductWriter} and reads them back with
+ * {@link BinaryProductReader}, across several row groups and with every value
+ * the fixed-width columns keep as an exception.
+ */
+class BinaryProductFormatTest {
+    private static final int ROW_GROUP_SIZE = 3;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsEveryRow() throws IOException {
+        List<Product> products = sampleProducts();
+        Path file = dir.resolve("products.bin");
+        try (BinaryProductWriter writer = new BinaryProductWriter(Files.newOutputStream(file), ROW_GROUP_SIZE)) {
+            for (Product product : products) {
+                writer.write(product);
+            }
+        }
+
+        try (BinaryProductReader reader = new BinaryProductReader(file.toString())) {
+            reader.verifyChecksum();
+            assertEquals(products.size(), reader.getRowCount());
+            assertEquals(3, reader.getRowGroupCount());
+            assertEquals(ROW_GROUP_SIZE, reader.getRowGroupSize());
+            for (Product expected : products) {
+                assertSameProduct(expected, reader.read());
+            }
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    void readsColumnsOfARowGroup() throws IOException {
+        Path file = dir.resolve("products.bin");
+        try (BinaryProductWriter writer = new BinaryProductWriter(Files.newOutputStream(file), ROW_GROUP_SIZE)) {
+            for (Product product : sampleProducts()) {
+                writer.write(product);
+            }
+        }
+
+        try (BinaryProductReader reader = new BinaryProductReader(file.toString())) {
+            BinaryProductReader.RowGroup group = reader.getRowGroup(0);
+            assertArrayEquals(new int[] {1, 7, 3}, group.getIds());
+            assertArrayEquals(new long[] {1999, 500, PriceCents.UNSUPPORTED}, group.getPricesCents());
+            assertFalse(group.hasPriceCents(2));
+            assertEquals("007", group.getIdText(1));
+            assertEquals(new BigDecimal("12345678901234567.89"), group.getPrice(2));
+            assertThrows(IndexOutOfBoundsException.class, () -> group.getId(ROW_GROUP_SIZE));
+        }
+    }
+
+    @Test
+    void writesTheSameFileFromABatch() throws IOException {
+        List<Product> products = sampleProducts();
+        Path fromProducts = dir.resolve("products.bin");
+        Path fromBatch = dir.resolve("batch.bin");
+        try (BinaryProductWriter writer = new BinaryProductWriter(Files.newOutputStream(fromProducts), ROW_GROUP_SIZE)) {
+            for (Product product : products) {
+                writer.write(product);
+            }
+        }
+        try (BinaryProductWriter writer = new BinaryProductWriter(Files.newOutputStream(fromBatch), ROW_GROUP_SIZE)) {
+            writer.write(ProductBatch.fromProducts(products));
+        }
+        assertArrayEquals(Files.readAllBytes(fromProducts), Files.readAllBytes(fromBatch));
+    }
+
+    @Test
+    void roundTripsAnEmptyFile() throws IOException {
+        Path file = dir.resolve("empty.bin");
+        new BinaryProductWriter(Files.newOutputStream(file)).close();
+        try (BinaryProductReader reader = new BinaryProductReader(file.toString())) {
+            reader.verifyChecksum();
+            assertEquals(0, reader.getRowCount());
+            assertNull(reader.read());
+        }
+    }
+
+    @Test
+    void detectsCorruption() throws IOException {
+        Path file = dir.resolve("products.bin");
+        try (BinaryProductWriter writer = new BinaryProductWriter(Files.newOutputStream(file), ROW_GROUP_SIZE)) {
+            for (Product product : sampleProducts()) {
+                writer.write(product);
+            }
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[BinaryProductWriter.HEADER_BYTES + BinaryProductWriter.GROUP_HEADER_BYTES] ^= 1;
+        Files.write(file, bytes);
+        try (BinaryProductReader reader = new BinaryProductReader(file.toString())) {
+            assertThrows(IOException.class, reader::verifyChecksum);
+        }
+
+        Path csv = dir.resolve("products.csv");
+        Files.writeString(csv, "ProductID,Name,Price,Category\n1,A,1.00,Cat\n");
+        assertThrows(IOException.class, () -> new BinaryProductReader(csv.toString()).close());
+    }
+
+    /**
+     * Seven transformed products, spread over three row groups: canonical and non canonical
+     * ids, a price too wide for cents, an empty and a null name, non-ASCII text and a row
+     * without a price range.
+     */
+    private static List<Product> sampleProducts() {
+        List<Product> products = new ArrayList<>();
+        products.add(transformed(new Product("1", "LAPTOP", 1999, "Electronics"), "Medium"));
+        products.add(transformed(new Product("007", "", 500, "Cat"), "Low"));
+        products.add(transformed(new Product("3", "WIDE", new BigDecimal("12345678901234567.89"), "Electronics"), "Premium"));
+        products.add(transformed(new Product("-4", "CAFÉ CRÈME", 999, "Électroménager"), "Low"));
+        products.add(transformed(new Product("2147483647", null, 50001, "Cat"), "Premium"));
+        products.add(transformed(new Product("+6", "日本語", 0, "Cat"), "Low"));
+        products.add(transformed(new Product("8", "UNCLASSIFIED", 100, "Other"), null));
+        return products;
+    }
+
+    private static Product transformed(Product product, String priceRange) {
+        product.setPriceRange(priceRange);
+        return product;
+    }
+
+    private static void assertSameProduct(Product expected, Product actual) {
+        assertEquals(expected.getProductId(), actual.getProductId());
+        // A null name is written as the text "null", as in CSV output
+        assertEquals(String.valueOf(expected.getName()), actual.getName());
+        assertEquals(expected.getPrice(), actual.getPrice());
+        assertEquals(expected.hasPriceCents(), actual.hasPriceCents());
+        assertEquals(expected.getCategory(), actual.getCategory());
+        assertEquals(expected.getPriceRange(), actual.getPriceRange());
+    }
+}
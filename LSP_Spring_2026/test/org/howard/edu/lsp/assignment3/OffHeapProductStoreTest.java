@@ -0,0 +1,128 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks that the off-heap pipeline writes exactly what the list-based batch pipeline
+ * writes, on the rows the fixed-width record keeps on the side or handles specially.
+ */
+class OffHeapProductStoreTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void emptyFirstNameIsStored() {
+        try (OffHeapProductStore store = new OffHeapProductStore()) {
+            store.add(new Product("1", "", 200, "Cat"));
+            store.add(new Product("2", "abc", 300, "Cat"));
+
+            OffHeapProductStore.Row row = store.row().moveTo(0);
+            assertEquals("", row.getName());
+            assertEquals(0, row.getNameLength());
+            assertTrue(row.upperCaseAsciiName());
+            assertEquals("abc", row.moveTo(1).getName());
+        }
+    }
+
+    @Test
+    void emptyFirstNameMatchesBatchOutput() throws IOException {
+        assertSameOutput("1,,2.00,Cat",
+                "2,abc,3.00,Cat");
+    }
+
+    @Test
+    void edgeRowsMatchBatchOutput() throws IOException {
+        assertSameOutput("007,Padded id,5.00,Cat",
+                "+8,Signed id,5.00,Cat",
+                "3,Wide price,12345678901234567.891,Electronics",
+                "4,Exponent price,1.5e2,Electronics",
+                "5,café crème,9.99,Électroménager",
+                "6,naïve laptop,100.00,Electronics",
+                "7,straße,1.00,Cat",
+                "9,,0.01,",
+                "10," + "x".repeat(600_000) + ",600.00,Electronics",
+                "11,after long name,0.005,Cat");
+    }
+
+    @Test
+    void namesCanGrowInPlace() {
+        try (OffHeapProductStore store = new OffHeapProductStore()) {
+            store.add(new Product("1", "ab", 100, "Cat"));
+            store.add(new Product("2", "cd", 100, "Cat"));
+            OffHeapProductStore.Row row = store.row().moveTo(0);
+            row.setName("a much longer name");
+            row.setName("é");
+            assertEquals("é", row.getName());
+            assertFalse(row.isAsciiName());
+            assertEquals("cd", row.moveTo(1).getName());
+        }
+    }
+
+    @Test
+    void keepsValuesTheRecordCannotHold() {
+        try (OffHeapProductStore store = new OffHeapProductStore()) {
+            BigDecimal wide = new BigDecimal("12345678901234567.89");
+            store.add(new Product("007", "n", wide, "Cat"));
+            Product product = store.getProduct(0);
+            assertEquals("007", product.getProductId());
+            assertEquals(wide, product.getPrice());
+        }
+    }
+
+    @Test
+    void rejectsAccessAfterClose() {
+        OffHeapProductStore store = new OffHeapProductStore();
+        store.add(new Product("1", "a", 100, "Cat"));
+        OffHeapProductStore.Row row = store.row().moveTo(0);
+        store.close();
+        assertThrows(IllegalStateException.class, row::getName);
+        assertThrows(IllegalStateException.class, () -> store.add(new Product("2", "b", 100, "Cat")));
+    }
+
+    /**
+     * Runs the batch and off-heap pipelines over the same rows and compares the output files byte for byte.
+     */
+    private void assertSameOutput(String... rows) throws IOException {
+        Path input = dir.resolve("products.csv");
+        Files.write(input, ("ProductID,Name,Price,Category\n" + String.join("\n", rows) + "\n")
+                .getBytes(StandardCharsets.UTF_8));
+        Path batchOutput = dir.resolve("batch.csv");
+        Path offHeapOutput = dir.resolve("offheap.csv");
+
+        ETLConfig batchConfig = new ETLConfig(input.toString(), batchOutput.toString(), ",");
+        List<Product> products = new ProductExtractor(batchConfig).extractData();
+        new ProductLoader(batchConfig).loadTransformed(new ProductTransformer().transform(products));
+
+        ETLConfig offHeapConfig = new ETLConfig(input.toString(), offHeapOutput.toString(), ",");
+        try (OffHeapProductStore store = new ProductExtractor(offHeapConfig).extractOffHeap()) {
+            assertEquals(products.size(), store.size());
+            new ProductLoader(offHeapConfig).loadTransformed(new ProductTransformer().transform(store));
+        }
+
+        assertArrayEquals(Files.readAllBytes(batchOutput), Files.readAllBytes(offHeapOutput),
+                () -> "Off-heap output differs from batch output:\n" + read(batchOutput) + "\n---\n" + read(offHeapOutput));
+    }
+
+    private static String read(Path file) {
+        try {
+            String text = Files.readString(file);
+            return text.length() > 2000 ? text.substring(0, 2000) + "..." : text;
+        } catch (IOException ex) {
+            return ex.getMessage();
+        }
+    }
+}
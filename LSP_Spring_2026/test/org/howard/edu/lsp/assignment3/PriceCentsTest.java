@@ -0,0 +1,152 @@
+package org.howard.edu.lsp.assignment3;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that the fixed-point price arithmetic agrees exactly with BigDecimal,
+ * and that every input it cannot handle is handed back as UNSUPPORTED or INVALID.
+ */
+class PriceCentsTest {
+    private static final int RANDOM_PRICES = 500_000;
+
+    @Test
+    void roundsHalfUp() {
+        assertEquals(1, PriceCents.parse("0.005"));
+        assertEquals(0, PriceCents.parse("0.004999"));
+        assertEquals(-1, PriceCents.parse("-0.005"));
+        assertEquals(200, PriceCents.parse("1.995"));
+        assertEquals(268, PriceCents.parse("2.675"));
+        assertEquals(1000, PriceCents.parse("9.9999"));
+        assertEquals(50, PriceCents.parse(".5"));
+        assertEquals(100, PriceCents.parse("+1."));
+        assertEquals(0, PriceCents.parse("-0"));
+    }
+
+    @Test
+    void parsesExactlyLikeBigDecimal() {
+        Random random = new Random(42);
+        for (int n = 0; n < RANDOM_PRICES; n++) {
+            String text = randomPrice(random);
+            long cents = PriceCents.parse(text);
+            BigDecimal expected = new BigDecimal(text).setScale(2, RoundingMode.HALF_UP);
+            if (cents == PriceCents.UNSUPPORTED) {
+                assertEquals(expected, PriceCents.parseBigDecimal(text), text);
+            } else {
+                assertEquals(expected, PriceCents.toBigDecimal(cents), text);
+            }
+        }
+    }
+
+    @Test
+    void leavesLargeValuesToBigDecimal() {
+        assertEquals(999_999_999_999_999_999L, PriceCents.parse("9999999999999999.99"));
+        assertEquals(PriceCents.UNSUPPORTED, PriceCents.parse("10000000000000000"));
+        assertEquals(PriceCents.UNSUPPORTED, PriceCents.parse("-10000000000000000.00"));
+        assertEquals(new BigDecimal("10000000000000000.00"), PriceCents.parseBigDecimal("10000000000000000"));
+        assertEquals(10, PriceCents.parse("000000000000000000000.1"));
+    }
+
+    @Test
+    void leavesOtherNotationsToBigDecimal() {
+        assertEquals(PriceCents.UNSUPPORTED, PriceCents.parse("1e3"));
+        assertEquals(PriceCents.UNSUPPORTED, PriceCents.parse("1.5E-2"));
+        assertEquals(PriceCents.UNSUPPORTED, PriceCents.parse("١٢.٥"));
+        assertEquals(new BigDecimal("1000.00"), PriceCents.parseBigDecimal("1e3"));
+        assertEquals(new BigDecimal("0.02"), PriceCents.parseBigDecimal("1.5E-2"));
+        assertEquals(new BigDecimal("12.50"), PriceCents.parseBigDecimal("١٢.٥"));
+
+        // Looks like an exponent to the fast parser, but is not a number
+        assertEquals(PriceCents.UNSUPPORTED, PriceCents.parse("1e"));
+        assertNull(PriceCents.parseBigDecimal("1e"));
+        assertNull(PriceCents.parseBigDecimal("1e999999999999"));
+    }
+
+    @Test
+    void rejectsText() {
+        for (String text : new String[] {"", "-", "+", ".", "abc", "1.2.3", "1,5", " 1", "1 ", "--1", "$5"}) {
+            assertEquals(PriceCents.INVALID, PriceCents.parse(text), text);
+            assertNull(PriceCents.parseBigDecimal(text), text);
+        }
+    }
+
+    @Test
+    void multipliesExactlyLikeBigDecimal() {
+        assertEquals(1, PriceCents.multiply(1, 9, 10));
+        assertEquals(5, PriceCents.multiply(5, 9, 10));
+        assertEquals(-5, PriceCents.multiply(-5, 9, 10));
+        assertEquals(4, PriceCents.multiply(4, 9, 10));
+        assertEquals(90_000, PriceCents.multiply(100_000, 9, 10));
+
+        Random random = new Random(7);
+        for (int n = 0; n < RANDOM_PRICES; n++) {
+            long cents = random.nextLong() % 1_000_000_000_000L;
+            long numerator = random.nextInt(1000);
+            BigDecimal expected = PriceCents.toBigDecimal(cents)
+                    .multiply(BigDecimal.valueOf(numerator, 3)).setScale(2, RoundingMode.HALF_UP);
+            assertEquals(expected, PriceCents.toBigDecimal(PriceCents.multiply(cents, numerator, 1000)),
+                    cents + " * " + numerator);
+        }
+    }
+
+    @Test
+    void reportsMultiplyOverflow() {
+        assertEquals(PriceCents.UNSUPPORTED, PriceCents.multiply(Long.MAX_VALUE / 2, 9, 10));
+        assertEquals(PriceCents.UNSUPPORTED, PriceCents.multiply(Long.MIN_VALUE / 2, 9, 10));
+        assertEquals(922_337_203_685_477_580L, PriceCents.multiply(Long.MAX_VALUE / 9, 9, 10));
+    }
+
+    @Test
+    void classifiesPriceRangesAtTheBoundaries() {
+        assertEquals("Low", PriceCents.priceRange(-100));
+        assertEquals("Low", PriceCents.priceRange(1_000));
+        assertEquals("Medium", PriceCents.priceRange(1_001));
+        assertEquals("Medium", PriceCents.priceRange(10_000));
+        assertEquals("High", PriceCents.priceRange(10_001));
+        assertEquals("High", PriceCents.priceRange(50_000));
+        assertEquals("Premium", PriceCents.priceRange(50_001));
+    }
+
+    @Test
+    void convertsFromBigDecimal() {
+        assertEquals(1234, PriceCents.fromBigDecimal(new BigDecimal("12.34")));
+        assertEquals(-5, PriceCents.fromBigDecimal(new BigDecimal("-0.05")));
+        assertEquals(PriceCents.UNSUPPORTED, PriceCents.fromBigDecimal(new BigDecimal("12.3")));
+        assertEquals(PriceCents.UNSUPPORTED, PriceCents.fromBigDecimal(new BigDecimal("1234567890123456789.00")));
+        assertEquals(PriceCents.UNSUPPORTED, PriceCents.fromBigDecimal(null));
+    }
+
+    /**
+     * Generates a decimal price of up to 18 integer and 5 fraction digits, with an optional sign.
+     */
+    private static String randomPrice(Random random) {
+        StringBuilder text = new StringBuilder();
+        int sign = random.nextInt(8);
+        if (sign == 0) {
+            text.append('-');
+        } else if (sign == 1) {
+            text.append('+');
+        }
+        int integerDigits = random.nextInt(19);
+        int fractionDigits = random.nextInt(6);
+        if (integerDigits == 0 && fractionDigits == 0) {
+            integerDigits = 1;
+        }
+        for (int i = 0; i < integerDigits; i++) {
+            text.append((char) ('0' + random.nextInt(10)));
+        }
+        if (fractionDigits > 0 || random.nextBoolean()) {
+            text.append('.');
+        }
+        for (int i = 0; i < fractionDigits; i++) {
+            text.append((char) ('0' + random.nextInt(10)));
+        }
+        return text.toString();
+    }
+}